@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.maven;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes the bash completion script of the project's commands at build
+ * time, so users can install it without launching the program.  The
+ * script is the same one {@code _completion} prints at runtime.
+ *
+ * The project's classes and runtime dependencies are loaded in their own
+ * class loader; tomitribe-crest must be one of those dependencies.
+ */
+@Mojo(name = "completion",
+        threadSafe = true,
+        defaultPhase = LifecyclePhase.PREPARE_PACKAGE,
+        requiresDependencyResolution = ResolutionScope.RUNTIME)
+public class BashCompletionMojo extends AbstractMojo {
+
+    private static final String MAIN = "org.tomitribe.crest.Main";
+
+    @Parameter(defaultValue = "${project}", required = true, readonly = true)
+    private MavenProject project;
+
+    /**
+     * The command name the script completes, usually the name of the
+     * executable built by the executable goal.
+     */
+    @Parameter(property = "crest.completion.name",
+            defaultValue = "${project.artifactId}")
+    private String name;
+
+    /**
+     * Where to write the script.
+     */
+    @Parameter(property = "crest.completion.output",
+            defaultValue = "${project.build.directory}/${project.artifactId}-completion.bash")
+    private File output;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        final String script = generate();
+
+        if (!output.getParentFile().isDirectory() && !output.getParentFile().mkdirs()) {
+            throw new MojoExecutionException("Can't create " + output.getParentFile().getAbsolutePath());
+        }
+
+        try {
+            Files.write(output.toPath(), script.getBytes(UTF_8));
+        } catch (final IOException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        getLog().info(format("Created completion script: %s", output.getAbsolutePath()));
+    }
+
+    private String generate() throws MojoExecutionException {
+        final Thread thread = Thread.currentThread();
+        final ClassLoader previous = thread.getContextClassLoader();
+
+        try (URLClassLoader loader = new URLClassLoader(classpath(), ClassLoader.getSystemClassLoader().getParent())) {
+            thread.setContextClassLoader(loader);
+
+            final Class<?> mainClass;
+            try {
+                mainClass = loader.loadClass(MAIN);
+            } catch (final ClassNotFoundException e) {
+                throw new MojoExecutionException(MAIN + " is not on the runtime classpath of " + project.getId(), e);
+            }
+
+            final Object main = mainClass.getConstructor().newInstance();
+            try {
+                return (String) mainClass.getMethod("exec", String[].class)
+                        .invoke(main, (Object) new String[]{"_completion", name});
+            } finally {
+                if (main instanceof AutoCloseable) {
+                    ((AutoCloseable) main).close();
+                }
+            }
+        } catch (final InvocationTargetException e) {
+            throw new MojoExecutionException("Can't generate the completion script: " + e.getCause().getMessage(), e.getCause());
+        } catch (final MojoExecutionException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new MojoExecutionException("Can't generate the completion script: " + e.getMessage(), e);
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    private URL[] classpath() throws MojoExecutionException {
+        final List<URL> urls = new ArrayList<>();
+        try {
+            for (final Object element : project.getRuntimeClasspathElements()) {
+                urls.add(new File(String.valueOf(element)).toURI().toURL());
+            }
+        } catch (final DependencyResolutionRequiredException | MalformedURLException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        return urls.toArray(new URL[0]);
+    }
+}
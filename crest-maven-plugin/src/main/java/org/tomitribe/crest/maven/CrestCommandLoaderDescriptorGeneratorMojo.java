@@ -28,15 +28,24 @@ import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.MethodVisitor;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
+import java.util.zip.CRC32;
 
 import static org.objectweb.asm.ClassReader.SKIP_CODE;
 import static org.objectweb.asm.ClassReader.SKIP_DEBUG;
@@ -55,6 +64,14 @@ public class CrestCommandLoaderDescriptorGeneratorMojo extends AbstractMojo {
     @Parameter(property = "crest.descriptor.output", defaultValue = "${project.build.outputDirectory}/crest-commands.txt")
     protected File output;
 
+    /**
+     * Results of the previous scan, one line per class file.  Only class
+     * files whose size, modification time or checksum changed since then
+     * are read with ASM again.  Set to an empty value to always rescan.
+     */
+    @Parameter(property = "crest.descriptor.cache", defaultValue = "${project.build.directory}/crest-descriptor.cache")
+    protected File cache;
+
     @Parameter
     protected List<String> includes;
 
@@ -74,8 +91,20 @@ public class CrestCommandLoaderDescriptorGeneratorMojo extends AbstractMojo {
         // find all annotated classes: @Command, @Editor, @CrestInterceptor
         final Collection<String> found = new TreeSet<>(); // sorted if a human wants to check it
         try {
-            scan(found, classes);
-        } catch (final IOException e) {
+            final Map<String, Entry> previous = readCache();
+            final Map<String, Entry> entries = new ConcurrentHashMap<>();
+            final Scanner scanner = new Scanner(previous, entries);
+            ForkJoinPool.commonPool().invoke(new Walk(scanner, classes, ""));
+
+            for (final Entry entry : entries.values()) {
+                if (entry.type != ScanResultType.NONE) {
+                    found.add(entry.name);
+                }
+            }
+
+            getLog().debug("Scanned " + scanner.scanned + " of " + entries.size() + " class files");
+            writeCache(entries);
+        } catch (final IOException | UncheckedIOException e) {
             throw new MojoExecutionException(e.getMessage(), e);
         }
 
@@ -121,27 +150,169 @@ public class CrestCommandLoaderDescriptorGeneratorMojo extends AbstractMojo {
         }
     }
 
-    private void scan(final Collection<String> found, final File file) throws IOException {
-        if (file.isFile()) {
-            if (file.getName().endsWith(".class")) {
-                final ScanResult result = scanClass(file);
-                if (result.type != ScanResultType.NONE) {
-                    found.add(result.name);
+    private Map<String, Entry> readCache() {
+        final Map<String, Entry> entries = new HashMap<>();
+        if (cache == null || !cache.isFile()) {
+            return entries;
+        }
+
+        try {
+            for (final String line : Files.readAllLines(cache.toPath(), StandardCharsets.UTF_8)) {
+                final Entry entry = Entry.parse(line);
+                if (entry != null) {
+                    entries.put(entry.path, entry);
                 }
             }
-        } else if (file.isDirectory()) {
-            final File[] children = file.listFiles();
-            if (children != null) {
-                for (final File child : children) {
-                    scan(found, child);
+        } catch (final IOException | RuntimeException e) {
+            getLog().warn("Ignoring unreadable " + cache + ": " + e.getMessage());
+            entries.clear();
+        }
+        return entries;
+    }
+
+    private void writeCache(final Map<String, Entry> entries) throws IOException {
+        if (cache == null) {
+            return;
+        }
+
+        if (!cache.getParentFile().isDirectory() && !cache.getParentFile().mkdirs()) {
+            throw new IOException("Can't create " + cache.getParentFile().getAbsolutePath());
+        }
+
+        final List<String> lines = new ArrayList<>(entries.size());
+        for (final Entry entry : new TreeMap<>(entries).values()) {
+            lines.add(entry.format());
+        }
+
+        final File tmp = new File(cache.getPath() + ".tmp");
+        Files.write(tmp.toPath(), lines, StandardCharsets.UTF_8);
+        Files.move(tmp.toPath(), cache.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Walks one directory.  Sub-directories are forked so idle workers
+     * of the pool can steal them; class files are handled in place.
+     */
+    private static class Walk extends RecursiveAction {
+        private final Scanner scanner;
+        private final File directory;
+        private final String prefix;
+
+        private Walk(final Scanner scanner, final File directory, final String prefix) {
+            this.scanner = scanner;
+            this.directory = directory;
+            this.prefix = prefix;
+        }
+
+        @Override
+        protected void compute() {
+            final File[] children = directory.listFiles();
+            if (children == null) {
+                return;
+            }
+
+            final List<Walk> forks = new ArrayList<>();
+            for (final File child : children) {
+                final String path = prefix + child.getName();
+                if (child.isDirectory()) {
+                    final Walk walk = new Walk(scanner, child, path + "/");
+                    walk.fork();
+                    forks.add(walk);
+                } else if (child.getName().endsWith(".class")) {
+                    scanner.scan(child, path);
                 }
             }
+
+            for (final Walk fork : forks) {
+                fork.join();
+            }
         }
     }
 
-    private ScanResult scanClass(final File classFile) throws IOException {
-        try (InputStream stream = new FileInputStream(classFile)) {
-            final ClassReader reader = new ClassReader(stream);
+    private static class Scanner {
+        private final Map<String, Entry> previous;
+        private final Map<String, Entry> entries;
+        private final AtomicInteger scanned = new AtomicInteger();
+
+        private Scanner(final Map<String, Entry> previous, final Map<String, Entry> entries) {
+            this.previous = previous;
+            this.entries = entries;
+        }
+
+        private void scan(final File file, final String path) {
+            final long size = file.length();
+            final long modified = file.lastModified();
+
+            final Entry cached = previous.get(path);
+            if (cached != null && cached.size == size && cached.modified == modified) {
+                entries.put(path, cached);
+                return;
+            }
+
+            final byte[] bytes;
+            try {
+                bytes = Files.readAllBytes(file.toPath());
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            final long checksum = checksum(bytes);
+
+            // Recompiled but identical, as after a clean build
+            if (cached != null && cached.size == size && cached.checksum == checksum) {
+                entries.put(path, new Entry(path, size, modified, checksum, cached.type, cached.name));
+                return;
+            }
+
+            final ScanResult result = scanClass(bytes);
+            scanned.incrementAndGet();
+            entries.put(path, new Entry(path, size, modified, checksum, result.type, result.name));
+        }
+
+        private static long checksum(final byte[] bytes) {
+            final CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length);
+            return crc.getValue();
+        }
+    }
+
+    private static class Entry {
+        private final String path;
+        private final long size;
+        private final long modified;
+        private final long checksum;
+        private final ScanResultType type;
+        private final String name;
+
+        private Entry(final String path, final long size, final long modified, final long checksum,
+                      final ScanResultType type, final String name) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.checksum = checksum;
+            this.type = type;
+            this.name = name;
+        }
+
+        private String format() {
+            return path + '\t' + size + '\t' + modified + '\t' + checksum + '\t' + type + '\t' + (name == null ? "" : name);
+        }
+
+        private static Entry parse(final String line) {
+            final String[] parts = line.split("\t", -1);
+            if (parts.length != 6) {
+                return null;
+            }
+
+            final ScanResultType type = ScanResultType.valueOf(parts[4]);
+            return new Entry(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]), Long.parseLong(parts[3]),
+                    type, type == ScanResultType.NONE ? null : parts[5]);
+        }
+    }
+
+    private static ScanResult scanClass(final byte[] bytes) {
+        try {
+            final ClassReader reader = new ClassReader(bytes);
             reader.accept(new ClassVisitor(ASM9) {
                 private String className;
 
@@ -198,11 +369,15 @@ public class CrestCommandLoaderDescriptorGeneratorMojo extends AbstractMojo {
         return Pattern.compile(sb.toString());
     }
 
+    /**
+     * Ends the visit at the first marker.  No stack trace is filled in,
+     * so throwing it costs no more than returning.
+     */
     private static class CommandFoundException extends RuntimeException {
         private final ScanResult result;
 
         public CommandFoundException(final ScanResult result) {
-            super(result.name);
+            super(result.name, null, false, false);
             this.result = result;
         }
     }
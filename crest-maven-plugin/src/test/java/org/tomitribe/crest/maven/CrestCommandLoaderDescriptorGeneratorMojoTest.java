@@ -29,10 +29,14 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -112,6 +116,54 @@ public class CrestCommandLoaderDescriptorGeneratorMojoTest {
         assertTrue(found.contains("com.example.Extra"));
     }
 
+    @Test
+    public void incremental() throws IOException, MojoFailureException, MojoExecutionException {
+        final CrestCommandLoaderDescriptorGeneratorMojo mojo = new CrestCommandLoaderDescriptorGeneratorMojo();
+        mojo.classes = new File("target/test-classes");
+        mojo.output = new File("target/CrestCommandLoaderDescriptorGeneratorMojoTest/incremental.txt");
+        mojo.cache = new File("target/CrestCommandLoaderDescriptorGeneratorMojoTest/incremental.cache");
+        mojo.cache.delete();
+        mojo.execute();
+
+        final String path = NotScannedClass.class.getName().replace('.', '/') + ".class";
+        final List<String> lines = Files.readAllLines(mojo.cache.toPath(), StandardCharsets.UTF_8);
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith(path + "\t") && line.endsWith("\tNONE\t")));
+
+        // An unchanged class file is not read again, so a planted result is kept
+        final List<String> planted = new ArrayList<>();
+        for (final String line : lines) {
+            final String[] parts = line.split("\t", -1);
+            if (parts[0].equals(path)) {
+                parts[4] = "COMMAND";
+                parts[5] = "com.example.Planted";
+            }
+            planted.add(String.join("\t", parts));
+        }
+        Files.write(mojo.cache.toPath(), planted, StandardCharsets.UTF_8);
+
+        mojo.execute();
+        assertTrue(readLines(mojo.output).contains("com.example.Planted"));
+
+        // A class file that changed is scanned again
+        final File classFile = new File(mojo.classes, path);
+        assertTrue(classFile.setLastModified(classFile.lastModified() - 60000));
+        final List<String> stale = new ArrayList<>();
+        for (final String line : Files.readAllLines(mojo.cache.toPath(), StandardCharsets.UTF_8)) {
+            final String[] parts = line.split("\t", -1);
+            if (parts[0].equals(path)) {
+                parts[3] = "0";
+            }
+            stale.add(String.join("\t", parts));
+        }
+        Files.write(mojo.cache.toPath(), stale, StandardCharsets.UTF_8);
+
+        mojo.execute();
+        final Collection<String> found = readLines(mojo.output);
+        assertFalse(found.contains("com.example.Planted"));
+        assertTrue(found.contains(ClassCommand.class.getName()));
+        assertTrue(found.contains(MethodCommand.class.getName()));
+    }
+
     private Collection<String> readLines(final File file) throws IOException {
         final Collection<String> lines = new HashSet<>();
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2022 Tomitribe and community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.api.table;
+
+/**
+ * How the rows of a @Table are written.  The {@code csv} and {@code jsonl}
+ * formats are meant for piping into other tools: rows are written as the
+ * command produces them, with no column width measurement or word wrap,
+ * and the {@link Border} is ignored.  A sort still requires all rows to be
+ * read before the first is written.
+ */
+public enum Format {
+
+    /**
+     * The bordered, word-wrapped table sized to the terminal
+     */
+    text,
+
+    /**
+     * Comma-separated values, fields quoted as described in RFC 4180.
+     * Example:
+     * <pre>
+     * id,project,releaseDate,version
+     * 9,Apache TomEE,2016-05-17,7.0.x
+     * 14,"Apache ActiveMQ, Classic",2022-03-09,5.17.x
+     * </pre>
+     */
+    csv,
+
+    /**
+     * JSON Lines, one object per row keyed by field name.  Numbers and
+     * booleans are written as JSON numbers and booleans, everything else
+     * as a string.  The header setting does not apply.
+     * Example:
+     * <pre>
+     * {"id":9,"project":"Apache TomEE","releaseDate":"2016-05-17","version":"7.0.x"}
+     * {"id":14,"project":"Apache ActiveMQ Classic","releaseDate":"2022-03-09","version":"5.17.x"}
+     * </pre>
+     */
+    jsonl
+}
@@ -142,6 +142,11 @@ import java.lang.annotation.Target;
  * branches --no-table-header --table-fields="id version releaseDate" --table-sort=version --table-border=mysqlStyle
  * </pre>
  *
+ * <h2>Machine-readable output</h2>
+ *
+ * For piping into other tools, {@code --table-format=csv} or {@code --table-format=jsonl} (or {@code format} on
+ * the annotation) writes the rows as CSV or JSON Lines as they are produced, without measuring or wrapping columns.
+ *
  * <h2>Combinations of @Table and TableOptions or @Option overrides</h2>
  *
  * It is possible to use @Table to set defaults for how the table will be rendered, but still add TableOptions or @Option
@@ -220,8 +225,12 @@ public @interface Table {
     boolean header() default true;
 
 //    Orientation orientation() default Orientation.horizontal;
-//
-//    Format format() default Format.text;
+
+    /**
+     * Writes the rows as a table, or in a machine-readable format
+     * such as CSV or JSON Lines.  See {@link Format}
+     */
+    Format format() default Format.text;
 
     /**
      * Changes the border used for the table to one of over 10 different styles
@@ -232,12 +241,5 @@ public @interface Table {
 //        horizontal,
 //        vertical
 //    }
-//
-//    enum Format {
-//        text,
-//        csv,
-//        tsv,
-//        html
-//    }
 
 }
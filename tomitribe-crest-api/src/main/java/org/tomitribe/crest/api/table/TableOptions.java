@@ -28,7 +28,22 @@ import org.tomitribe.crest.api.Options;
  *     --no-table-header
  *     --table-sort="lastName address.zipCode"
  *     --table-fields="firstName lastName address.zipCode"
+ *     --table-format=csv
+ *     --table-limit=20
+ *     --table-offset=40
  * </pre>
+ * <p>
+ * Settings the user did not pass are filled in from the @Table annotation
+ * before the command is called, so the command sees the fields, sort, limit
+ * and offset the table will be rendered with and may apply them itself,
+ * for example in a database query.
+ * </p>
+ * <p>
+ * The limit and offset the table is rendered with are the ones resolved
+ * before the command ran; changing them here has no effect.  A command that
+ * applied them itself calls {@link #pagingApplied()}, and the table then
+ * shows the rows it returned as they are.
+ * </p>
  */
 @Options
 public class TableOptions {
@@ -36,11 +51,23 @@ public class TableOptions {
     private String fields;
     private String sort;
     private Border border;
+    private Format format;
+    private Integer limit;
+    private Integer offset;
+    private boolean pagingApplied;
+
+    public TableOptions(final Border border, final Boolean header, final String sort, final String fields,
+                        final Boolean tsv, final Boolean csv) {
+        this(border, header, sort, fields, null, null, null, tsv, csv);
+    }
 
     public TableOptions(@Option("table-border") final Border border,
                         @Option("table-header") final Boolean header,
                         @Option("table-sort") final String sort,
                         @Option("table-fields") final String fields,
+                        @Option("table-format") final Format format,
+                        @Option("table-limit") final Integer limit,
+                        @Option("table-offset") final Integer offset,
                         @Option("tsv") final Boolean tsv,
                         @Option("csv") final Boolean csv
     ) {
@@ -48,6 +75,9 @@ public class TableOptions {
         this.fields = fields;
         this.sort = sort;
         this.border = border;
+        this.format = format;
+        this.limit = limit;
+        this.offset = offset;
 
         if (tsv != null && tsv) {
             this.border = Border.tsv;
@@ -74,6 +104,18 @@ public class TableOptions {
         return border;
     }
 
+    public Format getFormat() {
+        return format;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public Integer getOffset() {
+        return offset;
+    }
+
     public void setHeader(final Boolean header) {
         this.header = header;
     }
@@ -89,4 +131,28 @@ public class TableOptions {
     public void setBorder(final Border border) {
         this.border = border;
     }
+
+    public void setFormat(final Format format) {
+        this.format = format;
+    }
+
+    public void setLimit(final Integer limit) {
+        this.limit = limit;
+    }
+
+    public void setOffset(final Integer offset) {
+        this.offset = offset;
+    }
+
+    /**
+     * Tells crest the command already skipped the offset and stopped at
+     * the limit, so the rows it returns are shown without paging them again
+     */
+    public void pagingApplied() {
+        this.pagingApplied = true;
+    }
+
+    public boolean isPagingApplied() {
+        return pagingApplied;
+    }
 }
@@ -28,7 +28,9 @@ import org.tomitribe.crest.api.Out;
 import org.tomitribe.crest.cli.api.interceptor.interactive.InteractiveMissingParameters;
 import org.tomitribe.crest.cli.impl.CliEnv;
 import org.tomitribe.crest.cli.impl.CommandParser;
+import org.tomitribe.crest.cli.impl.Jobs;
 import org.tomitribe.crest.cli.impl.command.Streams;
+import org.tomitribe.crest.cmds.processors.Commands;
 import org.tomitribe.crest.contexts.DefaultsContext;
 import org.tomitribe.crest.contexts.SystemPropertiesDefaultsContext;
 import org.tomitribe.crest.environments.Environment;
@@ -61,6 +63,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 public class CrestCli {
     private static volatile Runnable exitHook;
+    private static volatile Jobs jobs;
 
     @Command
     public static void exit() {
@@ -83,6 +86,55 @@ public class CrestCli {
         env.reader().clear();
     }
 
+    /**
+     * List the background jobs
+     */
+    @Command
+    public static void jobs(@Out final PrintStream out) {
+        for (final Jobs.Job job : jobs.list()) {
+            out.println(job);
+        }
+    }
+
+    /**
+     * Bring a background job to the foreground
+     *
+     * @param job the job number, the most recent job if not given
+     */
+    @Command
+    public static void fg(@Out final PrintStream out, final String... job) throws Exception {
+        final Throwable error = jobs.foreground(job(job), out);
+        if (error instanceof Exception) throw (Exception) error;
+        if (error instanceof Error) throw (Error) error;
+    }
+
+    /**
+     * Interrupt a background job
+     *
+     * @param job the job number
+     */
+    @Command
+    public static void kill(final String job) {
+        job(new String[]{job}).kill();
+    }
+
+    private static Jobs.Job job(final String[] spec) {
+        if (spec == null || spec.length == 0) {
+            final Jobs.Job job = jobs.last();
+            if (job == null) throw new IllegalArgumentException("No current job");
+            return job;
+        }
+
+        final String id = spec[0].startsWith("%") ? spec[0].substring(1) : spec[0];
+        try {
+            final Jobs.Job job = jobs.get(Integer.parseInt(id));
+            if (job != null) return job;
+        } catch (final NumberFormatException e) {
+            // no such job
+        }
+        throw new IllegalArgumentException("No such job: " + spec[0]);
+    }
+
     // using all defaults
     public static void main(final String[] args) throws Exception {
         new CrestCli().run(args);
@@ -105,8 +157,12 @@ public class CrestCli {
             aliasesMapping.putAll(Map.class.cast(IO.readProperties(aliases)));
         }
 
+        final Jobs jobs = new Jobs();
+        CrestCli.jobs = jobs;
+
         final InputReader readerFacade;
         final History history;
+        final Runnable restoreInterrupt;
         if (args == null || args.length == 0) {
             final ConsoleReader reader = new ConsoleReader(mainEnvironment.getInput(), mainEnvironment.getOutput());
             reader.setHandleUserInterrupt(true);
@@ -126,14 +182,24 @@ public class CrestCli {
             readerFacade = new InputReader() {
                 @Override
                 public String readLine(final String prompt) throws IOException {
+                    flush();
                     return reader.readLine(prompt);
                 }
 
                 @Override
                 public String readPassword(final String prompt) throws IOException {
+                    flush();
                     return reader.readLine(prompt, '*');
                 }
 
+                /**
+                 * Buffered output must reach the terminal before the prompt
+                 */
+                private void flush() {
+                    mainEnvironment.getOutput().flush();
+                    mainEnvironment.getError().flush();
+                }
+
                 @Override
                 public void clear() {
                     try {
@@ -148,7 +214,13 @@ public class CrestCli {
                     // no-op
                 }
             };
+
+            // Ctrl-C outside of readLine interrupts the running command,
+            // and exits as usual when there is none or it is pressed again
+            restoreInterrupt = Jobs.onInterrupt(jobs::interrupt);
         } else {
+            restoreInterrupt = () -> {
+            };
             history = null;
             readerFacade = new FileInputReader(args["-f".equals(args[0]) ? 1 : 0]);
         }
@@ -194,7 +266,11 @@ public class CrestCli {
                 } catch (final Exception e) {
                     // no-op
                 }
+                restoreInterrupt.run();
+                jobs.close();
                 es.shutdownNow();
+                // Shuts down the ExecutorService of the session
+                main.close();
             }
         };
 
@@ -205,7 +281,7 @@ public class CrestCli {
             do {
                 quit = true;
                 try {
-                    while ((line = readerFacade.readLine(nextPrompt())) != null) {
+                    while ((line = readLine(jobs, readerFacade)) != null) {
                         if (line.trim().isEmpty() || line.startsWith("#")) {
                             continue;
                         }
@@ -215,102 +291,46 @@ public class CrestCli {
                             line = actualCmd;
                         }
 
-                        line = transformCommand(line);
+                        line = transformCommand(line).trim();
+
+                        final boolean background = line.endsWith("&") && !line.endsWith("\\&");
+                        if (background) {
+                            line = line.substring(0, line.length() - 1).trim();
+                        }
 
-                        final long start;
-                        if (line.startsWith("time ")) {
-                            start = System.nanoTime();
+                        final String commandLine = line;
+
+                        final boolean timed = line.startsWith("time ");
+                        if (timed) {
                             line = line.substring("time ".length());
-                        } else {
-                            start = -1;
                         }
 
                         try {
                             final CommandParser.Command[] commands = parser.toArgs(line);
-                            if (commands.length == 1) {
-                                try {
-                                    main.main(mainEnvironment, commands[0].getArgs());
-                                } catch (final Exception error) {
-                                    if (ExitException.class.isInstance(error.getCause())) {
-                                        break;
-                                    }
-                                    error.printStackTrace(mainEnvironment.getError());
-                                    throw error;
-                                }
-                            } else { // should move to a common module
-                                if (nThreads < commands.length) {
-                                    throw new IllegalArgumentException("We dont support more than " + nThreads + " pipping commands, use -Dcrest.cli.pipping.threads to update it");
-                                }
+                            if (nThreads < commands.length) {
+                                throw new IllegalArgumentException("We dont support more than " + nThreads + " pipping commands, use -Dcrest.cli.pipping.threads to update it");
+                            }
 
-                                // execute tasks piping them
-                                final InputStream[] ins = new InputStream[commands.length];
-                                final OutputStream[] outs = new OutputStream[commands.length];
-                                for (int i = 0; i < commands.length; i++) { // allocate
-                                    ins[i] = i == 0 ? mainEnvironment.getInput() : new PipedInputStream();
-                                    outs[i] = i == commands.length - 1 ? mainEnvironment.getOutput() : new PipedOutputStream();
-                                }
-                                for (int i = 0; i < commands.length; i++) { // wire
-                                    if (PipedInputStream.class.isInstance(ins[i])) {
-                                        PipedInputStream.class.cast(ins[i]).connect(PipedOutputStream.class.cast(outs[i - 1]));
-                                    }
-                                }
+                            final Jobs.Task task = (in, out) -> execute(main, es, commands, timed, in, out);
 
-                                final Collection<Future<?>> tasks = new ArrayList<>(commands.length);
-
-                                for (int i = 0; i < commands.length; i++) {
-                                    final int idx = i;
-                                    final PrintStream out = new PrintStream(outs[idx]);
-                                    tasks.add(es.submit(new Runnable() {
-                                        @Override
-                                        public void run() {
-                                            try {
-                                                main.main(pipeEnvironment(mainEnvironment, ins[idx], out), commands[idx].getArgs());
-                                            } catch (final Exception error) {
-                                                error.printStackTrace(mainEnvironment.getError());
-                                            } finally {
-                                                if (PipedInputStream.class.isInstance(ins[idx])) {
-                                                    try {
-                                                        ins[idx].close();
-                                                    } catch (final IOException e) {
-                                                        // no-op
-                                                    }
-                                                }
-                                                try {
-                                                    if (PipedOutputStream.class.isInstance(outs[idx])) {
-                                                        outs[idx].close();
-                                                    } else {
-                                                        outs[idx].flush();
-                                                    }
-                                                } catch (final IOException e) {
-                                                    // no-op
-                                                }
-                                            }
-                                        }
-                                    }));
-                                }
+                            if (background) {
+                                final Jobs.Job job = jobs.background(commandLine, task);
+                                mainEnvironment.getOutput().println("[" + job.getId() + "] " + commandLine);
+                                continue;
+                            }
 
-                                // wait end of the global command
-                                for (final Future<?> t : tasks) {
-                                    try {
-                                        t.get();
-                                    } catch (final InterruptedException e) {
-                                        Thread.interrupted();
-                                    } catch (final ExecutionException e) {
-                                        // no-op
-                                    }
+                            final Jobs.Job job = jobs.foreground(commandLine, mainEnvironment.getInput(), mainEnvironment.getOutput(), task);
+                            final Throwable error = jobs.waitFor(job);
+                            if (error != null) {
+                                if (ExitException.class.isInstance(error.getCause())) {
+                                    break;
                                 }
-                                mainEnvironment.getOutput().flush();
+                                error.printStackTrace(mainEnvironment.getError());
+                                mainEnvironment.getError().flush();
                             }
                         } catch (final Exception error) {
                             error.printStackTrace(mainEnvironment.getError());
                             mainEnvironment.getError().flush();
-                        } finally {
-                            if (start > 0) {
-                                final long end = System.nanoTime();
-                                final long sec = TimeUnit.NANOSECONDS.toSeconds(end - start);
-                                final long msec = TimeUnit.NANOSECONDS.toMillis((end - start) - TimeUnit.SECONDS.toNanos(sec));
-                                mainEnvironment.getOutput().println("Time " + sec + "s " + msec + "ms");
-                            }
                         }
                     }
                 } catch (final UserInterruptException uie) {
@@ -325,12 +345,117 @@ public class CrestCli {
         }
     }
 
+    /**
+     * Reports the background jobs that finished before showing the prompt
+     */
+    private String readLine(final Jobs jobs, final InputReader reader) throws IOException {
+        jobs.report(mainEnvironment.getOutput());
+        return reader.readLine(nextPrompt());
+    }
+
+    /**
+     * Runs one command line, a single command or a pipeline, reading
+     * from and writing to the given streams
+     */
+    private void execute(final Main main, final ExecutorService es, final CommandParser.Command[] commands,
+                         final boolean timed, final InputStream input, final PrintStream output) throws Exception {
+        final long start = timed ? System.nanoTime() : -1;
+
+        try {
+            if (commands.length == 1) {
+                final CliEnvironment env = input == mainEnvironment.getInput() && output == mainEnvironment.getOutput()
+                        ? mainEnvironment : pipeEnvironment(mainEnvironment, input, output);
+                try {
+                    main.main(env, commands[0].getArgs());
+                } catch (final Exception error) {
+                    if (!ExitException.class.isInstance(error.getCause())) {
+                        error.printStackTrace(mainEnvironment.getError());
+                    }
+                    throw error;
+                }
+            } else { // should move to a common module
+                // execute tasks piping them
+                final InputStream[] ins = new InputStream[commands.length];
+                final OutputStream[] outs = new OutputStream[commands.length];
+                for (int i = 0; i < commands.length; i++) { // allocate
+                    ins[i] = i == 0 ? input : new PipedInputStream();
+                    outs[i] = i == commands.length - 1 ? output : new PipedOutputStream();
+                }
+                for (int i = 0; i < commands.length; i++) { // wire
+                    if (PipedInputStream.class.isInstance(ins[i])) {
+                        PipedInputStream.class.cast(ins[i]).connect(PipedOutputStream.class.cast(outs[i - 1]));
+                    }
+                }
+
+                final Collection<Future<?>> tasks = new ArrayList<>(commands.length);
+
+                for (int i = 0; i < commands.length; i++) {
+                    final int idx = i;
+                    final PrintStream out = new PrintStream(outs[idx]);
+                    tasks.add(es.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                main.main(pipeEnvironment(mainEnvironment, ins[idx], out), commands[idx].getArgs());
+                            } catch (final Exception error) {
+                                error.printStackTrace(mainEnvironment.getError());
+                            } finally {
+                                if (PipedInputStream.class.isInstance(ins[idx])) {
+                                    try {
+                                        ins[idx].close();
+                                    } catch (final IOException e) {
+                                        // no-op
+                                    }
+                                }
+                                try {
+                                    if (PipedOutputStream.class.isInstance(outs[idx])) {
+                                        outs[idx].close();
+                                    } else {
+                                        outs[idx].flush();
+                                    }
+                                } catch (final IOException e) {
+                                    // no-op
+                                }
+                            }
+                        }
+                    }));
+                }
+
+                // wait end of the global command, interrupting every stage if the job is interrupted
+                for (final Future<?> t : tasks) {
+                    try {
+                        t.get();
+                    } catch (final InterruptedException e) {
+                        for (final Future<?> stage : tasks) {
+                            stage.cancel(true);
+                        }
+                        throw e;
+                    } catch (final ExecutionException e) {
+                        // no-op
+                    }
+                }
+                output.flush();
+            }
+        } finally {
+            if (start > 0) {
+                final long end = System.nanoTime();
+                final long sec = TimeUnit.NANOSECONDS.toSeconds(end - start);
+                final long msec = TimeUnit.NANOSECONDS.toMillis((end - start) - TimeUnit.SECONDS.toNanos(sec));
+                output.println("Time " + sec + "s " + msec + "ms");
+            }
+        }
+    }
+
     protected String transformCommand(final String line) {
         return line;
     }
 
+    /**
+     * The Main is given the session environment, so closing it shuts
+     * down the ExecutorService commands of the session share
+     */
     protected Main newMain(final DefaultsContext ctx) {
-        final Main main = new Main();
+        final Main main = new Main(ctx, Commands.load(), mainEnvironment, System::exit, null, null, null);
         main.processClass(ctx, Streams.class);
         main.processClass(ctx, InteractiveMissingParameters.class);
         main.processClass(ctx, CrestCli.class);
@@ -17,16 +17,29 @@
 package org.tomitribe.crest.cli.impl;
 
 import org.tomitribe.crest.cli.api.CliEnvironment;
+import org.tomitribe.crest.environments.CommandExecutor;
 import org.tomitribe.crest.environments.SystemEnvironment;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 public abstract class CliEnv extends SystemEnvironment implements CliEnvironment {
     public CliEnv(final Map<Class<?>, Object> services) {
-        super(services);
+        super(withExecutor(services));
     }
 
     public CliEnv() {
-        super();
+        this(new HashMap<>());
+    }
+
+    /**
+     * Commands run in a CLI session share one pool, sized like the pool
+     * that runs piped commands, rather than a new thread per task.
+     */
+    private static Map<Class<?>, Object> withExecutor(final Map<Class<?>, Object> services) {
+        final Map<Class<?>, Object> map = new HashMap<>(services);
+        map.putIfAbsent(ExecutorService.class, new CommandExecutor(Integer.getInteger("crest.cli.pipping.threads", 16)));
+        return map;
     }
 }
@@ -0,0 +1,352 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.cli.impl;
+
+import org.tomitribe.crest.environments.Threads;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The jobs of an interactive session.
+ *
+ * Every command line runs as a job on its own thread, a virtual thread
+ * where the JVM has them.  The shell waits for a foreground job and
+ * Ctrl-C interrupts it.  Ctrl-C with no job running, or a second time
+ * for the same job, exits as it would without the shell.  A background job reads no input and buffers
+ * its output until it is brought to the foreground or reported as done
+ * before the next prompt.
+ *
+ * Interrupting a job only stops a command that blocks interruptibly or
+ * checks {@link Thread#isInterrupted()}.
+ */
+public class Jobs implements AutoCloseable {
+
+    private final ExecutorService threads = Threads.newPerTaskExecutor("cli-job");
+    private final ConcurrentSkipListMap<Integer, Job> jobs = new ConcurrentSkipListMap<>();
+    private volatile Job foreground;
+
+    public interface Task {
+        void run(InputStream in, PrintStream out) throws Exception;
+    }
+
+    /**
+     * Starts a job that reads from and writes to the given streams.
+     * The caller waits for it with {@link #waitFor(Job)}.
+     */
+    public Job foreground(final String command, final InputStream in, final PrintStream out, final Task task) {
+        final Job job = new Job(0, command, null);
+        job.future = threads.submit(() -> {
+            task.run(in, out);
+            return null;
+        });
+        return job;
+    }
+
+    /**
+     * Starts a job with no input whose output is held until the job
+     * is brought to the foreground or reported as done
+     */
+    public synchronized Job background(final String command, final Task task) {
+        int id = 1;
+        while (jobs.containsKey(id)) {
+            id++;
+        }
+
+        final Job job = new Job(id, command, new Output());
+        final PrintStream out = new PrintStream(job.output, true);
+        job.future = threads.submit(() -> {
+            try {
+                task.run(new ByteArrayInputStream(new byte[0]), out);
+            } finally {
+                out.flush();
+            }
+            return null;
+        });
+        jobs.put(id, job);
+        return job;
+    }
+
+    /**
+     * Waits for the job as the foreground job of the shell, so Ctrl-C
+     * interrupts it.
+     *
+     * @return the failure of the job, or null if it completed or was interrupted
+     */
+    public Throwable waitFor(final Job job) throws InterruptedException {
+        foreground = job;
+        try {
+            job.future.get();
+            return null;
+        } catch (final CancellationException e) {
+            return null;
+        } catch (final ExecutionException e) {
+            return e.getCause();
+        } finally {
+            foreground = null;
+        }
+    }
+
+    /**
+     * Interrupts the foreground job, if there is one
+     *
+     * @return false when there is no foreground job, or it was already
+     * interrupted and is still running, so Ctrl-C should do what it
+     * would without a shell
+     */
+    public boolean interrupt() {
+        final Job job = foreground;
+        if (job == null || !job.interrupted.compareAndSet(false, true)) return false;
+        job.kill();
+        return true;
+    }
+
+    public Job get(final int id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * The background job with the highest number, or null
+     */
+    public Job last() {
+        final Map.Entry<Integer, Job> entry = jobs.lastEntry();
+        return entry == null ? null : entry.getValue();
+    }
+
+    public List<Job> list() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    /**
+     * Brings a background job to the foreground: its buffered output is
+     * written out, the rest of its output follows as it is produced, and
+     * the caller waits for it.
+     */
+    public Throwable foreground(final Job job, final PrintStream out) throws InterruptedException {
+        jobs.remove(job.id);
+        job.output.attach(out);
+        try {
+            return waitFor(job);
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Reports the background jobs that finished since the last prompt,
+     * each followed by the output it buffered, and forgets them
+     */
+    public void report(final PrintStream out) {
+        for (final Job job : jobs.values()) {
+            if (!job.isDone()) continue;
+
+            jobs.remove(job.id);
+            out.println(job);
+            job.output.attach(out);
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        for (final Job job : jobs.values()) {
+            job.kill();
+        }
+        jobs.clear();
+        threads.shutdownNow();
+    }
+
+    /**
+     * Calls the action when the JVM receives SIGINT, which is what Ctrl-C
+     * sends while the console is not reading a line.  When the action
+     * returns false the signal goes to the handler that was there before,
+     * which by default exits the JVM.  Signals are only reachable through
+     * sun.misc, so this does nothing where that is not available.
+     *
+     * @return restores the previous handler
+     */
+    public static Runnable onInterrupt(final BooleanSupplier action) {
+        try {
+            final Class<?> signalType = Class.forName("sun.misc.Signal");
+            final Class<?> handlerType = Class.forName("sun.misc.SignalHandler");
+            final Object signal = signalType.getConstructor(String.class).newInstance("INT");
+            final Method handle = signalType.getMethod("handle", signalType, handlerType);
+            final AtomicReference<Object> previous = new AtomicReference<>();
+
+            final Object handler = Proxy.newProxyInstance(handlerType.getClassLoader(), new Class<?>[]{handlerType},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "handle":
+                                if (!action.getAsBoolean()) chain(handlerType, previous.get(), args[0]);
+                                return null;
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "equals":
+                                return proxy == args[0];
+                            default:
+                                return "SignalHandler[" + action + "]";
+                        }
+                    });
+
+            previous.set(handle.invoke(null, signal, handler));
+
+            return () -> {
+                try {
+                    handle.invoke(null, signal, previous.get());
+                } catch (final Exception e) {
+                    // no-op
+                }
+            };
+        } catch (final Exception | LinkageError e) {
+            return () -> {
+            };
+        }
+    }
+
+    /**
+     * Passes the signal on.  The JVM's own SIGINT handler is a Java one
+     * that exits, but the default and ignore handlers are native and
+     * can't be called, so those are followed by hand.
+     */
+    private static void chain(final Class<?> handlerType, final Object previous, final Object signal) throws Exception {
+        if (previous == handlerType.getField("SIG_IGN").get(null)) return;
+
+        if (previous != null && previous != handlerType.getField("SIG_DFL").get(null)) {
+            try {
+                handlerType.getMethod("handle", signal.getClass()).invoke(previous, signal);
+                return;
+            } catch (final InvocationTargetException e) {
+                if (!(e.getCause() instanceof UnsupportedOperationException)) throw e;
+            }
+        }
+
+        // 128 + SIGINT, as a shell reports a process stopped by Ctrl-C
+        Runtime.getRuntime().exit(130);
+    }
+
+    public static class Job {
+        private final int id;
+        private final String command;
+        private final Output output;
+        private final AtomicBoolean interrupted = new AtomicBoolean();
+        private volatile Future<?> future;
+
+        private Job(final int id, final String command, final Output output) {
+            this.id = id;
+            this.command = command;
+            this.output = output;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getCommand() {
+            return command;
+        }
+
+        public boolean isDone() {
+            return future.isDone();
+        }
+
+        public String getState() {
+            if (!future.isDone()) return "Running";
+            if (future.isCancelled()) return "Killed";
+            try {
+                future.get();
+                return "Done";
+            } catch (final Exception e) {
+                return "Failed";
+            }
+        }
+
+        /**
+         * Interrupts the thread running the job
+         */
+        public void kill() {
+            future.cancel(true);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("[%d]  %-8s %s", id, getState(), command);
+        }
+    }
+
+    /**
+     * Buffers what a background job writes until the job is attached to
+     * the terminal, then writes through
+     */
+    private static class Output extends OutputStream {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private OutputStream target;
+
+        @Override
+        public synchronized void write(final int b) throws IOException {
+            if (target != null) {
+                target.write(b);
+            } else {
+                buffer.write(b);
+            }
+        }
+
+        @Override
+        public synchronized void write(final byte[] b, final int off, final int len) throws IOException {
+            if (target != null) {
+                target.write(b, off, len);
+            } else {
+                buffer.write(b, off, len);
+            }
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        private synchronized void attach(final OutputStream out) {
+            try {
+                buffer.writeTo(out);
+                out.flush();
+            } catch (final IOException e) {
+                // no-op
+            }
+            buffer.reset();
+            target = out;
+        }
+    }
+}
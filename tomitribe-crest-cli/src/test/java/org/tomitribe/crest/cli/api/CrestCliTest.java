@@ -31,6 +31,7 @@ import java.io.PrintStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
@@ -46,15 +47,19 @@ public class CrestCliTest {
             portable("prompt$help\n" +
             "Commands: \n" +
             "\n" +
-            "   clear        \n" +
-            "   exit         \n" +
-            "   help         \n" +
-            "   history      \n" +
-            "   jgrep        \n" +
-            "   jsed         \n" +
-            "   pretty       \n" +
-            "   test         \n" +
-            "   wc           \n" +
+            "   block                                                \n" +
+            "   clear                                                \n" +
+            "   exit                                                 \n" +
+            "   fg        Bring a background job to the foreground   \n" +
+            "   help                                                 \n" +
+            "   history                                              \n" +
+            "   jgrep                                                \n" +
+            "   jobs      List the background jobs                   \n" +
+            "   jsed                                                 \n" +
+            "   kill      Interrupt a background job                 \n" +
+            "   pretty                                               \n" +
+            "   test                                                 \n" +
+            "   wc                                                   \n" +
             "\n" +
             "Help: \n" +
             "\n" +
@@ -180,11 +185,32 @@ public class CrestCliTest {
             "prompt$exit"), portable(new String(out.toByteArray()).replaceAll("[0-9]+ms", "Xms")));
     }
 
+    @Test
+    public void jobs() throws Exception {
+        final String input = "block &\n" + "jobs\n" + "kill 1\n" + "exit";
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        newTestCli(input, out, null).run();
+        assertEquals(
+            "prompt$block &\n" +
+            "[1] block\n" +
+            "prompt$jobs\n" +
+            "[1]  Running  block\n" +
+            "prompt$kill 1\n" +
+            "[1]  Killed   block\n" +
+            "prompt$exit", portable(new String(out.toByteArray())));
+    }
+
     private static String portable(final String raw) {
         return raw.replace("\r", "");
     }
 
     public static class MyTestCmd {
+        @Command
+        public static void block() throws InterruptedException {
+            Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+        }
+
         @Command
         public static String test() {
             return "line1\n" + "line 2\n" + "end";
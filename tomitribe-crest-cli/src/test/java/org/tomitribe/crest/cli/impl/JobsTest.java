@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.cli.impl;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JobsTest {
+    @Test
+    public void backgroundOutputIsHeldUntilForeground() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch resume = new CountDownLatch(1);
+
+        try (Jobs jobs = new Jobs()) {
+            final Jobs.Job job = jobs.background("scan", (in, out) -> {
+                out.println("buffered");
+                started.countDown();
+                resume.await(1, TimeUnit.MINUTES);
+                out.println("live");
+            });
+            assertEquals(1, job.getId());
+            assertTrue(started.await(1, TimeUnit.MINUTES));
+
+            final ByteArrayOutputStream report = new ByteArrayOutputStream();
+            jobs.report(new PrintStream(report));
+            assertEquals("", report.toString());
+            assertEquals("[1]  Running  scan", jobs.list().get(0).toString());
+
+            resume.countDown();
+
+            final ByteArrayOutputStream terminal = new ByteArrayOutputStream();
+            assertNull(jobs.foreground(job, new PrintStream(terminal)));
+            assertEquals("buffered\nlive\n", terminal.toString().replace("\r", ""));
+            assertTrue(jobs.list().isEmpty());
+        }
+    }
+
+    @Test
+    public void killInterruptsBackgroundJob() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        try (Jobs jobs = new Jobs()) {
+            final Jobs.Job job = jobs.background("sleep", (in, out) -> {
+                started.countDown();
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (final InterruptedException e) {
+                    interrupted.countDown();
+                }
+            });
+
+            assertTrue(started.await(1, TimeUnit.MINUTES));
+            jobs.get(job.getId()).kill();
+            assertTrue(interrupted.await(1, TimeUnit.MINUTES));
+
+            final ByteArrayOutputStream report = new ByteArrayOutputStream();
+            jobs.report(new PrintStream(report));
+            assertEquals("[1]  Killed   sleep\n", report.toString().replace("\r", ""));
+            assertTrue(jobs.list().isEmpty());
+        }
+    }
+
+    @Test
+    public void interruptForegroundJob() throws Exception {
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        try (Jobs jobs = new Jobs()) {
+            final Jobs.Job job = jobs.foreground("sleep", new ByteArrayInputStream(new byte[0]), System.out, (in, out) -> {
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (final InterruptedException e) {
+                    interrupted.countDown();
+                }
+            });
+
+            final Thread ctrlC = new Thread(() -> {
+                try {
+                    while (!jobs.interrupt()) {
+                        Thread.sleep(10);
+                    }
+                } catch (final InterruptedException e) {
+                    // no-op
+                }
+            });
+            ctrlC.start();
+
+            assertNull(jobs.waitFor(job));
+            assertTrue(interrupted.await(1, TimeUnit.MINUTES));
+            ctrlC.join();
+
+            // Nothing left to interrupt, Ctrl-C goes to the previous handler
+            assertFalse(jobs.interrupt());
+        }
+    }
+
+    @Test
+    public void interruptChainsToPreviousHandler() throws Exception {
+        final Class<?> signalType;
+        try {
+            signalType = Class.forName("sun.misc.Signal");
+        } catch (final ClassNotFoundException e) {
+            Assume.assumeTrue("sun.misc.Signal is not available", false);
+            return;
+        }
+
+        final CountDownLatch previous = new CountDownLatch(1);
+        final AtomicInteger asked = new AtomicInteger();
+
+        final Runnable restoreOuter = Jobs.onInterrupt(() -> {
+            previous.countDown();
+            return true;
+        });
+        try {
+            final Runnable restoreInner = Jobs.onInterrupt(() -> {
+                asked.incrementAndGet();
+                return false;
+            });
+            try {
+                final Object signal = signalType.getConstructor(String.class).newInstance("INT");
+                signalType.getMethod("raise", signalType).invoke(null, signal);
+
+                assertTrue(previous.await(1, TimeUnit.MINUTES));
+                assertEquals(1, asked.get());
+            } finally {
+                restoreInner.run();
+            }
+        } finally {
+            restoreOuter.run();
+        }
+    }
+}
@@ -0,0 +1,551 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.generator;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static javax.lang.model.element.ElementKind.METHOD;
+import static javax.tools.Diagnostic.Kind.ERROR;
+
+/**
+ * Generates, for each class declaring @Command methods, a class named
+ * after it with an _CrestInvoker suffix.  It holds one Invoker per command
+ * method that calls the method directly instead of through reflection.
+ *
+ * When every parameter of a method is an @Option or a plain argument of
+ * type String, a primitive or a primitive wrapper, the invoker also parses
+ * the command line itself: a switch on the option names and the
+ * conversions chosen here, at build time.  Anything it does not handle
+ * makes it return null, and crest falls back to its general parser.
+ *
+ * The generated code depends on tomitribe-crest.  A module compiled
+ * against tomitribe-crest-api alone gets no invokers, and crest calls
+ * its commands through reflection as before.
+ */
+@SupportedAnnotationTypes({
+        "org.tomitribe.crest.api.Command"
+})
+public class CrestInvokerGeneratorProcessor extends AbstractProcessor {
+    private static final String SUFFIX = "_CrestInvoker";
+    private static final String INVOKER = "org.tomitribe.crest.cmds.Invoker";
+    private static final String OPTION = "org.tomitribe.crest.api.Option";
+    private static final String DEFAULT = "org.tomitribe.crest.api.Default";
+    private static final String REQUIRED = "org.tomitribe.crest.api.Required";
+    private static final Set<String> INTERNAL = new HashSet<String>() {{
+        add("org.tomitribe.crest.api.In");
+        add("org.tomitribe.crest.api.Out");
+        add("org.tomitribe.crest.api.Err");
+        add("org.tomitribe.crest.api.Defaults");
+    }};
+
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnvironment) {
+        if (roundEnvironment.processingOver()) {
+            return false;
+        }
+
+        // The generated code would not compile without tomitribe-crest
+        if (processingEnv.getElementUtils().getTypeElement(INVOKER) == null) {
+            return false;
+        }
+
+        final Map<TypeElement, List<ExecutableElement>> commands = new LinkedHashMap<>();
+        for (final TypeElement annotation : annotations) {
+            for (final Element element : roundEnvironment.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != METHOD || element.getModifiers().contains(Modifier.PRIVATE)) {
+                    continue;
+                }
+
+                final TypeElement type = (TypeElement) element.getEnclosingElement();
+                if (!isAccessible(type)) {
+                    continue;
+                }
+
+                commands.computeIfAbsent(type, t -> new ArrayList<>()).add((ExecutableElement) element);
+            }
+        }
+
+        for (final Map.Entry<TypeElement, List<ExecutableElement>> entry : commands.entrySet()) {
+            try {
+                generate(entry.getKey(), entry.getValue());
+            } catch (final IOException | RuntimeException e) {
+                processingEnv.getMessager().printMessage(ERROR, "Can't generate invokers: " + e.getMessage(), entry.getKey());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The generated class lives in the same package, so it can call any
+     * method that is not private of a class that is not private itself
+     */
+    private static boolean isAccessible(final TypeElement type) {
+        Element current = type;
+        while (current instanceof TypeElement) {
+            final TypeElement typeElement = (TypeElement) current;
+            if (typeElement.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (typeElement.getNestingKind() != NestingKind.TOP_LEVEL && typeElement.getNestingKind() != NestingKind.MEMBER) {
+                return false;
+            }
+            current = typeElement.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private void generate(final TypeElement type, final List<ExecutableElement> methods) throws IOException {
+        final String pkg = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        final String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        final String simpleName = (pkg.isEmpty() ? binaryName : binaryName.substring(pkg.length() + 1)) + SUFFIX;
+        final String className = pkg.isEmpty() ? simpleName : pkg + '.' + simpleName;
+        if (!generated.add(className)) {
+            return;
+        }
+
+        final Map<String, ExecutableElement> signatures = new LinkedHashMap<>();
+        for (final ExecutableElement method : methods) {
+            signatures.putIfAbsent(signature(method), method);
+        }
+
+        final JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(className, type);
+        try (final Writer writer = sourceFile.openWriter()) {
+            if (!pkg.isEmpty()) {
+                writer.write("package " + pkg + ";\n\n");
+            }
+            writer.write("import org.tomitribe.crest.cmds.Invoker;\n\n");
+            writer.write("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+            writer.write("public final class " + simpleName + " implements Invoker.Factory {\n\n");
+
+            writer.write("    @Override\n");
+            writer.write("    public Invoker get(final String signature) {\n");
+            writer.write("        switch (signature) {\n");
+            int index = 0;
+            for (final String signature : signatures.keySet()) {
+                writer.write("            case \"" + escape(signature) + "\":\n");
+                writer.write("                return new Invoker" + index++ + "();\n");
+            }
+            writer.write("            default:\n");
+            writer.write("                return null;\n");
+            writer.write("        }\n");
+            writer.write("    }\n");
+
+            boolean booleans = false;
+            index = 0;
+            for (final ExecutableElement method : signatures.values()) {
+                writer.write("\n    private static final class Invoker" + index++ + " implements Invoker {\n");
+                writeInvoke(writer, type, method);
+                writer.write("\n");
+                booleans |= writeParse(writer, method);
+                writer.write("    }\n");
+            }
+
+            if (booleans) {
+                writer.write("\n    private static Boolean toBoolean(final String value) {\n");
+                writer.write("        if (value == null) {\n");
+                writer.write("            return null;\n");
+                writer.write("        }\n");
+                writer.write("        if (\"true\".equals(value)) {\n");
+                writer.write("            return Boolean.TRUE;\n");
+                writer.write("        }\n");
+                writer.write("        if (\"false\".equals(value)) {\n");
+                writer.write("            return Boolean.FALSE;\n");
+                writer.write("        }\n");
+                writer.write("        throw new NumberFormatException(value);\n");
+                writer.write("    }\n");
+            }
+
+            writer.write("}\n");
+        }
+    }
+
+    private void writeInvoke(final Writer writer, final TypeElement type, final ExecutableElement method) throws IOException {
+        final StringBuilder call = new StringBuilder();
+        if (method.getModifiers().contains(Modifier.STATIC)) {
+            call.append(type.getQualifiedName());
+        } else {
+            call.append("((").append(type.getQualifiedName()).append(") instance)");
+        }
+        call.append('.').append(method.getSimpleName()).append('(');
+
+        final List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) {
+                call.append(", ");
+            }
+            call.append('(').append(sourceName(parameters.get(i).asType(), true)).append(") args[").append(i).append(']');
+        }
+        call.append(')');
+
+        writer.write("        @Override\n");
+        writer.write("        public Object invoke(final Object instance, final Object[] args) throws Throwable {\n");
+        if (method.getReturnType().getKind() == TypeKind.VOID) {
+            writer.write("            " + call + ";\n");
+            writer.write("            return null;\n");
+        } else {
+            writer.write("            return " + call + ";\n");
+        }
+        writer.write("        }\n");
+    }
+
+    /**
+     * Mirrors org.tomitribe.crest.cmds.Arguments for the forms it can
+     * decide on its own: --name=value, --name and plain arguments.
+     *
+     * @return true if the code calls toBoolean
+     */
+    private boolean writeParse(final Writer writer, final ExecutableElement method) throws IOException {
+        final List<Parameter> parameters = parameters(method);
+
+        writer.write("        @Override\n");
+        writer.write("        public Object[] parse(final String[] rawArgs) {\n");
+
+        if (parameters == null) {
+            writer.write("            return null;\n");
+            writer.write("        }\n");
+            return false;
+        }
+
+        int arguments = 0;
+        boolean options = false;
+        for (final Parameter parameter : parameters) {
+            writer.write("            String " + parameter.var + " = null;\n");
+            if (parameter.option == null) {
+                arguments++;
+            } else {
+                options = true;
+            }
+        }
+        if (arguments > 0) {
+            writer.write("            int arguments = 0;\n");
+        }
+
+        writer.write("            for (final String arg : rawArgs) {\n");
+        writer.write("                if (arg.startsWith(\"--\")) {\n");
+        if (options) {
+            writer.write("                    final int eq = arg.indexOf('=');\n");
+            writer.write("                    final String name = eq > 0 ? arg.substring(2, eq) : arg.substring(2);\n");
+            writer.write("                    if (eq < 0 && name.startsWith(\"no-\")) {\n");
+            writer.write("                        return null;\n");
+            writer.write("                    }\n");
+            writer.write("                    final String value = eq > 0 ? arg.substring(eq + 1) : \"true\";\n");
+            writer.write("                    switch (name) {\n");
+            for (final Parameter parameter : parameters) {
+                // single letter options are only valid as -x, which needs the general parser
+                if (parameter.option == null || parameter.option.length() < 2) {
+                    continue;
+                }
+                writer.write("                        case \"" + escape(parameter.option) + "\":\n");
+                writer.write("                            if (" + parameter.var + " != null) {\n");
+                writer.write("                                return null;\n");
+                writer.write("                            }\n");
+                writer.write("                            " + parameter.var + " = value;\n");
+                writer.write("                            break;\n");
+            }
+            writer.write("                        default:\n");
+            writer.write("                            return null;\n");
+            writer.write("                    }\n");
+        } else {
+            writer.write("                    return null;\n");
+        }
+        writer.write("                } else if (arg.startsWith(\"-\")) {\n");
+        writer.write("                    return null;\n");
+        writer.write("                } else {\n");
+        if (arguments > 0) {
+            writer.write("                    switch (arguments++) {\n");
+            int position = 0;
+            for (final Parameter parameter : parameters) {
+                if (parameter.option == null) {
+                    writer.write("                        case " + position++ + ":\n");
+                    writer.write("                            " + parameter.var + " = arg;\n");
+                    writer.write("                            break;\n");
+                }
+            }
+            writer.write("                        default:\n");
+            writer.write("                            return null;\n");
+            writer.write("                    }\n");
+        } else {
+            writer.write("                    return null;\n");
+        }
+        writer.write("                }\n");
+        writer.write("            }\n");
+
+        if (arguments > 0) {
+            writer.write("            if (arguments != " + arguments + ") {\n");
+            writer.write("                return null;\n");
+            writer.write("            }\n");
+        }
+
+        for (final Parameter parameter : parameters) {
+            if (parameter.option == null) {
+                continue;
+            }
+            if (parameter.required) {
+                writer.write("            if (" + parameter.var + " == null) {\n");
+                writer.write("                return null;\n");
+                writer.write("            }\n");
+            } else if (parameter.defaultValue != null) {
+                writer.write("            if (" + parameter.var + " == null) {\n");
+                writer.write("                " + parameter.var + " = \"" + escape(parameter.defaultValue) + "\";\n");
+                writer.write("            }\n");
+            }
+        }
+
+        boolean booleans = false;
+        writer.write("            try {\n");
+        writer.write("                return new Object[]{\n");
+        for (int i = 0; i < parameters.size(); i++) {
+            final Parameter parameter = parameters.get(i);
+            booleans |= parameter.type.equals("java.lang.Boolean");
+            writer.write("                        " + parameter.convert() + (i + 1 < parameters.size() ? ",\n" : "\n"));
+        }
+        writer.write("                };\n");
+        writer.write("            } catch (final NumberFormatException e) {\n");
+        writer.write("                return null;\n");
+        writer.write("            }\n");
+        writer.write("        }\n");
+        return booleans;
+    }
+
+    /**
+     * @return the parameters of the method, or null if any of them needs
+     * the general parser of crest
+     */
+    private List<Parameter> parameters(final ExecutableElement method) {
+        if (method.isVarArgs()) {
+            return null;
+        }
+
+        final List<Parameter> parameters = new ArrayList<>();
+        for (final VariableElement variable : method.getParameters()) {
+            final String type = scalar(variable.asType());
+            if (type == null) {
+                return null;
+            }
+
+            String option = null;
+            String defaultValue = null;
+            boolean required = false;
+            for (final AnnotationMirror annotation : variable.getAnnotationMirrors()) {
+                final String name = ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+                if (INTERNAL.contains(name)) {
+                    return null;
+                } else if (OPTION.equals(name)) {
+                    final Object value = value(annotation, "value");
+                    if (!(value instanceof List) || ((List<?>) value).isEmpty()) {
+                        return null;
+                    }
+                    option = String.valueOf(((AnnotationValue) ((List<?>) value).get(0)).getValue());
+                } else if (DEFAULT.equals(name)) {
+                    defaultValue = String.valueOf(value(annotation, "value"));
+                } else if (REQUIRED.equals(name)) {
+                    required = true;
+                }
+            }
+
+            if (option == null) {
+                defaultValue = null;
+            } else if (defaultValue == null && variable.asType().getKind().isPrimitive()) {
+                defaultValue = variable.asType().getKind() == TypeKind.BOOLEAN ? "false" : "0";
+            }
+
+            // ${...} defaults are interpolated at runtime by the general parser
+            if (defaultValue != null && defaultValue.contains("${")) {
+                return null;
+            }
+
+            parameters.add(new Parameter("value" + parameters.size(), type, option, defaultValue, required));
+        }
+        return parameters;
+    }
+
+    private static Object value(final AnnotationMirror annotation, final String name) {
+        for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the wrapper type name of a type the generated parser can
+     * convert, or null
+     */
+    private String scalar(final TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+                return processingEnv.getTypeUtils().boxedClass(processingEnv.getTypeUtils().getPrimitiveType(type.getKind()))
+                        .getQualifiedName().toString();
+            case DECLARED:
+                final String name = ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+                return WRAPPERS.contains(name) ? name : null;
+            default:
+                return null;
+        }
+    }
+
+    private static final Set<String> WRAPPERS = new HashSet<String>() {{
+        add("java.lang.String");
+        add("java.lang.Boolean");
+        add("java.lang.Byte");
+        add("java.lang.Short");
+        add("java.lang.Integer");
+        add("java.lang.Long");
+        add("java.lang.Float");
+        add("java.lang.Double");
+    }};
+
+    private static final Map<String, String> PARSERS = new HashMap<String, String>() {{
+        put("java.lang.Byte", "Byte.valueOf");
+        put("java.lang.Short", "Short.valueOf");
+        put("java.lang.Integer", "Integer.valueOf");
+        put("java.lang.Long", "Long.valueOf");
+        put("java.lang.Float", "Float.valueOf");
+        put("java.lang.Double", "Double.valueOf");
+    }};
+
+    /**
+     * Matches org.tomitribe.crest.cmds.Invokers.signature, which is built
+     * from Class.getTypeName() of the erased parameter types
+     */
+    private String signature(final ExecutableElement method) {
+        final StringBuilder sb = new StringBuilder(method.getSimpleName()).append('(');
+        final List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(typeName(processingEnv.getTypeUtils().erasure(parameters.get(i).asType()), true));
+        }
+        return sb.append(')').toString();
+    }
+
+    /**
+     * The erased type as it can appear in a cast; primitives are boxed
+     * when they come out of the Object[] of arguments
+     */
+    private String sourceName(final TypeMirror type, final boolean box) {
+        final TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+        if (box && erased.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass(processingEnv.getTypeUtils().getPrimitiveType(erased.getKind()))
+                    .getQualifiedName().toString();
+        }
+        return typeName(erased, false);
+    }
+
+    private String typeName(final TypeMirror type, final boolean binary) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return typeName(((ArrayType) type).getComponentType(), binary) + "[]";
+            case DECLARED:
+                final TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+                return binary ?
+                        processingEnv.getElementUtils().getBinaryName(element).toString() :
+                        element.getQualifiedName().toString();
+            case TYPEVAR:
+                return typeName(processingEnv.getTypeUtils().erasure(type), binary);
+            default:
+                return type.getKind().name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static String escape(final String value) {
+        final StringBuilder sb = new StringBuilder(value.length());
+        for (final char c : value.toCharArray()) {
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static final class Parameter {
+        private final String var;
+        private final String type;
+        private final String option;
+        private final String defaultValue;
+        private final boolean required;
+
+        private Parameter(final String var, final String type, final String option, final String defaultValue, final boolean required) {
+            this.var = var;
+            this.type = type;
+            this.option = option;
+            this.defaultValue = defaultValue;
+            this.required = required;
+        }
+
+        private String convert() {
+            if ("java.lang.String".equals(type)) {
+                return var;
+            }
+            if ("java.lang.Boolean".equals(type)) {
+                return "toBoolean(" + var + ")";
+            }
+            return var + " == null ? null : " + PARSERS.get(type) + "(" + var + ")";
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.generator;
+
+import org.junit.Test;
+import org.tomitribe.crest.Main;
+import org.tomitribe.crest.api.Command;
+import org.tomitribe.crest.api.Default;
+import org.tomitribe.crest.api.Option;
+import org.tomitribe.crest.api.Out;
+import org.tomitribe.crest.api.Required;
+import org.tomitribe.crest.cmds.CommandFailedException;
+import org.tomitribe.crest.cmds.Invoker;
+import org.tomitribe.crest.cmds.Invokers;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CrestInvokerGeneratorProcessorTest {
+
+    @Test
+    public void parseAndInvoke() throws Throwable {
+        final Invoker invoker = Invokers.find(Deploy.class.getMethod("deploy", String.class, int.class, Boolean.class, String.class));
+        assertNotNull(invoker);
+
+        assertArrayEquals(new Object[]{"prod", 3, true, "app.war"},
+                invoker.parse(new String[]{"--env=prod", "--retries=3", "--force", "app.war"}));
+        assertArrayEquals(new Object[]{"dev", 0, null, "app.war"},
+                invoker.parse(new String[]{"app.war"}));
+
+        assertEquals("prod 3 false app.war", invoker.invoke(new Deploy(), new Object[]{"prod", 3, false, "app.war"}));
+    }
+
+    /**
+     * Everything the generated parser can't decide alone is left to the
+     * general parser, which either handles it or reports the error
+     */
+    @Test
+    public void generalParserForTheRest() throws Exception {
+        final Invoker invoker = Invokers.find(Deploy.class.getMethod("deploy", String.class, int.class, Boolean.class, String.class));
+
+        assertNull(invoker.parse(new String[]{"-e=prod", "app.war"}));
+        assertNull(invoker.parse(new String[]{"--no-force", "app.war"}));
+        assertNull(invoker.parse(new String[]{"--env=prod", "--env=test", "app.war"}));
+        assertNull(invoker.parse(new String[]{"--color=red", "app.war"}));
+        assertNull(invoker.parse(new String[]{"--retries=three", "app.war"}));
+        assertNull(invoker.parse(new String[]{"--force=yes", "app.war"}));
+        assertNull(invoker.parse(new String[]{}));
+        assertNull(invoker.parse(new String[]{"app.war", "app.jar"}));
+
+        final Main main = new Main(Deploy.class);
+        assertEquals("prod 0 false app.war", main.exec("deploy", "-e=prod", "--no-force", "app.war"));
+    }
+
+    @Test
+    public void main() throws Exception {
+        final Main main = new Main(Deploy.class);
+        assertEquals("prod 3 true app.war", main.exec("deploy", "--env=prod", "--retries=3", "--force", "app.war"));
+        assertEquals("dev 0 null app.war", main.exec("deploy", "app.war"));
+        assertEquals("a.log, b.log", main.exec("tail", "--lines=5", "a.log", "b.log"));
+    }
+
+    @Test
+    public void invokeOnly() throws Throwable {
+        final Invoker invoker = Invokers.find(Deploy.class.getMethod("tail", int.class, PrintStream.class, List.class));
+        assertNotNull(invoker);
+        assertNull(invoker.parse(new String[]{"--lines=5", "a.log"}));
+    }
+
+    @Test
+    public void requiredOption() throws Exception {
+        final Invoker invoker = Invokers.find(Deploy.class.getMethod("undeploy", String.class));
+        assertNull(invoker.parse(new String[]{}));
+        assertArrayEquals(new Object[]{"app"}, invoker.parse(new String[]{"--name=app"}));
+    }
+
+    @Test
+    public void exceptionsAreReportedAsWithReflection() throws Exception {
+        final Main main = new Main(Deploy.class);
+        try {
+            main.exec("undeploy", "--name=missing");
+            fail();
+        } catch (final CommandFailedException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertEquals("missing", e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * A module that only compiles against tomitribe-crest-api must still
+     * compile with the processor on its path, it just gets no invokers
+     */
+    @Test
+    public void apiOnlyClasspath() throws Exception {
+        final File api = new File(Command.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        final File crest = new File(Invoker.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+
+        assertEquals(Collections.emptyList(), compile(api.getAbsolutePath()));
+        assertEquals(Collections.singletonList("Hello_CrestInvoker.java"),
+                compile(api.getAbsolutePath() + File.pathSeparator + crest.getAbsolutePath()));
+    }
+
+    /**
+     * Compiles a command class with the processor
+     *
+     * @return the names of the generated sources
+     */
+    private static List<String> compile(final String classpath) throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final Path dir = Files.createTempDirectory("crest-invoker");
+        try {
+            final Path source = dir.resolve("src/Hello.java");
+            Files.createDirectories(source.getParent());
+            Files.write(source, ("public class Hello {\n" +
+                    "    @org.tomitribe.crest.api.Command\n" +
+                    "    public String hello(@org.tomitribe.crest.api.Option(\"name\") final String name) {\n" +
+                    "        return name;\n" +
+                    "    }\n" +
+                    "}\n").getBytes(StandardCharsets.UTF_8));
+
+            final Path generated = Files.createDirectories(dir.resolve("generated"));
+            final Path classes = Files.createDirectories(dir.resolve("classes"));
+
+            final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+            try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+                final JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics,
+                        Arrays.asList("-classpath", classpath, "-s", generated.toString(), "-d", classes.toString()),
+                        null, files.getJavaFileObjects(source.toFile()));
+                task.setProcessors(Collections.singletonList(new CrestInvokerGeneratorProcessor()));
+                assertTrue(diagnostics.getDiagnostics().toString(), task.call());
+            }
+
+            try (Stream<Path> list = Files.list(generated)) {
+                return list.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+            }
+        } finally {
+            try (Stream<Path> walk = Files.walk(dir)) {
+                walk.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    public static class Deploy {
+        @Command
+        public String deploy(@Option({"env", "e"}) @Default("dev") final String env,
+                             @Option("retries") final int retries,
+                             @Option("force") final Boolean force,
+                             final String archive) {
+            return env + " " + retries + " " + force + " " + archive;
+        }
+
+        @Command
+        public static String tail(@Option("lines") @Default("10") final int lines,
+                                  @Out final PrintStream out,
+                                  final List<String> files) {
+            return String.join(", ", files);
+        }
+
+        @Command
+        public void undeploy(@Option("name") @Required final String name) {
+            throw new IllegalStateException(name);
+        }
+    }
+}
@@ -18,6 +18,9 @@ import org.tomitribe.crest.api.Option;
 import org.tomitribe.crest.api.Options;
 import org.tomitribe.util.collect.ObjectMap;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -26,9 +29,12 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Stream;
 
 /**
  * Generic include/exclude regex filter for list commands.
@@ -42,6 +48,11 @@ import java.util.stream.Collectors;
  *
  * Case sensitive by default.  Use --case-insensitive to apply Pattern.CASE_INSENSITIVE
  * to all patterns, or use (?i) inline in individual patterns for per-pattern control.
+ *
+ * The patterns, the case handling and the way field values are read from each
+ * class of record are all worked out once, so testing a record does no regex
+ * compilation and no reflective map building.  A Filter holds no per-record
+ * state and can be used from a parallel stream.
  */
 @Options
 public class Filter<T> implements Predicate<T> {
@@ -52,6 +63,14 @@ public class Filter<T> implements Predicate<T> {
     private final Excludes excludes;
     private final boolean caseInsensitive;
 
+    private final Patterns includePatterns;
+    private final Patterns excludePatterns;
+
+    /**
+     * How to read the field values of each class of record seen so far
+     */
+    private final Map<Class<?>, Plan> plans = new ConcurrentHashMap<>();
+
     public Filter(final Includes includes,
                   final Excludes excludes,
                   @Option("case-insensitive") @Default("false") final Boolean caseInsensitive) {
@@ -71,10 +90,13 @@ public class Filter<T> implements Predicate<T> {
             this.visibleFields.add(visibleField.toLowerCase());
         }
 
+        this.includePatterns = includes.compile(this.caseInsensitive);
+        this.excludePatterns = excludes.compile(this.caseInsensitive);
+
         if (!includes.hasPatterns() && !excludes.hasPatterns()) {
             this.predicate = this::accept;
         } else {
-            this.predicate = this::filter;
+            this.predicate = this::matches;
         }
     }
 
@@ -93,101 +115,146 @@ public class Filter<T> implements Predicate<T> {
         return predicate.test(record);
     }
 
+    /**
+     * Applies this filter to the records, in parallel if the stream is parallel
+     */
+    public Stream<T> filter(final Stream<T> records) {
+        return records.filter(this);
+    }
+
     private boolean accept(final T record) {
         return true;
     }
 
-    private boolean filter(final T record) {
+    private boolean matches(final T record) {
+        if (record == null) return !includes.hasPatterns();
 
-        if (includes.hasPatterns()) {
-            final boolean included = fieldValues(record).stream()
-                    .anyMatch(value -> includes.matchesAny(value, caseInsensitive));
-            if (!included) return false;
-        }
+        final List<String> values = plan(record).values(record);
 
-        if (excludes.hasPatterns()) {
-            final boolean excluded = fieldValues(record).stream()
-                    .anyMatch(value -> excludes.matchesAny(value, caseInsensitive));
-            if (excluded) return false;
+        if (includes.hasPatterns() && !includePatterns.matchesAny(values)) {
+            return false;
         }
 
-        return true;
+        return !excludes.hasPatterns() || !excludePatterns.matchesAny(values);
     }
 
-    private List<String> fieldValues(final T record) {
+    private Plan plan(final Object record) {
+        return plans.computeIfAbsent(record.getClass(), type -> createPlan(record));
+    }
 
+    private Plan createPlan(final Object sample) {
         if (visibleFields.isEmpty()) {
-            return allFields(record);
+            return new AllFields(sample);
         } else {
-            return selectedFields(record, visibleFields);
+            return new SelectedFields(sample, visibleFields);
         }
     }
 
-    private static <T> List<String> allFields(final T record) {
-        return new ObjectMap(record).entrySet().stream()
-                .map(entry -> {
-                    try {
-                        final Object value = entry.getValue();
-                        if (value == null) return null;
-                        return value.toString();
-                    } catch (final Exception e) {
-                        return null;
-                    }
-                })
-                .filter(Objects::nonNull)
-                .filter(s -> !s.isEmpty())
-                .collect(Collectors.toList());
+    /**
+     * Reads the string values of one class of record that the patterns
+     * are tested against
+     */
+    private interface Plan {
+        List<String> values(Object record);
     }
 
-    private <T> List<String> selectedFields(final T object, final List<String> visibleFields) {
-        final List<String> values = new ArrayList<>();
-        final Map<String, Object> map = lowercaseKeys(new ObjectMap(object));
+    /**
+     * Every property ObjectMap exposes, empty and null values omitted
+     */
+    private static class AllFields implements Plan {
+        private final Accessor[] accessors;
 
-        final Map<String, List<String>> children = new HashMap<>();
+        AllFields(final Object sample) {
+            this.accessors = Accessor.all(sample);
+        }
 
-        for (final String string : visibleFields) {
-            if (!string.contains(".")) {
+        @Override
+        public List<String> values(final Object record) {
+            final List<String> values = new ArrayList<>(accessors.length);
+            for (final Accessor accessor : accessors) {
+                final String string = Accessor.toString(accessor.get(record));
+                if (string != null && !string.isEmpty()) values.add(string);
+            }
+            return values;
+        }
+    }
 
-                try {
-                    final Object value = map.get(string);
-                    if (value != null) {
-                        values.add(value.toString());
-                    }
-                } catch (final Exception ignored) {
+    /**
+     * Only the listed fields, matched case-insensitively.  Dotted names
+     * such as {@code address.street} descend into child objects, each
+     * child class planned on first sight.
+     */
+    private static class SelectedFields implements Plan {
+        private final Accessor[] accessors;
+        private final Accessor[] children;
+        private final List<List<String>> childFields;
+        private final List<Map<Class<?>, Plan>> childPlans;
+
+        SelectedFields(final Object sample, final List<String> visibleFields) {
+            final Map<String, Accessor> lowercase = Accessor.byLowercaseName(sample);
+
+            final List<Accessor> accessors = new ArrayList<>();
+            final Map<String, List<String>> children = new LinkedHashMap<>();
+
+            for (final String string : visibleFields) {
+                if (!string.contains(".")) {
+                    final Accessor accessor = lowercase.get(string);
+                    if (accessor != null) accessors.add(accessor);
+                } else {
+                    final int index = string.indexOf('.');
+                    final String child = string.substring(0, index);
+                    final String field = string.substring(index + 1);
+
+                    children.computeIfAbsent(child, s -> new ArrayList<>()).add(field);
                 }
+            }
 
-            } else {
-
-                final int index = string.indexOf('.');
-                final String child = string.substring(0, index);
-                final String field = string.substring(index + 1);
+            this.accessors = accessors.toArray(new Accessor[0]);
+            this.children = new Accessor[children.size()];
+            this.childFields = new ArrayList<>();
+            this.childPlans = new ArrayList<>();
 
-                children.computeIfAbsent(child, s -> new ArrayList<>()).add(field);
+            int i = 0;
+            for (final Map.Entry<String, List<String>> entry : children.entrySet()) {
+                this.children[i++] = lowercase.get(entry.getKey());
+                this.childFields.add(entry.getValue());
+                this.childPlans.add(new ConcurrentHashMap<>());
             }
         }
 
-        for (final Map.Entry<String, List<String>> entry : children.entrySet()) {
-            final String key = entry.getKey();
-            final List<String> value = entry.getValue();
-            final Object child = map.get(key);
+        @Override
+        public List<String> values(final Object record) {
+            final List<String> values = new ArrayList<>();
+            for (final Accessor accessor : accessors) {
+                final String string = Accessor.toString(accessor.get(record));
+                if (string != null) values.add(string);
+            }
+
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == null) continue;
+
+                final Object child = children[i].get(record);
+                if (child == null) continue;
 
-            if (child == null) {
-                continue;
+                final List<String> fields = childFields.get(i);
+                final Plan plan = childPlans.get(i).computeIfAbsent(child.getClass(), type -> new SelectedFields(child, fields));
+                values.addAll(plan.values(child));
             }
 
-            final List<String> strings = selectedFields(child, value);
-            values.addAll(strings);
+            return values;
         }
-
-        return values;
     }
 
     @Options
     public static class Includes {
         private final List<Pattern> patterns;
+        private final Patterns caseSensitive;
+        private final Patterns caseInsensitive;
 
         public Includes(@Option("include") final List<Pattern> patterns) {
             this.patterns = patterns;
+            this.caseSensitive = Patterns.compile(patterns, false);
+            this.caseInsensitive = Patterns.compile(patterns, true);
         }
 
         public boolean hasPatterns() {
@@ -195,17 +262,24 @@ public class Filter<T> implements Predicate<T> {
         }
 
         public boolean matchesAny(final String value, final boolean caseInsensitive) {
-            if (patterns == null) return false;
-            return patterns.stream().anyMatch(p -> matches(p, value, caseInsensitive));
+            return compile(caseInsensitive).matches(value);
+        }
+
+        Patterns compile(final boolean caseInsensitive) {
+            return caseInsensitive ? this.caseInsensitive : caseSensitive;
         }
     }
 
     @Options
     public static class Excludes {
         private final List<Pattern> patterns;
+        private final Patterns caseSensitive;
+        private final Patterns caseInsensitive;
 
         public Excludes(@Option("exclude") final List<Pattern> patterns) {
             this.patterns = patterns;
+            this.caseSensitive = Patterns.compile(patterns, false);
+            this.caseInsensitive = Patterns.compile(patterns, true);
         }
 
         public boolean hasPatterns() {
@@ -213,25 +287,185 @@ public class Filter<T> implements Predicate<T> {
         }
 
         public boolean matchesAny(final String value, final boolean caseInsensitive) {
-            if (patterns == null) return false;
-            return patterns.stream().anyMatch(p -> matches(p, value, caseInsensitive));
+            return compile(caseInsensitive).matches(value);
+        }
+
+        Patterns compile(final boolean caseInsensitive) {
+            return caseInsensitive ? this.caseInsensitive : caseSensitive;
         }
     }
 
-    private static boolean matches(final Pattern pattern, final String value, final boolean caseInsensitive) {
-        if (caseInsensitive && (pattern.flags() & Pattern.CASE_INSENSITIVE) == 0) {
-            return Pattern.compile(pattern.pattern(), Pattern.CASE_INSENSITIVE).matcher(value).find();
+    /**
+     * A list of patterns compiled into a single matcher.  Case handling is
+     * applied once here, and where the patterns can safely share one regex
+     * they are joined into a single alternation so each value is scanned
+     * once rather than once per pattern.
+     */
+    static final class Patterns {
+        private static final Pattern UNSAFE_TO_JOIN = Pattern.compile("\\\\[0-9kQ]|#");
+
+        private final Pattern[] patterns;
+
+        private Patterns(final Pattern[] patterns) {
+            this.patterns = patterns;
+        }
+
+        static Patterns compile(final List<Pattern> patterns, final boolean caseInsensitive) {
+            if (patterns == null || patterns.isEmpty()) return new Patterns(new Pattern[0]);
+
+            final Pattern[] compiled = new Pattern[patterns.size()];
+            for (int i = 0; i < compiled.length; i++) {
+                final Pattern pattern = patterns.get(i);
+                if (caseInsensitive && (pattern.flags() & Pattern.CASE_INSENSITIVE) == 0) {
+                    compiled[i] = Pattern.compile(pattern.pattern(), Pattern.CASE_INSENSITIVE);
+                } else {
+                    compiled[i] = pattern;
+                }
+            }
+
+            final Pattern joined = join(compiled);
+            return new Patterns(joined != null ? new Pattern[]{joined} : compiled);
+        }
+
+        /**
+         * Joins the patterns as {@code (?:a)|(?:b)}.  Inline flags stay scoped
+         * to their own group.  Patterns with differing flags, back references,
+         * quoting or comments are left separate.
+         */
+        private static Pattern join(final Pattern[] patterns) {
+            if (patterns.length < 2) return null;
+
+            final int flags = patterns[0].flags();
+            if (flags != 0 && flags != Pattern.CASE_INSENSITIVE) return null;
+
+            final StringBuilder regex = new StringBuilder();
+            for (final Pattern pattern : patterns) {
+                if (pattern.flags() != flags) return null;
+                if (UNSAFE_TO_JOIN.matcher(pattern.pattern()).find()) return null;
+
+                if (regex.length() > 0) regex.append('|');
+                regex.append("(?:").append(pattern.pattern()).append(')');
+            }
+
+            try {
+                return Pattern.compile(regex.toString(), flags);
+            } catch (final PatternSyntaxException e) {
+                return null;
+            }
+        }
+
+        boolean matches(final String value) {
+            for (final Pattern pattern : patterns) {
+                if (pattern.matcher(value).find()) return true;
+            }
+            return false;
+        }
+
+        boolean matchesAny(final List<String> values) {
+            for (final String value : values) {
+                if (matches(value)) return true;
+            }
+            return false;
         }
-        return pattern.matcher(value).find();
     }
 
-    private static <V> Map<String, V> lowercaseKeys(final Map<String, V> map) {
-        final LinkedHashMap<String, V> result = new LinkedHashMap<>();
-        for (final Map.Entry<String, V> entry : map.entrySet()) {
-            result.put(entry.getKey().toLowerCase(), entry.getValue());
+    /**
+     * Reads one property of a record.  The property names are those
+     * ObjectMap exposes for the class; each is bound to its getter or
+     * public field once, so reading a value is a single reflective call.
+     * A property that cannot be bound directly is read through ObjectMap.
+     */
+    private abstract static class Accessor {
+
+        /**
+         * The value, or null if it is null or could not be read
+         */
+        abstract Object get(Object record);
+
+        static Accessor[] all(final Object sample) {
+            return names(sample).stream()
+                    .map(name -> of(sample.getClass(), name))
+                    .toArray(Accessor[]::new);
+        }
+
+        static Map<String, Accessor> byLowercaseName(final Object sample) {
+            final Map<String, Accessor> accessors = new HashMap<>();
+            for (final String name : names(sample)) {
+                accessors.put(name.toLowerCase(), of(sample.getClass(), name));
+            }
+            return accessors;
+        }
+
+        /**
+         * The key set of ObjectMap depends only on the class, so
+         * looking at it for the first record of a class is enough
+         */
+        private static Set<String> names(final Object sample) {
+            return new ObjectMap(sample).keySet();
         }
 
-        return result;
+        static String toString(final Object value) {
+            if (value == null) return null;
+            try {
+                return value.toString();
+            } catch (final Exception e) {
+                return null;
+            }
+        }
+
+        private static Accessor of(final Class<?> type, final String name) {
+            final String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+
+            for (final String prefix : new String[]{"get", "is"}) {
+                try {
+                    final Method method = type.getMethod(prefix + capitalized);
+                    if (!Modifier.isStatic(method.getModifiers())) {
+                        method.setAccessible(true);
+                        return new Accessor() {
+                            @Override
+                            Object get(final Object record) {
+                                try {
+                                    return method.invoke(record);
+                                } catch (final Exception e) {
+                                    return null;
+                                }
+                            }
+                        };
+                    }
+                } catch (final NoSuchMethodException | RuntimeException e) {
+                    // try the next form
+                }
+            }
+
+            try {
+                final Field field = type.getField(name);
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    return new Accessor() {
+                        @Override
+                        Object get(final Object record) {
+                            try {
+                                return field.get(record);
+                            } catch (final Exception e) {
+                                return null;
+                            }
+                        }
+                    };
+                }
+            } catch (final NoSuchFieldException | RuntimeException e) {
+                // fall back to ObjectMap
+            }
+
+            return new Accessor() {
+                @Override
+                Object get(final Object record) {
+                    try {
+                        return new ObjectMap(record).get(name);
+                    } catch (final Exception e) {
+                        return null;
+                    }
+                }
+            };
+        }
     }
 
     public static class Builder<T> {
@@ -471,6 +471,64 @@ public class FilterTest {
     }
 
 
+    /**
+     * Patterns are joined into one regex; an inline flag in one
+     * pattern must not leak into the others
+     */
+    @Test
+    public void inlineFlagStaysWithItsPattern() throws Exception {
+
+        final Filter<Object> filter = Filter.builder()
+                .include("(?i)flanders")
+                .include("szyslak")
+                .fields(Arrays.asList("lastName"))
+                .build();
+
+        assertEquals("" +
+                "Person{firstName='Ned', lastName='Flanders', age=60, mom=null, dad=null, address=Address{street='744 Evergreen Terrace', city='Springfield', state='FX', zipCode='06889'}}", apply(filter));
+    }
+
+    @Test
+    public void backReferencesAcrossPatterns() throws Exception {
+
+        final Filter<Object> filter = Filter.builder()
+                .include("(r)\\1")
+                .include("(o)\\1")
+                .fields(Arrays.asList("firstName"))
+                .build();
+
+        assertEquals("", apply(filter));
+
+        final Filter<Object> doubled = Filter.builder()
+                .include("(x)\\1")
+                .include("(m)\\1")
+                .fields(Arrays.asList("lastName"))
+                .build();
+
+        assertEquals("" +
+                "Person{firstName='Charles Montgomery', lastName='Burns', age=104, mom=null, dad=null, address=Address{street='1000 Mammon Lane', city='Springfield', state='FX', zipCode='06891'}}",
+                apply(doubled.fields("address.street")));
+    }
+
+    @Test
+    public void parallelStream() throws Exception {
+
+        final Filter<Object> filter = Filter.builder()
+                .include("Simpson")
+                .exclude("(?i)EVERGREEN")
+                .caseInsensitive(true)
+                .build();
+
+        final List<Object> records = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            records.addAll(people);
+        }
+
+        final long matched = filter.filter(records.parallelStream()).count();
+
+        assertEquals(500, matched);
+    }
+
     private String apply(final Filter<Object> filter) {
         final String results = people.stream()
                 .filter(filter)
@@ -17,27 +17,30 @@
 package org.tomitribe.crest.xbean;
 
 import org.apache.xbean.finder.UrlSet;
-import org.apache.xbean.finder.archive.Archive;
-import org.apache.xbean.finder.archive.ClassesArchive;
-import org.apache.xbean.finder.archive.ClasspathArchive;
 
 import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
 
 public class ClasspathScanner extends XbeanScanningLoader {
 
     public ClasspathScanner() {
-        super(System.getProperty("java.home") == null ? new ClassesArchive() : ClasspathScanner.defaultArchive());
+        this(Thread.currentThread().getContextClassLoader());
     }
 
-    private static Archive defaultArchive() {
-        try {
-            final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    private ClasspathScanner(final ClassLoader classLoader) {
+        super(classLoader, System.getProperty("java.home") == null ? Collections.emptyList() : urls(classLoader),
+                ScanCache.defaultCache());
+    }
 
+    private static List<URL> urls(final ClassLoader classLoader) {
+        try {
             UrlSet urls = new UrlSet(classLoader);
             urls = urls.excludeJvm();
             urls = urls.exclude(classLoader.getParent());
 
-            return new ClasspathArchive(classLoader, urls.getUrls());
+            return urls.getUrls();
 
         } catch (final IOException e) {
             throw new IllegalStateException(e);
@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.xbean;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The command classes found in each jar or classes directory, kept on
+ * disk so later starts can skip scanning the bytecode.
+ *
+ * An entry is keyed by the size, modification time and a hash of the
+ * archive.  A jar whose size and modification time are unchanged is
+ * trusted without hashing.  Otherwise, and for directories always, the
+ * hash decides: for a jar it covers the name, CRC and size of every
+ * entry, read from the central directory; for a directory, the path,
+ * size and modification time of every file.  Neither reads the classes.
+ *
+ * The cache lives in -Dcrest.scan.cache, or $XDG_CACHE_HOME/crest/scan,
+ * or ~/.cache/crest/scan.  Set -Dcrest.scan.cache=false to turn it off.
+ * Errors reading or writing the cache only ever cause a rescan.
+ */
+public class ScanCache {
+
+    public static final String PROPERTY = "crest.scan.cache";
+
+    private final File directory;
+
+    public ScanCache(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return null when the cache is turned off
+     */
+    public static ScanCache defaultCache() {
+        final String property = System.getProperty(PROPERTY);
+        if ("false".equalsIgnoreCase(property)) return null;
+        if (property != null && !property.isEmpty()) return new ScanCache(new File(property));
+
+        final String xdg = System.getenv("XDG_CACHE_HOME");
+        final File base = xdg != null && !xdg.isEmpty()
+                ? new File(xdg)
+                : new File(System.getProperty("user.home"), ".cache");
+
+        return new ScanCache(new File(base, "crest/scan"));
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the class names stored for this archive, or null if there
+     * are none or the archive has changed since
+     */
+    public List<String> get(final File archive) {
+        final File file = entry(archive);
+        if (!file.isFile()) return null;
+
+        final Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        } catch (final IOException e) {
+            return null;
+        }
+
+        if (!archive.getAbsolutePath().equals(properties.getProperty("path"))) return null;
+
+        final Key stored;
+        try {
+            stored = new Key(Long.parseLong(properties.getProperty("size")),
+                    Long.parseLong(properties.getProperty("mtime")),
+                    properties.getProperty("hash"));
+        } catch (final RuntimeException e) {
+            return null;
+        }
+
+        if (archive.isFile() && archive.length() == stored.size && archive.lastModified() == stored.mtime) {
+            return classes(properties);
+        }
+
+        final Key current = Key.of(archive);
+        if (current == null || !current.hash.equals(stored.hash)) return null;
+
+        // Same content, touched or copied: refresh the key so the next start skips the hash
+        put(archive, current, classes(properties));
+        return classes(properties);
+    }
+
+    public void put(final File archive, final Collection<String> classes) {
+        final Key key = Key.of(archive);
+        if (key != null) put(archive, key, classes);
+    }
+
+    private void put(final File archive, final Key key, final Collection<String> classes) {
+        final Properties properties = new Properties();
+        properties.setProperty("path", archive.getAbsolutePath());
+        properties.setProperty("size", Long.toString(key.size));
+        properties.setProperty("mtime", Long.toString(key.mtime));
+        properties.setProperty("hash", key.hash);
+        properties.setProperty("classes", String.join(",", new TreeSet<>(classes)));
+
+        try {
+            Files.createDirectories(directory.toPath());
+            final Path tmp = Files.createTempFile(directory.toPath(), "scan", ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    properties.store(out, "crest command classes");
+                }
+                Files.move(tmp, entry(archive).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (final IOException | UnsupportedOperationException e) {
+            // not cached, scanned again next time
+        }
+    }
+
+    private static List<String> classes(final Properties properties) {
+        final String classes = properties.getProperty("classes", "");
+        if (classes.isEmpty()) return Collections.emptyList();
+        return Arrays.asList(classes.split(","));
+    }
+
+    private File entry(final File archive) {
+        return new File(directory, sha256(archive.getAbsolutePath()).substring(0, 32) + ".properties");
+    }
+
+    private static String sha256(final String string) {
+        final MessageDigest digest = digest();
+        return hex(digest.digest(string.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(final byte[] bytes) {
+        final StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    static class Key {
+        private final long size;
+        private final long mtime;
+        private final String hash;
+
+        Key(final long size, final long mtime, final String hash) {
+            this.size = size;
+            this.mtime = mtime;
+            this.hash = hash;
+        }
+
+        /**
+         * @return null if the archive cannot be read
+         */
+        static Key of(final File archive) {
+            try {
+                if (archive.isDirectory()) return directory(archive);
+                if (archive.isFile()) return jar(archive);
+            } catch (final IOException | UncheckedIOException e) {
+                // fall through
+            }
+            return null;
+        }
+
+        private static Key jar(final File file) throws IOException {
+            final MessageDigest digest = digest();
+            final List<ZipEntry> entries = new ArrayList<>();
+            try (ZipFile zip = new ZipFile(file)) {
+                final Enumeration<? extends ZipEntry> enumeration = zip.entries();
+                while (enumeration.hasMoreElements()) {
+                    entries.add(enumeration.nextElement());
+                }
+            }
+
+            for (final ZipEntry entry : entries) {
+                digest.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+                update(digest, entry.getCrc());
+                update(digest, entry.getSize());
+            }
+
+            return new Key(file.length(), file.lastModified(), hex(digest.digest()));
+        }
+
+        private static Key directory(final File dir) throws IOException {
+            final MessageDigest digest = digest();
+            final Path root = dir.toPath();
+            long size = 0;
+            long mtime = 0;
+
+            final List<Path> files = new ArrayList<>();
+            try (Stream<Path> walk = Files.walk(root)) {
+                walk.filter(Files::isRegularFile).forEach(files::add);
+            }
+            Collections.sort(files);
+
+            for (final Path path : files) {
+                final long length = Files.size(path);
+                final long modified = Files.getLastModifiedTime(path).toMillis();
+                size += length;
+                mtime = Math.max(mtime, modified);
+
+                digest.update(root.relativize(path).toString().getBytes(StandardCharsets.UTF_8));
+                update(digest, length);
+                update(digest, modified);
+            }
+
+            return new Key(size, mtime, hex(digest.digest()));
+        }
+
+        private static void update(final MessageDigest digest, final long value) {
+            for (int i = 0; i < 8; i++) {
+                digest.update((byte) (value >>> (i * 8)));
+            }
+        }
+    }
+}
@@ -16,25 +16,24 @@
  */
 package org.tomitribe.crest.xbean;
 
-import org.apache.xbean.finder.archive.Archive;
-import org.apache.xbean.finder.archive.ClasspathArchive;
 import org.tomitribe.util.JarLocation;
 
 import java.io.File;
 import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Collections;
 
 public class UberJarScanner extends XbeanScanningLoader {
 
     public UberJarScanner() {
-        super(UberJarScanner.defaultArchive());
+        super(UberJarScanner.class.getClassLoader(), Collections.singletonList(UberJarScanner.defaultUrl()),
+                ScanCache.defaultCache());
     }
 
-    private static Archive defaultArchive() {
+    private static URL defaultUrl() {
         try {
-            final Class<?> reference = UberJarScanner.class;
-
-            final File file = JarLocation.jarLocation(reference);
-            return ClasspathArchive.archive(reference.getClassLoader(), file.toURI().toURL());
+            final File file = JarLocation.jarLocation(UberJarScanner.class);
+            return file.toURI().toURL();
         } catch (final MalformedURLException e) {
             throw new IllegalStateException(e);
         }
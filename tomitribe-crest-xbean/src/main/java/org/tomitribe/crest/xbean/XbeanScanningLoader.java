@@ -18,14 +18,27 @@ package org.tomitribe.crest.xbean;
 
 import org.apache.xbean.finder.AnnotationFinder;
 import org.apache.xbean.finder.archive.Archive;
+import org.apache.xbean.finder.archive.ClasspathArchive;
+import org.apache.xbean.finder.archive.FilteredArchive;
 import org.tomitribe.crest.BashCompletion;
 import org.tomitribe.crest.cmds.processors.Commands;
+import org.tomitribe.crest.metrics.MetricsCommand;
 import org.tomitribe.crest.api.Command;
 
+import java.io.File;
 import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public abstract class XbeanScanningLoader implements Commands.Loader {
     final Set<Class<?>> classes = new HashSet<>();
@@ -37,8 +50,85 @@ public abstract class XbeanScanningLoader implements Commands.Loader {
             classes.add(method.getDeclaringClass());
         }
         classes.remove(BashCompletion.class);
+        classes.remove(MetricsCommand.class);
     }
 
+    /**
+     * Takes the command classes of each jar or directory from the cache
+     * when it has not changed since it was last scanned.  The rest are
+     * scanned in parallel, each split into parts scanned at the same time,
+     * and the results cached.
+     *
+     * @param cache null to always scan
+     */
+    public XbeanScanningLoader(final ClassLoader loader, final Iterable<URL> urls, final ScanCache cache) {
+        final Set<String> names = ConcurrentHashMap.newKeySet();
+        final List<URL> changed = new ArrayList<>();
+
+        for (final URL url : urls) {
+            final File file = cache != null ? file(url) : null;
+            final List<String> cached = file != null ? cache.get(file) : null;
+            if (cached != null) {
+                names.addAll(cached);
+            } else {
+                changed.add(url);
+            }
+        }
+
+        changed.parallelStream().forEach(url -> {
+            final Set<String> found = scan(loader, url);
+            names.addAll(found);
+
+            final File file = cache != null ? file(url) : null;
+            if (file != null) cache.put(file, found);
+        });
+
+        for (final String name : names) {
+            try {
+                classes.add(loader.loadClass(name));
+            } catch (final ClassNotFoundException | LinkageError e) {
+                // no-op: we don't fail cause one command didn't load
+            }
+        }
+        classes.remove(BashCompletion.class);
+        classes.remove(MetricsCommand.class);
+    }
+
+    /**
+     * Splits the archive by class name so each part is read and parsed
+     * on its own thread
+     */
+    private static Set<String> scan(final ClassLoader loader, final URL url) {
+        final Archive archive = ClasspathArchive.archive(loader, url);
+        final int parts = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+        return IntStream.range(0, parts).parallel()
+                .mapToObj(part -> new FilteredArchive(archive, name -> Math.floorMod(name.hashCode(), parts) == part))
+                .map(AnnotationFinder::new)
+                .map(finder -> finder.findAnnotatedMethods(Command.class))
+                .flatMap(Collection::stream)
+                .map(method -> method.getDeclaringClass().getName())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * The jar or directory of a file: URL, or of a jar:file:...!/ URL
+     */
+    private static File file(final URL url) {
+        try {
+            if ("jar".equals(url.getProtocol())) {
+                final String spec = url.getFile();
+                final int bang = spec.indexOf("!/");
+                if (bang < 0 || bang + 2 != spec.length()) return null;
+                return file(new URL(spec.substring(0, bang)));
+            }
+
+            if (!"file".equals(url.getProtocol())) return null;
+            return new File(url.toURI());
+        } catch (final MalformedURLException | URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
 
     @Override
     public Iterator<Class<?>> iterator() {
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.xbean;
+
+import org.junit.Test;
+import org.tomitribe.crest.cmds.processors.Help;
+import org.tomitribe.crest.xbean.XbeanScanningLoaderTest.Foo;
+import org.tomitribe.util.Archive;
+import org.tomitribe.util.Files;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ScanCacheTest {
+
+    @Test
+    public void jar() throws Exception {
+        final File dir = Files.tmpdir();
+        final ScanCache cache = new ScanCache(new File(dir, "cache"));
+        final File jar = Archive.archive().add(Foo.class).toJar();
+
+        assertNull(cache.get(jar));
+
+        final Loader first = new Loader(jar, cache);
+        assertEquals(Collections.singleton(Foo.class), first.all());
+        assertEquals(Collections.singletonList(Foo.class.getName()), cache.get(jar));
+
+        // Same content, new timestamp: still cached
+        assertTrue(jar.setLastModified(jar.lastModified() - 60000));
+        assertEquals(Collections.singletonList(Foo.class.getName()), cache.get(jar));
+
+        // New content: scanned again
+        final File changed = Archive.archive().add(Foo.class).add(Help.class).toJar();
+        java.nio.file.Files.copy(changed.toPath(), jar.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        assertNull(cache.get(jar));
+
+        final Loader second = new Loader(jar, cache);
+        assertEquals(new HashSet<>(Arrays.asList(Foo.class, Help.class)), second.all());
+    }
+
+    @Test
+    public void cachedNamesAreLoadedWithoutScanning() throws Exception {
+        final File dir = Files.tmpdir();
+        final ScanCache cache = new ScanCache(new File(dir, "cache"));
+        final File jar = Archive.archive().add(Foo.class).toJar();
+
+        // Pretend an earlier scan found Help
+        cache.put(jar, Collections.singletonList(Help.class.getName()));
+
+        assertEquals(Collections.singleton(Help.class), new Loader(jar, cache).all());
+    }
+
+    @Test
+    public void directory() throws Exception {
+        final File classes = Archive.archive().add(Foo.class).toDir();
+        final ScanCache cache = new ScanCache(new File(Files.tmpdir(), "cache"));
+
+        assertEquals(Collections.singleton(Foo.class), new Loader(classes, cache).all());
+        assertEquals(Collections.singletonList(Foo.class.getName()), cache.get(classes));
+
+        final File added = new File(classes, "extra.txt");
+        java.nio.file.Files.write(added.toPath(), "extra".getBytes());
+        assertNull(cache.get(classes));
+    }
+
+    @Test
+    public void defaultCacheCanBeTurnedOff() {
+        System.setProperty(ScanCache.PROPERTY, "false");
+        try {
+            assertNull(ScanCache.defaultCache());
+        } finally {
+            System.clearProperty(ScanCache.PROPERTY);
+        }
+    }
+
+    private static class Loader extends XbeanScanningLoader {
+        Loader(final File archive, final ScanCache cache) throws Exception {
+            super(new URLClassLoader(new URL[]{archive.toURI().toURL()}, ScanCacheTest.class.getClassLoader()),
+                    Collections.singletonList(archive.toURI().toURL()), cache);
+        }
+
+        Set<Class<?>> all() {
+            return classes;
+        }
+    }
+}
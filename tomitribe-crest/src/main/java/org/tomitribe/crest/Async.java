@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest;
+
+import org.tomitribe.crest.cmds.CommandFailedException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Turns asynchronous command results into values Main can print.
+ *
+ * A CompletionStage, such as a CompletableFuture, is awaited.  If the
+ * waiting thread is interrupted the future is cancelled.
+ *
+ * A Publisher becomes a Stream that subscribes when it is first read
+ * and asks for items in batches as they are consumed, so a fast
+ * publisher is held back by the speed of the output.  Closing the
+ * Stream cancels the subscription.
+ *
+ * Publishers are matched by name, java.util.concurrent.Flow.Publisher
+ * or org.reactivestreams.Publisher, so neither needs to be present at
+ * compile time.
+ */
+public final class Async {
+
+    static final int DEMAND = 256;
+
+    private static final Set<String> PUBLISHERS = new HashSet<>(Arrays.asList(
+            "java.util.concurrent.Flow$Publisher",
+            "org.reactivestreams.Publisher"
+    ));
+
+    private Async() {
+        // no-op
+    }
+
+    /**
+     * Waits for a CompletionStage and turns a Publisher into a Stream.
+     * Any other result is returned as is.
+     */
+    public static Object await(final Object result) throws InterruptedException {
+        if (result instanceof CompletionStage) {
+            final CompletableFuture<?> future = ((CompletionStage<?>) result).toCompletableFuture();
+            try {
+                return await(future.get());
+            } catch (final InterruptedException e) {
+                future.cancel(true);
+                throw e;
+            } catch (final ExecutionException e) {
+                throw failed(e.getCause());
+            }
+        }
+
+        if (isPublisher(result)) {
+            return stream(result);
+        }
+
+        return result;
+    }
+
+    public static boolean isPublisher(final Object result) {
+        return result != null && publisherInterface(result.getClass()) != null;
+    }
+
+    private static Class<?> publisherInterface(final Class<?> clazz) {
+        for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+            for (final Class<?> anInterface : c.getInterfaces()) {
+                if (PUBLISHERS.contains(anInterface.getName())) return anInterface;
+                final Class<?> inherited = publisherInterface(anInterface);
+                if (inherited != null) return inherited;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The items of the publisher in the order they are published
+     */
+    public static Stream<Object> stream(final Object publisher) {
+        final Subscriber subscriber = new Subscriber(publisher, publisherInterface(publisher.getClass()), DEMAND);
+        final Spliterator<Object> spliterator = Spliterators.spliteratorUnknownSize(subscriber, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(subscriber::cancel);
+    }
+
+    /**
+     * Failures reach Main the same way a command throwing them would
+     */
+    private static RuntimeException failed(final Throwable throwable) {
+        Throwable cause = throwable;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return new CommandFailedException(cause, null);
+    }
+
+    /**
+     * Subscribes to the publisher through a proxy of its Subscriber
+     * interface and hands the signals over to the reading thread.
+     *
+     * No more than demand items are ever outstanding, so the queue has
+     * room for those and the final complete or error signal.
+     */
+    private static final class Subscriber implements Iterator<Object>, InvocationHandler {
+
+        private static final Object COMPLETE = new Object();
+
+        private final Object publisher;
+        private final Class<?> publisherInterface;
+        private final int demand;
+        private final BlockingQueue<Object> signals;
+
+        private volatile Object subscription;
+        private volatile RuntimeException overflow;
+        private Method request;
+        private Method cancel;
+
+        private boolean subscribed;
+        private boolean done;
+        private Object next;
+        private int consumed;
+
+        private Subscriber(final Object publisher, final Class<?> publisherInterface, final int demand) {
+            this.publisher = publisher;
+            this.publisherInterface = publisherInterface;
+            this.demand = demand;
+            this.signals = new ArrayBlockingQueue<>(demand + 1);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) return true;
+            if (done) return false;
+
+            if (!subscribed) {
+                subscribed = true;
+                subscribe();
+            }
+
+            if (overflow != null) {
+                done = true;
+                throw failed(overflow);
+            }
+
+            final Object signal;
+            try {
+                signal = signals.take();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw failed(e);
+            }
+
+            if (signal == COMPLETE) {
+                done = true;
+                return false;
+            }
+
+            if (signal instanceof Failure) {
+                done = true;
+                throw failed(((Failure) signal).throwable);
+            }
+
+            next = signal;
+
+            // Ask for more once half the last batch is used up
+            if (++consumed == demand / 2) {
+                request(consumed);
+                consumed = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public Object next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            final Object item = next;
+            next = null;
+            return item;
+        }
+
+        private void subscribe() {
+            final String name = publisherInterface.getName().replace("Publisher", "Subscriber");
+            try {
+                final ClassLoader loader = publisherInterface.getClassLoader();
+                final Class<?> subscriberInterface = Class.forName(name, false, loader);
+                final Object proxy = Proxy.newProxyInstance(
+                        loader != null ? loader : Async.class.getClassLoader(),
+                        new Class<?>[]{subscriberInterface}, this);
+
+                publisherInterface.getMethod("subscribe", subscriberInterface).invoke(publisher, proxy);
+            } catch (final InvocationTargetException e) {
+                throw failed(e.getCause());
+            } catch (final ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot subscribe to " + publisher.getClass().getName(), e);
+            }
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "onSubscribe":
+                    onSubscribe(args[0], method.getParameterTypes()[0]);
+                    return null;
+                case "onNext":
+                    if (!signal(args[0])) {
+                        // Nothing more will be read, the items would only pile up
+                        call(cancel);
+                    }
+                    return null;
+                case "onError":
+                    signal(new Failure((Throwable) args[0]));
+                    return null;
+                case "onComplete":
+                    signal(COMPLETE);
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "Subscriber to " + publisher;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }
+
+        /**
+         * A full queue means the publisher ignored the demand.  The reader
+         * fails the Stream the next time it reads, and later signals are
+         * dropped.  Returns false only for the signal that overflowed.
+         */
+        private boolean signal(final Object signal) {
+            if (overflow != null || signals.offer(signal)) return true;
+
+            overflow = new IllegalStateException(String.format(
+                    "Publisher %s sent more items than the %s requested",
+                    publisher.getClass().getName(), demand));
+            return false;
+        }
+
+        private void onSubscribe(final Object subscription, final Class<?> subscriptionInterface) throws NoSuchMethodException {
+            this.request = subscriptionInterface.getMethod("request", long.class);
+            this.cancel = subscriptionInterface.getMethod("cancel");
+            this.subscription = subscription;
+            request(demand);
+        }
+
+        private void request(final long n) {
+            call(request, n);
+        }
+
+        void cancel() {
+            if (!done && subscription != null) {
+                done = true;
+                call(cancel);
+            }
+        }
+
+        private void call(final Method method, final Object... args) {
+            try {
+                method.invoke(subscription, args);
+            } catch (final InvocationTargetException e) {
+                throw failed(e.getCause());
+            } catch (final IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static final class Failure {
+        private final Throwable throwable;
+
+        private Failure(final Throwable throwable) {
+            this.throwable = throwable;
+        }
+    }
+}
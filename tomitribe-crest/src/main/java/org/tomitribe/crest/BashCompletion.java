@@ -31,13 +31,18 @@ import org.tomitribe.util.IO;
 import org.tomitribe.util.Join;
 import org.tomitribe.util.PrintString;
 
+import java.beans.PropertyEditor;
+import java.beans.PropertyEditorManager;
+import java.beans.PropertyEditorSupport;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.net.URI;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -51,6 +56,12 @@ public class BashCompletion {
     private final Main main;
     private String mainCommand;
 
+    /**
+     * Whether any option proposes values the script must ask the
+     * program for, in which case the cached lookup function is written
+     */
+    private boolean dynamic;
+
     public BashCompletion(final Main main) {
         this.main = main;
     }
@@ -70,6 +81,10 @@ public class BashCompletion {
 
         root("_" + mainCommand, this.main.commands.values());
 
+        if (dynamic) {
+            proposeDynamicValues();
+        }
+
         out.println("\ncomplete -F _" + mainCommand + " " + mainCommand);
 
         if (toFile) {
@@ -113,6 +128,76 @@ public class BashCompletion {
         return (String) cmds.get(COMPLETER).exec(null, args);
     }
 
+    /**
+     * Prints the values proposed for an option, one per line.  The
+     * generated script calls this through the hidden _completion_values
+     * command for options whose values come from the getTags() of their
+     * PropertyEditor, and caches the output.
+     *
+     * @param args the command path followed by the option name; the
+     *             option name alone refers to a global option
+     */
+    public static String values(final Main main, final String... args) {
+        if (args.length == 0) {
+            return "";
+        }
+
+        final List<String> path = Arrays.asList(args).subList(0, args.length - 1);
+        final Spec spec = path.isEmpty() ? main.getGlobalSpec().getSpec() : spec(main.commands.get(path.get(0)), path);
+        if (spec == null) {
+            return "";
+        }
+
+        final OptionParam param = spec.getOptions().get(args[args.length - 1]);
+        if (param == null) {
+            return "";
+        }
+
+        final PropertyEditor editor = dynamicEditor(param);
+        final String[] tags = editor == null ? null : editor.getTags();
+        return tags == null ? "" : String.join("\n", tags);
+    }
+
+    private static Spec spec(final Cmd cmd, final List<String> path) {
+        Cmd current = cmd;
+        for (final String name : path.subList(1, path.size())) {
+            if (!(current instanceof CmdGroup)) {
+                return null;
+            }
+            current = ((CmdGroup) current).getCommand(name);
+        }
+
+        if (current instanceof OverloadedCmdMethod) {
+            current = ((OverloadedCmdMethod) current).getMethods().iterator().next();
+        }
+
+        return current instanceof CmdMethod ? ((CmdMethod) current).getSpec() : null;
+    }
+
+    /**
+     * The editor of an option type whose values are only known at runtime:
+     * one registered with @Editor that overrides getTags().  Booleans and
+     * enums are proposed statically.
+     */
+    private static PropertyEditor dynamicEditor(final OptionParam param) {
+        final Class<?> type = param.isListable() ? param.getListableType() : param.getType();
+        if (type.isPrimitive() || Boolean.class.equals(type) || Enum.class.isAssignableFrom(type)) {
+            return null;
+        }
+
+        final PropertyEditor editor = PropertyEditorManager.findEditor(type);
+        if (editor == null || editor.getClass().getClassLoader() == null) {
+            return null;
+        }
+
+        try {
+            final Class<?> declaring = editor.getClass().getMethod("getTags").getDeclaringClass();
+            return declaring.equals(PropertyEditorSupport.class) ? null : editor;
+        } catch (final NoSuchMethodException e) {
+            return null;
+        }
+    }
+
     private void cmd(final int depth, final String group, Cmd cmd) {
         if (cmd instanceof CmdGroup) {
 
@@ -151,7 +236,7 @@ public class BashCompletion {
         final Spec spec = cmdMethod.getSpec();
 
         if (hasFlags(spec)) {
-            proposeFlags(spec, true);
+            proposeFlags(spec, true, Arrays.asList(cmdMethod.getFullPath().split(" ")));
         } else {
             out.printf("  _%s__propose_files%n", mainCommand);
         }
@@ -165,7 +250,7 @@ public class BashCompletion {
         final Spec spec = globalSpec.getSpec();
 
         if (hasFlags(spec)) {
-            proposeFlags(spec, false);
+            proposeFlags(spec, false, Collections.emptyList());
         } else {
             out.println("  COMPREPLY=()");
         }
@@ -173,7 +258,7 @@ public class BashCompletion {
         out.println("}");
     }
 
-    private void proposeFlags(final Spec spec, final boolean proposeFiles) {
+    private void proposeFlags(final Spec spec, final boolean proposeFiles, final List<String> path) {
 
         out.println("" +
                 "  local cur=${COMP_WORDS[COMP_CWORD]}\n" +
@@ -183,6 +268,17 @@ public class BashCompletion {
         final Collection<OptionParam> options = spec.getOptions().values();
         for (final OptionParam param : options) {
 
+            if (dynamicEditor(param) != null) {
+                dynamic = true;
+                final List<String> key = new ArrayList<>(path);
+                key.add(param.getName());
+                final List<String> strings = key.stream()
+                        .map(this::quote)
+                        .collect(Collectors.toList());
+                out.printf("  %s*) _%s__propose_dynamic_values %s ;;\n", flag(param.getName()), mainCommand, Join.join(" ", strings));
+                continue;
+            }
+
             final List<String> values = guessValues(param);
 
             if (values.size() > 0) {
@@ -371,6 +467,32 @@ public class BashCompletion {
         );
     }
 
+    /**
+     * Asks the program for the values of an option only when the cached
+     * answer is missing or older than $CREST_COMPLETION_TTL minutes (10 by
+     * default).  Answers are cached per command and option under
+     * $CREST_COMPLETION_CACHE, or $XDG_CACHE_HOME/crest/completion.
+     */
+    private void proposeDynamicValues() {
+        out.println("\n" +
+                "function _" + mainCommand + "__propose_dynamic_values() {\n" +
+                "  local cur=${COMP_WORDS[COMP_CWORD]}\n" +
+                "  local dir=\"${CREST_COMPLETION_CACHE:-${XDG_CACHE_HOME:-$HOME/.cache}/crest/completion}/" + mainCommand + "\"\n" +
+                "  local file=\"$dir/$(printf '%s' \"$*\" | perl -pe 's,[^a-zA-Z0-9]+,_,g')\"\n" +
+                "\n" +
+                "  if [ ! -f \"$file\" ] || [ -n \"$(find \"$file\" -mmin +\"${CREST_COMPLETION_TTL:-10}\" 2>/dev/null)\" ]; then\n" +
+                "    mkdir -p \"$dir\" &&\n" +
+                "      \"${COMP_WORDS[0]}\" _completion_values \"$@\" > \"$file.$$\" 2>/dev/null &&\n" +
+                "      mv -f \"$file.$$\" \"$file\"\n" +
+                "    rm -f \"$file.$$\"\n" +
+                "  fi\n" +
+                "\n" +
+                "  cur=\"$(echo \"$cur\" | perl -pe 's/[^=]+=//')\"\n" +
+                "  COMPREPLY=($(compgen -W \"$(cat \"$file\" 2>/dev/null)\" -- \"$cur\"))\n" +
+                "}\n"
+        );
+    }
+
     private void utilities() {
         proposeFiles();
         proposeFlags();
@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest;
+
+import org.tomitribe.crest.cmds.CommandFailedException;
+import org.tomitribe.crest.cmds.GlobalSpec;
+import org.tomitribe.crest.environments.Environment;
+import org.tomitribe.crest.environments.SystemEnvironment;
+import org.tomitribe.crest.environments.Threads;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs command lines one after the other for Main.execBatch.
+ *
+ * Each line gets an Environment of its own so global options of one
+ * line never leak into another, but they all share the output of the
+ * batch Environment.  Main flushes the output after every command; in
+ * a batch that flush is skipped and the output is only flushed once
+ * the batch is done, so a script of many small commands is written in
+ * large blocks rather than a line at a time.
+ *
+ * With a parallelism above one, up to that many lines run at once, each
+ * into a buffer of its own.  Buffers are written out in line order as
+ * soon as every line before them is done.
+ */
+class Batch {
+
+    private final Main main;
+    private final Environment env;
+    private final GlobalSpec globalSpec;
+
+    Batch(final Main main, final Environment env, final GlobalSpec globalSpec) {
+        this.main = main;
+        this.env = env;
+        this.globalSpec = globalSpec;
+    }
+
+    void run(final Iterable<String[]> lines, final int parallelism) throws Exception {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+
+        try {
+            if (parallelism == 1) {
+                sequential(lines);
+            } else {
+                parallel(lines, parallelism);
+            }
+        } finally {
+            env.getOutput().flush();
+            env.getError().flush();
+        }
+    }
+
+    private void sequential(final Iterable<String[]> lines) throws Exception {
+        final PrintStream out = print(new Unflushed(env.getOutput()));
+
+        for (final String[] line : lines) {
+            try {
+                main.run(new LineEnvironment(env, out), globalSpec, line);
+            } catch (final CommandFailedException e) {
+                throw unwrap(e);
+            }
+        }
+    }
+
+    private void parallel(final Iterable<String[]> lines, final int parallelism) throws Exception {
+        final ExecutorService executor = Threads.newPerTaskExecutor("crest-batch");
+        final Deque<Line> running = new ArrayDeque<>(parallelism);
+
+        try {
+            for (final String[] args : lines) {
+                if (running.size() == parallelism) {
+                    write(running.removeFirst());
+                }
+
+                final Line line = new Line();
+                final LineEnvironment lineEnv = new LineEnvironment(env, line.out);
+                line.future = executor.submit(() -> {
+                    try {
+                        main.run(lineEnv, globalSpec, args);
+                    } finally {
+                        line.out.flush();
+                    }
+                    return null;
+                });
+                running.addLast(line);
+            }
+
+            while (!running.isEmpty()) {
+                write(running.removeFirst());
+            }
+        } finally {
+            for (final Line line : running) {
+                line.future.cancel(true);
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for the line, then writes its output and rethrows its failure
+     */
+    private void write(final Line line) throws Exception {
+        try {
+            line.future.get();
+        } catch (final InterruptedException e) {
+            line.future.cancel(true);
+            throw e;
+        } catch (final ExecutionException e) {
+            line.buffer.writeTo(env.getOutput());
+            throw unwrap(e.getCause());
+        }
+        line.buffer.writeTo(env.getOutput());
+    }
+
+    private static Exception unwrap(final Throwable throwable) {
+        final Throwable cause = throwable instanceof CommandFailedException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+        if (cause instanceof Error) throw (Error) cause;
+        if (cause instanceof Exception) return (Exception) cause;
+        return new IllegalStateException(cause);
+    }
+
+    /**
+     * Lines write with the charset of the batch output, as their bytes
+     * end up there unchanged
+     */
+    private PrintStream print(final OutputStream out) {
+        try {
+            return new PrintStream(out, false, SystemEnvironment.charset(env.getOutput()).name());
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private class Line {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final PrintStream out = print(buffer);
+        private Future<?> future;
+    }
+
+    /**
+     * Passes writes through but not flushes
+     */
+    private static class Unflushed extends FilterOutputStream {
+        Unflushed(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            // the batch flushes once it is done
+        }
+
+        @Override
+        public void close() {
+            // the output belongs to the batch
+        }
+    }
+
+    /**
+     * The batch Environment with the output of the line
+     * and global options of its own
+     */
+    private static class LineEnvironment implements Environment {
+        private final Environment env;
+        private final PrintStream out;
+        private final List<Object> globalOptions = new ArrayList<>();
+
+        LineEnvironment(final Environment env, final PrintStream out) {
+            this.env = env;
+            this.out = out;
+        }
+
+        @Override
+        public PrintStream getOutput() {
+            return out;
+        }
+
+        @Override
+        public PrintStream getError() {
+            return env.getError();
+        }
+
+        @Override
+        public InputStream getInput() {
+            return env.getInput();
+        }
+
+        @Override
+        public Properties getProperties() {
+            return env.getProperties();
+        }
+
+        @Override
+        public Map<String, String> getEnv() {
+            return env.getEnv();
+        }
+
+        @Override
+        public <T> T findService(final Class<T> type) {
+            return env.findService(type);
+        }
+
+        @Override
+        public String getCommandName() {
+            return env.getCommandName();
+        }
+
+        @Override
+        public String getCommandVersion() {
+            return env.getCommandVersion();
+        }
+
+        @Override
+        public void setGlobalOptions(final List<Object> objects) {
+            globalOptions.clear();
+            globalOptions.addAll(objects);
+        }
+
+        @Override
+        public List<Object> getGlobalOptions() {
+            return globalOptions;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes FileChannel, ReadableByteChannel and ByteBuffer results as
+ * raw bytes.  Only these types opt in; a Path or File result is still
+ * printed as its path.
+ *
+ * When the environment says where its output really goes, bytes are
+ * transferred to that channel: a FileChannel source uses transferTo,
+ * which the JDK turns into sendfile or a similar zero-copy call where
+ * the platform allows it.  Otherwise they are copied through the
+ * PrintStream in large chunks.
+ *
+ * Channels are closed once written; the command hands them over by
+ * returning them.
+ */
+class ChannelWriter {
+
+    private static final int CHUNK = 64 * 1024;
+
+    private ChannelWriter() {
+    }
+
+    static boolean isChannel(final Object result) {
+        return result instanceof ReadableByteChannel
+                || result instanceof ByteBuffer;
+    }
+
+    static void write(final Object result, final PrintStream out, final WritableByteChannel target) throws IOException {
+        // Anything the command already printed goes first
+        out.flush();
+
+        if (result instanceof ByteBuffer) {
+            write((ByteBuffer) result, out, target);
+        } else {
+            try (ReadableByteChannel channel = (ReadableByteChannel) result) {
+                if (channel instanceof FileChannel) {
+                    write((FileChannel) channel, out, target);
+                } else {
+                    write(channel, out, target);
+                }
+            }
+        }
+
+        out.flush();
+    }
+
+    /**
+     * From the channel's position to its end
+     */
+    private static void write(final FileChannel channel, final PrintStream out, final WritableByteChannel target) throws IOException {
+        if (target == null) {
+            write((ReadableByteChannel) channel, out, null);
+            return;
+        }
+
+        long position = channel.position();
+        final long size = channel.size();
+        while (position < size) {
+            final long transferred = channel.transferTo(position, size - position, target);
+            if (transferred <= 0) break;
+            position += transferred;
+        }
+    }
+
+    private static void write(final ReadableByteChannel channel, final PrintStream out, final WritableByteChannel target) throws IOException {
+        if (target != null) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                drain(buffer, target);
+                buffer.clear();
+            }
+            return;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(CHUNK);
+        while (channel.read(buffer) >= 0) {
+            out.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+            if (out.checkError()) return;
+        }
+    }
+
+    private static void write(final ByteBuffer buffer, final PrintStream out, final WritableByteChannel target) throws IOException {
+        if (target != null) {
+            drain(buffer, target);
+            return;
+        }
+
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+
+        final byte[] chunk = new byte[Math.min(CHUNK, buffer.remaining())];
+        while (buffer.hasRemaining()) {
+            final int length = Math.min(chunk.length, buffer.remaining());
+            buffer.get(chunk, 0, length);
+            out.write(chunk, 0, length);
+        }
+    }
+
+    private static void drain(final ByteBuffer buffer, final WritableByteChannel target) throws IOException {
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+}
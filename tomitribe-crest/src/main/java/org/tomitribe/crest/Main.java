@@ -33,36 +33,49 @@ import org.tomitribe.crest.cmds.processors.Commands;
 import org.tomitribe.crest.cmds.processors.Help;
 import org.tomitribe.crest.cmds.targets.SimpleBean;
 import org.tomitribe.crest.cmds.targets.TargetProvider;
+import org.tomitribe.crest.cmds.utils.PrefixTrie;
 import org.tomitribe.crest.contexts.DefaultsContext;
 import org.tomitribe.crest.contexts.SystemPropertiesDefaultsContext;
+import org.tomitribe.crest.environments.CommandExecutor;
 import org.tomitribe.crest.environments.Environment;
 import org.tomitribe.crest.environments.SystemEnvironment;
+import org.tomitribe.crest.environments.Threads;
 import org.tomitribe.crest.interceptor.internal.InternalInterceptor;
+import org.tomitribe.crest.metrics.CommandMetrics;
+import org.tomitribe.crest.metrics.Metrics;
+import org.tomitribe.crest.metrics.MetricsCommand;
 import org.tomitribe.crest.table.Formatting;
 import org.tomitribe.crest.table.TableInterceptor;
+import org.tomitribe.crest.trace.Phase;
+import org.tomitribe.crest.trace.Span;
+import org.tomitribe.crest.trace.Startup;
+import org.tomitribe.crest.trace.Trace;
 
 import java.beans.PropertyEditorManager;
 import java.io.File;
 import java.io.InputStream;
 import java.io.PrintStream;
 import java.lang.annotation.Annotation;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.ServiceLoader;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
-public class Main implements Completer {
+public class Main implements Completer, AutoCloseable {
 
     protected final Map<String, Cmd> commands = new ConcurrentHashMap<>();
     protected final List<Class<?>> globalOptionClasses = new CopyOnWriteArrayList<>();
@@ -72,6 +85,16 @@ public class Main implements Completer {
     protected final String name;
     protected final String version;
     protected final TargetProvider targetProvider;
+    private int batchSize = ResultWriter.BATCH_SIZE;
+    private long flushInterval = ResultWriter.FLUSH_INTERVAL;
+    private ThreadFactory threadFactory;
+    private final Metrics metrics;
+
+    /**
+     * Completion candidates for the top-level command names, built once
+     * the commands are linked and dropped whenever a command is added
+     */
+    private volatile PrefixTrie<String> completions;
 
     public Main() {
         this(new SystemPropertiesDefaultsContext(), Commands.load(), new SystemEnvironment(), System::exit);
@@ -104,14 +127,23 @@ public class Main implements Completer {
         targetProvider = provider == null ? lookupTargetProviderServiceLoader() : provider;
 
         for (final Class clazz : classes) {
-            processClass(defaultsContext, clazz);
+            try (Startup.Step step = Startup.begin("processClass", clazz.getName())) {
+                processClass(defaultsContext, clazz);
+            }
         }
 
         // Built-in formatters
         processClass(defaultsContext, TableInterceptor.class);
 
         // Built-in commands
-        installHelp(defaultsContext);
+        try (Startup.Step step = Startup.begin("installHelp", null)) {
+            installHelp(defaultsContext);
+        }
+
+        metrics = environment.findService(Metrics.class);
+        if (metrics != null) {
+            Commands.get(new MetricsCommand(metrics), defaultsContext).values().forEach(this::add);
+        }
 
         /*
          * All commands and interceptors are registered; resolve interceptor
@@ -119,7 +151,14 @@ public class Main implements Completer {
          * interceptor-declared options merge into their commands' specs.
          */
         for (final Cmd cmd : commands.values()) {
-            cmd.link(interceptors);
+            try (Startup.Step step = Startup.begin("link", cmd.getName())) {
+                cmd.link(interceptors);
+            }
+        }
+        completions = index(commands);
+
+        if (Startup.isEnabled()) {
+            Startup.report(System.err);
         }
     }
 
@@ -215,6 +254,21 @@ public class Main implements Completer {
 
     public void add(final Cmd cmd) {
         commands.put(cmd.getName(), cmd);
+        completions = null;
+    }
+
+    /**
+     * Adds the built-in "run" command, unless the application
+     * has a command of that name
+     *
+     * @see Script
+     */
+    void installScripts(final DefaultsContext dc) {
+        for (final Cmd cmd : Commands.get(new Script(this), dc).values()) {
+            if (commands.containsKey(cmd.getName())) continue;
+            cmd.link(interceptors);
+            add(cmd);
+        }
     }
 
     private void installHelp(final DefaultsContext dc) {
@@ -225,7 +279,21 @@ public class Main implements Completer {
     }
 
     public static void main(final String... args) throws Exception {
-        builder().build().run(args);
+        try (Main main = builder().build()) {
+            main.run(args);
+        }
+    }
+
+    /**
+     * Shuts down the ExecutorService crest gave to commands.  Tasks that
+     * are still running may finish, but no new tasks are accepted.
+     */
+    @Override
+    public void close() {
+        final ExecutorService executor = environment.findService(ExecutorService.class);
+        if (executor instanceof CommandExecutor) {
+            executor.shutdown();
+        }
     }
 
     public void run(final String... args) {
@@ -251,87 +319,207 @@ public class Main implements Completer {
         if (cause instanceof HelpPrintedException) {
 
             // these are already handled via message + help
+            flush(env);
             onExit.accept(code);
 
         } else if (exit != null) {
 
             env.getError().println(cause.getMessage());
+            flush(env);
             onExit.accept(exit.value());
 
         } else {
 
             cause.printStackTrace(env.getError());
+            flush(env);
             onExit.accept(-1);
 
         }
     }
 
+    /**
+     * Buffered output must be written before the program exits
+     */
+    private static void flush(final Environment env) {
+        env.getOutput().flush();
+        env.getError().flush();
+    }
+
     public void main(final Environment env, final String... args) throws Exception {
+        if (threadFactory == null) {
+            run(env, args);
+            return;
+        }
+
+        final FutureTask<Void> task = new FutureTask<>(() -> {
+            run(env, args);
+            return null;
+        });
+
+        threadFactory.newThread(task).start();
+
+        try {
+            task.get();
+        } catch (final InterruptedException e) {
+            task.cancel(true);
+            throw e;
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
+
+    private void run(final Environment env, final String... args) throws Exception {
+        run(env, null, args);
+    }
+
+    /**
+     * @param globalSpec the global options, or null to build them for this command line
+     */
+    void run(final Environment env, final GlobalSpec globalSpec, final String... args) throws Exception {
         final Environment old = Environment.ENVIRONMENT_THREAD_LOCAL.get();
         Environment.ENVIRONMENT_THREAD_LOCAL.set(env);
 
+        final CommandMetrics command = metrics != null ? metrics.command(metricsName(args)) : null;
+        final CommandMetrics previous = command != null ? Metrics.enter(command) : null;
+        final long start = System.nanoTime();
+        int exitCode = 0;
+
         try {
-            final Object result = exec(args);
+            final Object result = Async.await(exec(globalSpec, args));
 
             if (result == null) return;
 
-            final PrintStream out = env.getOutput();
+            try (Span span = Trace.begin(Phase.RENDER, null, args.length)) {
+                if (span != Span.NONE) {
+                    span.command(Arguments.Split.split(args).getCommand()).detail(result.getClass().getName());
+                }
+                render(env, result);
+            }
+        } catch (final Throwable t) {
+            exitCode = exitCode(t);
+            throw t;
+        } finally {
+            flush(env);
+            Environment.ENVIRONMENT_THREAD_LOCAL.set(old);
 
-            if (result instanceof StreamingOutput) {
+            if (command != null) {
+                command.record(System.nanoTime() - start, exitCode);
+                Metrics.exit(previous);
+            }
+        }
+    }
 
-                ((StreamingOutput) result).write(out);
+    /**
+     * Unknown commands are counted together, so mistyped
+     * names cannot grow the metrics without bound
+     */
+    private String metricsName(final String... args) {
+        final String name = Arguments.Split.split(args).getCommand();
+        if (name == null) return "help";
+        return commands.containsKey(name) ? name : "unknown";
+    }
 
-            } else if (result instanceof PrintOutput) {
+    /**
+     * The exit code handle() would use
+     */
+    private static int exitCode(final Throwable throwable) {
+        final Throwable cause = throwable instanceof CommandFailedException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+        final Exit exit = cause.getClass().getAnnotation(Exit.class);
+        return exit != null ? exit.value() : -1;
+    }
 
-                ((PrintOutput) result).write(out);
+    private void render(final Environment env, final Object result) throws Exception {
+        final PrintStream out = env.getOutput();
 
-            } else if (result instanceof Stream) {
+        if (result instanceof StreamingOutput) {
 
-                ((Stream<?>) result)
-                        .map(o -> o == null ? "" : o)
-                        .map(Object::toString)
-                        .forEach(out::println);
+            ((StreamingOutput) result).write(out);
 
-            } else if (result instanceof Iterable) {
+        } else if (result instanceof PrintOutput) {
 
-                final Iterable iterable = (Iterable) result;
+            ((PrintOutput) result).write(out);
 
-                for (final Object o : iterable) {
-                    if (o != null) out.println(o.toString());
-                }
+        } else if (ChannelWriter.isChannel(result)) {
 
-            } else if (result instanceof String) {
+            ChannelWriter.write(result, out, env.getOutputChannel());
 
-                final String string = (String) result;
+        } else if (result instanceof Stream) {
 
-                out.print(string);
+            new ResultWriter(out, batchSize, flushInterval).write((Stream<?>) result);
 
-                if (!string.endsWith("\n")) out.println();
+        } else if (result instanceof Iterable) {
 
-            } else if (result instanceof String[][]) {
+            new ResultWriter(out, batchSize, flushInterval).write((Iterable<?>) result);
 
-                final String[][] data = (String[][]) result;
+        } else if (result instanceof String) {
 
-                Formatting.asPrintStream(data).write(out);
+            final String string = (String) result;
 
-            } else {
+            out.print(string);
 
-                out.println(result);
+            if (!string.endsWith("\n")) out.println();
+
+        } else if (result instanceof String[][]) {
+
+            final String[][] data = (String[][]) result;
+
+            Formatting.asPrintStream(data).write(out);
+
+        } else {
+
+            out.println(result);
 
-            }
-        } finally {
-            Environment.ENVIRONMENT_THREAD_LOCAL.set(old);
         }
     }
 
     public Object exec(String... args) throws Exception {
-        final Arguments.Split split = Arguments.Split.split(args);
+        return exec(null, args);
+    }
 
-        final String[] global = split.getGlobal();
+    /**
+     * Runs each command line in turn as the command line of this
+     * program would, stopping at the first line that fails.
+     *
+     * @see #execBatch(Environment, Iterable, int)
+     */
+    public void execBatch(final Iterable<String[]> lines) throws Exception {
+        execBatch(environment, lines, 1);
+    }
+
+    /**
+     * Runs each command line in turn as the command line of this program
+     * would.  The global options are resolved once for the whole batch,
+     * and the output of every line goes through the output of the
+     * Environment, which is only flushed once the batch is done.
+     *
+     * The batch stops at the first line that fails and throws what that
+     * line threw.  The output of the lines before it is written.
+     *
+     * @param parallelism how many lines may run at once.  Above one, lines
+     *                    must not depend on each other.  Their output is
+     *                    held and written in line order.
+     */
+    public void execBatch(final Environment env, final Iterable<String[]> lines, final int parallelism) throws Exception {
+        new Batch(this, env, getGlobalSpec()).run(lines, parallelism);
+    }
 
-        final GlobalSpec globalSpec = getGlobalSpec();
+    private Object exec(final GlobalSpec globalSpec, final String... args) throws Exception {
+        final Arguments.Split split;
+        try (Span span = Trace.begin(Phase.SPLIT, null, args.length)) {
+            split = Arguments.Split.split(args);
+            span.command(split.getCommand());
+        }
 
-        final List<Object> objects = globalSpec.parse(global);
+        final String[] global = split.getGlobal();
+
+        final List<Object> objects;
+        try (Span span = Trace.begin(Phase.GLOBAL_OPTIONS, split.getCommand(), global.length)) {
+            objects = (globalSpec != null ? globalSpec : getGlobalSpec()).parse(global);
+        }
         Environment.ENVIRONMENT_THREAD_LOCAL.get().setGlobalOptions(objects);
 
         try {
@@ -341,6 +529,10 @@ public class Main implements Completer {
                 return BashCompletion.generate(this, split.getArgs());
             }
 
+            if (command.equals("_completion_values")) {
+                return BashCompletion.values(this, split.getArgs());
+            }
+
             final Cmd cmd = commands.get(command);
 
             if (cmd == null) {
@@ -367,49 +559,43 @@ public class Main implements Completer {
 
     @Override
     public Collection<String> complete(final String buffer, final int cursorPosition) {
-        final List<String> cmds = new ArrayList<>();
-
         if (buffer == null || buffer.isEmpty()) {
-            final Set<String> cmd = commands.keySet();
-            for (final String s : cmd) {
-                cmds.add(s + " ");
-            }
-        } else {
+            return completions().startingWith("");
+        }
 
-            if (buffer.substring(0, cursorPosition).contains(" ")) {
-                final Cmd cmd = getCmd(buffer);
+        final String prefix = buffer.substring(0, cursorPosition);
 
-                if (cmd != null) {
-                    return cmd.complete(buffer, cursorPosition);
-                }
-            }
+        final int space = prefix.indexOf(' ');
+        if (space != -1) {
+            final Cmd cmd = commands.get(prefix.substring(0, space));
 
-            final String prefix = buffer.substring(0, cursorPosition);
-            Iterator<String> iterator = commands.keySet().iterator();
-            while (iterator.hasNext()) {
-                final String command = iterator.next();
-                if (command.startsWith(prefix)) {
-                    cmds.add(command + " ");
-                }
+            if (cmd != null) {
+                return cmd.complete(buffer, cursorPosition);
             }
         }
 
-        Collections.sort(cmds);
-        return cmds;
+        return completions().startingWith(prefix);
     }
 
-    private Cmd getCmd(String buffer) {
-        final String commandName = buffer.replaceAll("^(\\w*).*?$", "$1");
-        final Iterator<String> iterator = this.commands.keySet().iterator();
-
-        while (iterator.hasNext()) {
-            String cmd = iterator.next();
-            if (cmd.equals(commandName)) {
-                return this.commands.get(cmd);
-            }
+    private PrefixTrie<String> completions() {
+        PrefixTrie<String> completions = this.completions;
+        if (completions == null) {
+            completions = index(commands);
+            this.completions = completions;
         }
+        return completions;
+    }
 
-        return null;
+    /**
+     * Maps each command name to its completion candidate, the
+     * name followed by the space that separates its arguments
+     */
+    private static PrefixTrie<String> index(final Map<String, Cmd> commands) {
+        final Map<String, String> candidates = new HashMap<>();
+        for (final String name : commands.keySet()) {
+            candidates.put(name, name + " ");
+        }
+        return PrefixTrie.of(candidates);
     }
 
 
@@ -442,6 +628,7 @@ public class Main implements Completer {
 
         private Map<String, String> env = System.getenv();
         private PrintStream out = System.out;
+        private boolean stdout;
         private PrintStream err = System.err;
         private InputStream in = System.in;
 
@@ -452,6 +639,14 @@ public class Main implements Completer {
 
         private String name;
         private TargetProvider targetProvider = null;
+        private int batchSize = ResultWriter.BATCH_SIZE;
+        private Duration flushInterval = Duration.ofNanos(ResultWriter.FLUSH_INTERVAL);
+        private int bufferSize;
+        private Duration bufferFlushInterval;
+        private boolean virtualThreads;
+        private int threads;
+        private Metrics metrics;
+        private boolean scripts;
 
         /**
          * Specifies a version that Crest will print with help messages
@@ -530,6 +725,19 @@ public class Main implements Completer {
             return this;
         }
 
+        /**
+         * Declares that the output stream writes to the process' stdout,
+         * so channel and ByteBuffer results are written to its file
+         * descriptor directly.  Only ask for this when nothing redirects
+         * System.out, or those results would bypass the redirect.
+         *
+         * @see SystemEnvironment.Builder#stdout()
+         */
+        public Builder stdout() {
+            this.stdout = true;
+            return this;
+        }
+
         public Builder err(final PrintStream err) {
             this.err = err;
             return this;
@@ -564,6 +772,99 @@ public class Main implements Completer {
             return this;
         }
 
+        /**
+         * The most lines of a Stream or Iterable result that are
+         * gathered up before being written out together.
+         *
+         * Defaults to 1024.
+         */
+        public Builder batchSize(final int lines) {
+            this.batchSize = lines;
+            return this;
+        }
+
+        /**
+         * The longest lines of a Stream or Iterable result are held
+         * back before being written, however few there are.
+         *
+         * Defaults to 50 milliseconds.
+         */
+        public Builder flushInterval(final Duration flushInterval) {
+            this.flushInterval = flushInterval;
+            return this;
+        }
+
+        /**
+         * Buffers the output stream so commands that print many lines
+         * are not held up by a write and flush per line.  Output is
+         * written when the buffer is full, at most 100 milliseconds after
+         * it was written, when a command ends and before the program
+         * exits.  The error stream stays unbuffered.
+         */
+        public Builder buffered() {
+            return buffered(64 * 1024, Duration.ofMillis(100));
+        }
+
+        /**
+         * @see #buffered()
+         * @see SystemEnvironment.Builder#buffered(int, Duration)
+         */
+        public Builder buffered(final int size, final Duration flushInterval) {
+            this.bufferSize = size;
+            this.bufferFlushInterval = flushInterval;
+            return this;
+        }
+
+        /**
+         * Runs each command on its own virtual thread, or on a new
+         * platform thread before Java 21.  Threads the command starts
+         * and tasks it gives to an injected ExecutorService see the
+         * same Environment as the command.
+         */
+        public Builder virtualThreads() {
+            this.virtualThreads = true;
+            return this;
+        }
+
+        /**
+         * Runs the tasks of an injected ExecutorService on a fixed pool
+         * of platform threads.  By default each task gets a new thread.
+         */
+        public Builder threads(final int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Counts the invocations and errors of each command and times
+         * them, phase by phase.  Adds a "metrics" command that shows them.
+         *
+         * @see Metrics
+         * @see org.tomitribe.crest.metrics.Prometheus
+         */
+        public Builder metrics() {
+            return metrics(new Metrics());
+        }
+
+        /**
+         * @see #metrics()
+         */
+        public Builder metrics(final Metrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * Adds a "run" command that runs a file of command lines in this
+         * JVM, unless the application has a command of that name.
+         *
+         * @see Script
+         */
+        public Builder scripts() {
+            this.scripts = true;
+            return this;
+        }
+
         public Builder exit(final Consumer<Integer> consumer) {
             this.exit = consumer;
             return this;
@@ -582,17 +883,44 @@ public class Main implements Completer {
                 final String name = this.name == null ? lookupName() : this.name;
                 final String version = this.version == null ? lookupVersion() : this.version;
 
-                final Environment environment = SystemEnvironment.builder()
+                final SystemEnvironment.Builder environmentBuilder = SystemEnvironment.builder()
                         .out(out)
                         .in(in)
                         .err(err)
                         .properties(properties)
                         .name(name)
-                        .version(version)
-                        .build();
+                        .version(version);
+
+                if (bufferSize > 0) {
+                    environmentBuilder.buffered(bufferSize, bufferFlushInterval);
+                }
+
+                if (threads > 0) {
+                    environmentBuilder.threads(threads);
+                }
+
+                if (metrics != null) {
+                    environmentBuilder.service(Metrics.class, metrics);
+                }
+
+                if (stdout) {
+                    environmentBuilder.stdout();
+                }
+
+                final Environment environment = environmentBuilder.build();
 
 
-                return new Main(new SystemPropertiesDefaultsContext(), commands, environment, exit, name, version, targetProvider);
+                final DefaultsContext defaultsContext = new SystemPropertiesDefaultsContext();
+                final Main main = new Main(defaultsContext, commands, environment, exit, name, version, targetProvider);
+                if (scripts) {
+                    main.installScripts(defaultsContext);
+                }
+                main.batchSize = batchSize;
+                main.flushInterval = flushInterval.toNanos();
+                if (virtualThreads) {
+                    main.threadFactory = Threads.factory("crest-command");
+                }
+                return main;
             } catch (final Exception e) {
                 throw new MainBuildException(e);
             }
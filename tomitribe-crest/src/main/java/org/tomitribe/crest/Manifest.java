@@ -13,6 +13,8 @@
  */
 package org.tomitribe.crest;
 
+import org.tomitribe.crest.trace.Startup;
+
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -155,13 +157,17 @@ public class Manifest {
     }
 
     public static Optional<Manifest> get() {
-        final String mainClassName = findMainClassName();
-        if (mainClassName == null) return Optional.empty();
+        try (Startup.Step step = Startup.begin("manifest", null)) {
+            final String mainClassName = findMainClassName();
+            if (mainClassName == null) return Optional.empty();
+
+            step.detail(mainClassName);
 
-        return read().stream()
-                .filter(manifest -> manifest.getMainClass() != null)
-                .filter(manifest -> manifest.getMainClass().equals(mainClassName))
-                .findFirst();
+            return read().stream()
+                    .filter(manifest -> manifest.getMainClass() != null)
+                    .filter(manifest -> manifest.getMainClass().equals(mainClassName))
+                    .findFirst();
+        }
     }
 
     public static String findMainClassName() {
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest;
+
+import org.tomitribe.crest.environments.Threads;
+
+import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Prints Stream and Iterable results one element per line.
+ *
+ * Lines are gathered into a batch and the batch is written to the
+ * PrintStream in one call, rather than a synchronized println per
+ * element.  A batch is written when it holds batchSize lines, or by a
+ * timer flushInterval after its first line, so lines of a slow producer
+ * show up promptly even while the next element is being waited for.
+ *
+ * The elements of a parallel Stream are converted to strings on the
+ * fork/join pool, in parallel, and handed to the batch in encounter
+ * order, so lines never interleave.
+ *
+ * Once the PrintStream reports an error, typically because the reader
+ * closed the pipe, the remaining elements are not read.
+ */
+class ResultWriter {
+
+    static final int BATCH_SIZE = 1024;
+    static final long FLUSH_INTERVAL = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final PrintStream out;
+    private final int batchSize;
+    private final long flushInterval;
+
+    private final StringBuilder batch = new StringBuilder(8192);
+    private int lines;
+    private ScheduledFuture<?> timed;
+    private volatile boolean closed;
+
+    ResultWriter(final PrintStream out, final int batchSize, final long flushInterval) {
+        this.out = out;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushInterval = flushInterval;
+    }
+
+    public void write(final Stream<?> stream) {
+        try {
+            if (stream.isParallel()) {
+                stream.map(o -> o == null ? "" : o.toString())
+                        .forEachOrdered(this::ordered);
+            } else {
+                final Iterator<?> iterator = stream.iterator();
+                while (!closed && iterator.hasNext()) {
+                    final Object o = iterator.next();
+                    line(o == null ? "" : o.toString());
+                }
+            }
+        } catch (final Closed e) {
+            // the reader is gone, stop producing
+        } finally {
+            stream.close();
+        }
+        flush();
+    }
+
+    public void write(final Iterable<?> iterable) {
+        final Iterator<?> iterator = iterable.iterator();
+        while (!closed && iterator.hasNext()) {
+            final Object o = iterator.next();
+            if (o != null) line(o.toString());
+        }
+        flush();
+    }
+
+    /**
+     * forEachOrdered cannot be told to stop, so we break out of it
+     */
+    private void ordered(final String line) {
+        line(line);
+        if (closed) throw new Closed();
+    }
+
+    private synchronized void line(final String line) {
+        batch.append(line).append(NEWLINE);
+
+        if (++lines >= batchSize || flushInterval <= 0) {
+            flush();
+        } else if (timed == null) {
+            timed = Threads.timer().schedule(this::timed, flushInterval, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private synchronized void timed() {
+        timed = null;
+        flush();
+    }
+
+    private synchronized void flush() {
+        if (timed != null) {
+            timed.cancel(false);
+            timed = null;
+        }
+
+        if (batch.length() > 0) {
+            out.append(batch);
+            batch.setLength(0);
+        }
+        lines = 0;
+
+        // flushes, and tells us if the reader went away
+        closed = out.checkError();
+    }
+
+    private static class Closed extends RuntimeException {
+        Closed() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest;
+
+import org.tomitribe.crest.api.Command;
+import org.tomitribe.crest.api.Default;
+import org.tomitribe.crest.api.Option;
+import org.tomitribe.crest.cmds.utils.CommandLine;
+import org.tomitribe.crest.environments.Environment;
+import org.tomitribe.crest.val.Exists;
+import org.tomitribe.crest.val.Readable;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.stream.Stream;
+
+/**
+ * The built-in "run" command, added with Main.builder().scripts()
+ * when the application does not have a command of that name.
+ */
+public class Script {
+
+    private final Main main;
+
+    public Script(final Main main) {
+        this.main = main;
+    }
+
+    /**
+     * Run the commands of a script in this JVM, one command per line.
+     * Blank lines and lines starting with # are skipped.  The script
+     * stops at the first command that fails.
+     *
+     * @param parallel how many lines may run at once, for scripts whose
+     *                 lines do not depend on each other.  Output is still
+     *                 written in line order.
+     * @param script   the script to run
+     */
+    @Command
+    public void run(@Option("parallel") @Default("1") final int parallel,
+                    @Exists @Readable final File script) throws Exception {
+        try (Stream<String> lines = Files.lines(script.toPath(), StandardCharsets.UTF_8)) {
+            final Stream<String[]> commands = lines
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .map(CommandLine::translateCommandline);
+
+            main.execBatch(Environment.get(), commands::iterator, parallel);
+        }
+    }
+}
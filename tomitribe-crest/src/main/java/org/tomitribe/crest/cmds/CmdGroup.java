@@ -19,6 +19,7 @@ package org.tomitribe.crest.cmds;
 import org.tomitribe.crest.api.Command;
 import org.tomitribe.crest.cmds.processors.Help;
 import org.tomitribe.crest.cmds.utils.CommandLine;
+import org.tomitribe.crest.cmds.utils.PrefixTrie;
 import org.tomitribe.crest.environments.Environment;
 import org.tomitribe.crest.interceptor.internal.InternalInterceptor;
 
@@ -26,7 +27,7 @@ import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -39,6 +40,12 @@ public class CmdGroup implements Cmd {
     final Map<String, Cmd> commands = new TreeMap<>();
     private CmdGroup parent;
 
+    /**
+     * Completion candidates for the sub-command names, built by
+     * {@link #link} and dropped whenever a sub-command is added
+     */
+    private volatile PrefixTrie<String> completions;
+
     /**
      * Constructor for auto-created intermediate groups (mkdir -p style).
      * These groups have no owning class and no description until a class
@@ -64,6 +71,8 @@ public class CmdGroup implements Cmd {
     }
 
     public void put(final String name, final Cmd incoming) {
+        completions = null;
+
         final Cmd existing = commands.get(name);
 
         if (existing == null) {
@@ -123,6 +132,8 @@ public class CmdGroup implements Cmd {
         for (final Cmd cmd : commands.values()) {
             cmd.link(globalInterceptors);
         }
+
+        completions = index(commands);
     }
 
     public Collection<Cmd> getCommands() {
@@ -240,8 +251,6 @@ public class CmdGroup implements Cmd {
     @Override
     public Collection<String> complete(final String buffer, final int cursorPosition) {
 
-        final List<String> results = new ArrayList<>();
-
         try {
 
             final String commandLine = buffer.substring(0, cursorPosition);
@@ -255,34 +264,53 @@ public class CmdGroup implements Cmd {
                     final Cmd cmd = commands.get(args[1]);
                     if (cmd != null) {
                         // need to remove the first command
-                        final String subcommand = buffer.replaceAll(getName() + "\\s+(.*)$", "$1");
-                        final int diff = buffer.length() - subcommand.length();
-                        return cmd.complete(subcommand, cursorPosition - diff);
+                        final int diff = skipWhitespace(buffer, buffer.indexOf(getName()) + getName().length());
+                        return cmd.complete(buffer.substring(diff), cursorPosition - diff);
                     }
-                    return results;
+                    return Collections.emptyList();
                 }
 
-                final String prefix;
                 if (args.length == 1 && commandLine.endsWith(" ")) {
-                    prefix = "";
-                } else {
-                    prefix = args[1];
+                    return completions().startingWith("");
                 }
 
-                // look at all the possible commands and return those that match
-                final Iterator<String> iterator = commands.keySet().iterator();
-                while (iterator.hasNext()) {
-                    final String commandName = iterator.next();
-                    if (commandName.startsWith(prefix)) {
-                        results.add(commandName + " ");
-                    }
+                if (args.length == 2) {
+                    return completions().startingWith(args[1]);
                 }
             }
         } catch (Exception e) {
             // quietly fail and return nothing.
             e.printStackTrace();
         }
-        return results;
+        return Collections.emptyList();
+    }
+
+    private static int skipWhitespace(final String buffer, int index) {
+        while (index < buffer.length() && Character.isWhitespace(buffer.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private PrefixTrie<String> completions() {
+        PrefixTrie<String> completions = this.completions;
+        if (completions == null) {
+            completions = index(commands);
+            this.completions = completions;
+        }
+        return completions;
+    }
+
+    /**
+     * Maps each sub-command name to its completion candidate, the
+     * name followed by the space that separates its arguments
+     */
+    private static PrefixTrie<String> index(final Map<String, Cmd> commands) {
+        final Map<String, String> candidates = new HashMap<>();
+        for (final String name : commands.keySet()) {
+            candidates.put(name, name + " ");
+        }
+        return PrefixTrie.of(candidates);
     }
 
     @Override
@@ -32,8 +32,11 @@ import org.tomitribe.crest.cmds.processors.Help;
 import org.tomitribe.crest.cmds.processors.Item;
 import org.tomitribe.crest.cmds.processors.OptionParam;
 import org.tomitribe.crest.cmds.processors.Param;
+import org.tomitribe.crest.cmds.targets.SimpleBean;
 import org.tomitribe.crest.cmds.targets.Target;
+import org.tomitribe.crest.cmds.targets.TargetInstantiationException;
 import org.tomitribe.crest.cmds.utils.CommandLine;
+import org.tomitribe.crest.cmds.utils.PrefixTrie;
 import org.tomitribe.crest.contexts.DefaultsContext;
 import org.tomitribe.crest.contexts.SystemPropertiesDefaultsContext;
 import org.tomitribe.crest.environments.Environment;
@@ -50,6 +53,11 @@ import org.tomitribe.crest.javadoc.Javadoc;
 import org.tomitribe.crest.javadoc.JavadocParser;
 import org.tomitribe.crest.term.Screen;
 import org.tomitribe.crest.val.BeanValidationImpl;
+import org.tomitribe.crest.trace.Phase;
+import org.tomitribe.crest.trace.Span;
+import org.tomitribe.crest.trace.Trace;
+import org.tomitribe.crest.val.Constraints;
+import org.tomitribe.crest.val.ValidatorUnavailableException;
 import org.tomitribe.util.IO;
 import org.tomitribe.util.Join;
 import org.tomitribe.util.editor.Converter;
@@ -68,6 +76,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
@@ -75,6 +84,7 @@ import java.util.EnumSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -129,6 +139,18 @@ public class CmdMethod implements Cmd {
      */
     private List<InternalInterceptor> chain;
 
+    /**
+     * The chain bound to this command's option layout, built by
+     * {@link #link} alongside {@link #chain}
+     */
+    private Compiled compiled;
+
+    /**
+     * Completion candidates for the options and aliases, built by
+     * {@link #link} once interceptor-declared options are merged
+     */
+    private volatile OptionCompletions completions;
+
     /**
      * The list index of each scalar option parameter of the command method,
      * by option name.  These indexes are what make OptionsMap entries a live
@@ -143,6 +165,20 @@ public class CmdMethod implements Cmd {
      */
     private final Map<Integer, ComplexParam> beanSlots = new LinkedHashMap<>();
 
+    /**
+     * Whether the command method carries any constraint for bean validation
+     * to check.  Decided at link time; unconstrained commands skip
+     * validation entirely and never bootstrap a validator.
+     */
+    private volatile Boolean constrained;
+
+    /**
+     * The generated invoker of the command method, when the command was
+     * compiled with the invoker processor and its instances are created
+     * by crest itself.  Null means parse and invoke reflectively.
+     */
+    private final Invoker invoker;
+
     public CmdMethod(final Method method, final Target target, final DefaultsContext defaultsFinder,
                      final BeanValidationImpl beanValidation) {
         this(method.getDeclaringClass(), method, target, defaultsFinder, beanValidation);
@@ -192,6 +228,7 @@ public class CmdMethod implements Cmd {
         }
 
         this.interceptors = getInterceptors(method);
+        this.invoker = target instanceof SimpleBean ? Invokers.find(method) : null;
 
         validate();
     }
@@ -253,22 +290,26 @@ public class CmdMethod implements Cmd {
      */
     @Override
     public void link(final Map<Class<?>, InternalInterceptor> globalInterceptors) {
+        isConstrained();
+
         if (chain != null) {
             return;
         }
 
         if (interceptors.length == 0) {
             this.chain = Collections.emptyList();
-            return;
-        }
+        } else {
+            final List<InternalInterceptor> chain = InternalInterceptor.resolve(globalInterceptors, interceptors);
 
-        final List<InternalInterceptor> chain = InternalInterceptor.resolve(globalInterceptors, interceptors);
+            for (final InternalInterceptor interceptor : chain) {
+                mergeOptions(interceptor);
+            }
 
-        for (final InternalInterceptor interceptor : chain) {
-            mergeOptions(interceptor);
+            this.compiled = new Compiled(chain, spec.getOptions());
+            this.chain = chain;
         }
 
-        this.chain = chain;
+        this.completions = new OptionCompletions(spec);
     }
 
     private void mergeOptions(final InternalInterceptor interceptor) {
@@ -481,48 +522,104 @@ public class CmdMethod implements Cmd {
     }
 
     Object exec(final Map<Class<?>, InternalInterceptor> globalInterceptors, final ParsedArgs parsed) {
-        final List<InternalInterceptor> chain;
-        if (this.chain != null) {
-            chain = this.chain;
-        } else if (interceptors == null || interceptors.length == 0) {
-            chain = Collections.emptyList();
+        final Compiled compiled;
+        if (this.compiled != null) {
+            compiled = this.compiled;
+        } else if (this.chain != null || interceptors == null || interceptors.length == 0) {
+            compiled = null;
         } else {
-            chain = InternalInterceptor.resolve(globalInterceptors, interceptors);
+            compiled = compile(InternalInterceptor.resolve(globalInterceptors, interceptors));
         }
 
-        if (chain.isEmpty()) {
+        if (compiled == null || compiled.links.length == 0) {
             return doInvoke(parsed.getArgs());
         }
 
-        final OptionsMap options = buildOptionsMap(chain, parsed);
+        return new InternalInterceptorInvocationContext(compiled.links, name, parameterMetadatas, method, parsed.getArgs()) {
+            @Override
+            protected OptionsMap createOptions(final List<Object> parameters) {
+                return buildOptionsMap(compiled, parsed);
+            }
 
-        return new InternalInterceptorInvocationContext(chain, options, name, parameterMetadatas, method, parsed.getArgs()) {
             @Override
-            protected Object doInvoke(final List<Object> parameters) {
-                rebuildDirtyBeans(options, parameters);
+            protected Object doInvoke(final List<Object> parameters, final OptionsMap options) {
+                if (options != null) {
+                    rebuildDirtyBeans(compiled, options, parameters);
+                }
                 return CmdMethod.this.doInvoke(parameters);
             }
         }.proceed();
     }
 
+    /**
+     * An unlinked command binds its chain per call.  Interceptor-declared
+     * options were never merged into the spec, so they join the layout here.
+     */
+    private Compiled compile(final List<InternalInterceptor> chain) {
+        final Map<String, OptionParam> declarations = new LinkedHashMap<>(spec.getOptions());
+        for (final InternalInterceptor interceptor : chain) {
+            if (interceptor.hasOptions()) {
+                interceptor.getSpec().getOptions().forEach(declarations::putIfAbsent);
+            }
+        }
+        return new Compiled(chain, declarations);
+    }
+
+    /**
+     * The interceptor chain of this command bound to its option layout:
+     * option names resolved to slots and each @Options bean parameter
+     * paired with the slots of its constituents.
+     */
+    private final class Compiled {
+        private final InternalInterceptor.Bound[] links;
+        private final OptionsMap.Layout layout;
+        private final int[] beanIndexes;
+        private final ComplexParam[] beans;
+        private final int[][] beanOptions;
+
+        private Compiled(final List<InternalInterceptor> chain, final Map<String, OptionParam> declarations) {
+            this.layout = new OptionsMap.Layout(declarations, optionSlots);
+            this.links = chain.stream()
+                    .map(interceptor -> interceptor.bind(layout))
+                    .toArray(InternalInterceptor.Bound[]::new);
+
+            this.beanIndexes = new int[beanSlots.size()];
+            this.beans = new ComplexParam[beanSlots.size()];
+            this.beanOptions = new int[beanSlots.size()][];
+
+            int i = 0;
+            for (final Map.Entry<Integer, ComplexParam> slot : beanSlots.entrySet()) {
+                beanIndexes[i] = slot.getKey();
+                beans[i] = slot.getValue();
+                beanOptions[i] = layout.indexesOf(slot.getValue().getOptionNames());
+                i++;
+            }
+        }
+    }
+
     /**
      * Assembles the option namespace of this invocation.  Options the
      * command method declares are live views over its parameter list;
      * everything else — interceptor-declared options and bean
      * constituents — is stored in the map itself.
      */
-    private OptionsMap buildOptionsMap(final List<InternalInterceptor> chain, final ParsedArgs parsed) {
-        final Set<String> provided = parsed.getProvided() != null ? parsed.getProvided() : new HashSet<>();
-        final OptionsMap options = new OptionsMap(spec.getOptions(), provided);
-
-        for (final Map.Entry<String, Integer> slot : optionSlots.entrySet()) {
-            options.addListSlot(slot.getKey(), parsed.getArgs(), slot.getValue());
+    private OptionsMap buildOptionsMap(final Compiled compiled, final ParsedArgs parsed) {
+        final OptionsMap.Layout layout = compiled.layout;
+        final OptionsMap options = new OptionsMap(layout, parsed.getArgs());
+
+        if (parsed.getProvided() != null) {
+            for (final String name : parsed.getProvided()) {
+                final int slot = layout.indexOf(name);
+                if (slot >= 0) {
+                    options.provided(slot);
+                }
+            }
         }
 
         if (parsed.getOptionValues() != null) {
-            for (final Map.Entry<String, Object> entry : parsed.getOptionValues().entrySet()) {
-                if (!optionSlots.containsKey(entry.getKey())) {
-                    options.addLocalSlot(entry.getKey(), entry.getValue());
+            for (int slot = 0; slot < layout.size(); slot++) {
+                if (!layout.isParameter(slot)) {
+                    options.init(slot, parsed.getOptionValues().get(layout.getName(slot)));
                 }
             }
             return options;
@@ -533,15 +630,17 @@ public class CmdMethod implements Cmd {
          * are no raw strings to convert.  Interceptor-declared options fall
          * back to their declared defaults.
          */
-        for (final InternalInterceptor interceptor : chain) {
+        for (final InternalInterceptor.Bound link : compiled.links) {
+            final InternalInterceptor interceptor = link.getInterceptor();
             if (!interceptor.hasOptions()) {
                 continue;
             }
             final Arguments defaults = new Arguments(defaultsFinder, interceptor.getSpec(), new String[0]);
             for (final Map.Entry<String, OptionParam> entry : interceptor.getSpec().getOptions().entrySet()) {
-                if (!options.containsKey(entry.getKey())) {
+                final int slot = layout.indexOf(entry.getKey());
+                if (slot >= 0 && !layout.isParameter(slot) && options.get(slot) == null) {
                     final Value value = fillOptionParameter(defaults, entry.getValue(), entry.getKey());
-                    options.addLocalSlot(entry.getKey(), value.getValue());
+                    options.init(slot, value.getValue());
                 }
             }
         }
@@ -554,16 +653,14 @@ public class CmdMethod implements Cmd {
      * final values.  Untouched beans keep their parse-time instance —
      * including one an interceptor put in the parameter list directly.
      */
-    private void rebuildDirtyBeans(final OptionsMap options, final List<Object> parameters) {
-        if (options.getDirty().isEmpty()) {
+    private void rebuildDirtyBeans(final Compiled compiled, final OptionsMap options, final List<Object> parameters) {
+        if (!options.isDirty()) {
             return;
         }
-        for (final Map.Entry<Integer, ComplexParam> slot : beanSlots.entrySet()) {
-            final ComplexParam bean = slot.getValue();
-            if (Collections.disjoint(options.getDirty(), bean.getOptionNames())) {
-                continue;
+        for (int i = 0; i < compiled.beans.length; i++) {
+            if (options.isDirty(compiled.beanOptions[i])) {
+                parameters.set(compiled.beanIndexes[i], compiled.beans[i].build(options::get, options::isProvided).getValue());
             }
-            parameters.set(slot.getKey(), bean.build(options::get, options::isProvided).getValue());
         }
     }
 
@@ -673,20 +770,36 @@ public class CmdMethod implements Cmd {
         return unmodifiableList(parameterMetadatas);
     }
 
+    private boolean isConstrained() {
+        Boolean constrained = this.constrained;
+        if (constrained == null) {
+            constrained = beanValidation != null && Constraints.isConstrained(method);
+            this.constrained = constrained;
+        }
+        return constrained;
+    }
+
     protected Object doInvoke(final List<Object> list) {
         final Object[] args;
         try {
             args = list.toArray();
-            if (beanValidation != null) {
-                beanValidation.validateParameters(target.getInstance(method), method, args);
+            if (isConstrained()) {
+                try (Span span = Trace.begin(Phase.VALIDATE, name, args.length)) {
+                    beanValidation.validateParameters(target.getInstance(method), method, args);
+                }
             }
+        } catch (final ValidatorUnavailableException e) {
+            throw e;
+        } catch (final TargetInstantiationException e) {
+            reportWithHelp(e.getCause());
+            throw e;
         } catch (final Exception e) {
             reportWithHelp(e);
             throw toRuntimeException(e);
         }
 
-        try {
-            return target.invoke(method, args);
+        try (Span span = Trace.begin(Phase.INVOKE, name, args.length)) {
+            return invoker != null ? invokeDirect(args) : target.invoke(method, args);
         } catch (final InvocationTargetException e) {
             final Throwable cause = e.getCause();
             final Exit exit = cause.getClass().getAnnotation(Exit.class);
@@ -694,11 +807,31 @@ public class CmdMethod implements Cmd {
                 reportWithHelp(cause);
             }
             throw new CommandFailedException(cause, getName());
+        } catch (final TargetInstantiationException e) {
+            /*
+             * Unconstrained commands no longer resolve the instance up front
+             * for validation, so report it here the same way, with help.
+             */
+            reportWithHelp(e.getCause());
+            throw e;
         } catch (final Throwable e) {
             throw toRuntimeException(e);
         }
     }
 
+    /**
+     * Exceptions thrown by the command are wrapped the way reflection
+     * would, so both paths report failures identically
+     */
+    private Object invokeDirect(final Object[] args) throws InvocationTargetException {
+        final Object instance = target.getInstance(method);
+        try {
+            return invoker.invoke(instance, args);
+        } catch (final Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+
     private void reportWithHelp(final Throwable e) {
         final PrintStream err = Environment.ENVIRONMENT_THREAD_LOCAL.get().getError();
         if (beanValidation == null) {
@@ -884,7 +1017,30 @@ public class CmdMethod implements Cmd {
     }
 
     public ParsedArgs parseArgs(final String... rawArgs) {
-        final Arguments args = new Arguments(defaultsFinder, spec, rawArgs);
+        /*
+         * Interceptors read the option namespace, which only the general
+         * parser builds, so the generated parser serves commands without any
+         */
+        if (invoker != null && interceptors.length == 0) {
+            try (Span span = Trace.begin(Phase.PARSE, name, rawArgs.length)) {
+                final Object[] parsed = invoker.parse(rawArgs);
+                if (parsed != null) {
+                    return new ParsedArgs(new ArrayList<>(Arrays.asList(parsed)), null, null);
+                }
+            }
+        }
+
+        final Arguments args;
+        try (Span span = Trace.begin(Phase.PARSE, name, rawArgs.length)) {
+            args = new Arguments(defaultsFinder, spec, rawArgs);
+        }
+
+        try (Span span = Trace.begin(Phase.CONVERT, name, rawArgs.length)) {
+            return convert(args);
+        }
+    }
+
+    private ParsedArgs convert(final Arguments args) {
 
         /*
          * Convert each declared option once, non-destructively, into the
@@ -1166,70 +1322,63 @@ public class CmdMethod implements Cmd {
 
     @Override
     public Collection<String> complete(final String buffer, final int cursorPosition) {
-        final List<String> result = new ArrayList<>();
         final String commandLine = buffer.substring(0, cursorPosition);
         final String[] args = CommandLine.translateCommandline(commandLine);
 
         if (args != null && args.length > 0) {
             final String lastArg = args[args.length - 1];
             if (lastArg.startsWith("--")) {
-                result.addAll(findMatchingOptions(lastArg.substring(2), false));
+                return completions().longOptions.startingWith(lastArg.substring(2));
             } else if (lastArg.startsWith("-")) {
-                result.addAll(findMatchingOptions(lastArg.substring(1), true));
+                return completions().allOptions.startingWith(lastArg.substring(1));
             }
         }
 
-        return result;
+        return Collections.emptyList();
     }
 
-    private Collection<String> findMatcingParametersOptions(String prefix, boolean isIncludeAliasChar) {
-        final List<String> result = new ArrayList<>();
-
-        /*
-         * The spec is the full option universe of the command: the method's
-         * own options plus @Options bean constituents plus options declared
-         * by interceptors bound to the command.  All of them complete.
-         */
-        for (final String optionParamName : spec.getOptions().keySet()) {
-            if (optionParamName.startsWith(prefix)) {
-                if (optionParamName.startsWith("-")) {
-                    result.add(optionParamName);
-                    continue;
-                }
-                if (optionParamName.length() > 1) {
-                    result.add("--" + optionParamName);
-                    continue;
-                }
-                if (isIncludeAliasChar) {
-                    result.add("-" + optionParamName);
-                }
-            }
+    private OptionCompletions completions() {
+        OptionCompletions completions = this.completions;
+        if (completions == null) {
+            completions = new OptionCompletions(spec);
+            this.completions = completions;
         }
-        return result;
+        return completions;
     }
 
-    private Collection<String> findMatchingAliasOptions(String prefix, boolean isIncludeAliasChar) {
-        final List<String> result = new ArrayList<>();
-        for (String alias : spec.getAliases().keySet()) {
-            if (alias.startsWith(prefix)) {
-                if (alias.startsWith("-")) {
-                    result.add(alias);
-                } else if (alias.length() > 1) {
-                    result.add("--" + alias);
-                }
-                if (isIncludeAliasChar && alias.length() == 1) {
-                    result.add("-" + alias);
+    /**
+     * The spec is the full option universe of the command: the method's
+     * own options plus @Options bean constituents plus options declared
+     * by interceptors bound to the command.  All of them complete, as do
+     * their aliases.  Single character names only complete after a
+     * single dash.
+     */
+    private static final class OptionCompletions {
+        private final PrefixTrie<String> longOptions;
+        private final PrefixTrie<String> allOptions;
+
+        private OptionCompletions(final Spec spec) {
+            final Map<String, String> longOptions = new HashMap<>();
+            final Map<String, String> allOptions = new HashMap<>();
+
+            final List<String> names = new ArrayList<>(spec.getOptions().keySet());
+            names.addAll(spec.getAliases().keySet());
+
+            for (final String name : names) {
+                if (name.startsWith("-")) {
+                    longOptions.put(name, name);
+                    allOptions.put(name, name);
+                } else if (name.length() > 1) {
+                    longOptions.put(name, "--" + name);
+                    allOptions.put(name, "--" + name);
+                } else {
+                    allOptions.put(name, "-" + name);
                 }
             }
-        }
-        return result;
-    }
 
-    private Collection<String> findMatchingOptions(String prefix, boolean isIncludeAliasChar) {
-        List<String> results = new ArrayList<>();
-        results.addAll(findMatcingParametersOptions(prefix, isIncludeAliasChar));
-        results.addAll(findMatchingAliasOptions(prefix, isIncludeAliasChar));
-        return results;
+            this.longOptions = PrefixTrie.of(longOptions);
+            this.allOptions = PrefixTrie.of(allOptions);
+        }
     }
 
     public static final class Value {
@@ -24,6 +24,7 @@ import org.tomitribe.crest.cmds.processors.OptionParam;
 import org.tomitribe.crest.cmds.processors.Param;
 import org.tomitribe.crest.environments.Environment;
 import org.tomitribe.crest.val.BeanValidationImpl;
+import org.tomitribe.crest.val.Constraints;
 import org.tomitribe.util.Join;
 import org.tomitribe.util.reflect.Parameter;
 import org.tomitribe.util.reflect.Reflection;
@@ -48,6 +49,12 @@ public class ComplexParam extends Param {
     private final BeanValidationImpl beanValidation;
     private final Spec spec;
 
+    /**
+     * Whether the bean constructor carries any constraint for bean
+     * validation to check; decided once when the spec is built
+     */
+    private final boolean constrained;
+
     public ComplexParam(final Spec spec, final BeanValidationImpl beanValidation, final String[] prefixes, final String globalDescription,
                         final Defaults.DefaultMapping[] defaults, final Parameter parent, final boolean nullable) {
         super(parent);
@@ -56,6 +63,7 @@ public class ComplexParam extends Param {
         this.constructor = selectConstructor(parent);
         this.parameters = Collections.unmodifiableList(spec.buildParams(beanValidation, globalDescription, prefixes, defaults, Reflection.params(constructor)));
         this.nullable = nullable;
+        this.constrained = beanValidation != null && Constraints.isConstrained(constructor);
     }
 
 
@@ -171,7 +179,7 @@ public class ComplexParam extends Param {
 
     private CmdMethod.Value instantiate(final Object[] args) {
         try {
-            if (beanValidation != null) {
+            if (constrained) {
                 beanValidation.validateParameters(constructor, args);
             }
             return new CmdMethod.Value(constructor.newInstance(args), true);
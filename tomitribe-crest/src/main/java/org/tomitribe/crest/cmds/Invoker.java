@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.cmds;
+
+/**
+ * Calls one command method without reflection.  Implementations are
+ * generated at build time by the invoker processor of
+ * tomitribe-crest-generator, one nested class per @Command method.
+ *
+ * CmdMethod uses an Invoker when one exists for its method and falls
+ * back to reflection otherwise.
+ */
+public interface Invoker {
+
+    /**
+     * Calls the command method directly.  Anything the method throws is
+     * thrown as-is rather than wrapped in an InvocationTargetException.
+     *
+     * @param instance the command instance, null for static methods
+     * @param args the converted arguments, in parameter order
+     */
+    Object invoke(Object instance, Object[] args) throws Throwable;
+
+    /**
+     * Parses and converts the command line arguments into the argument
+     * list of the method.  Returns null whenever the general parser is
+     * needed: aliases, short flags, unknown or repeated options, missing
+     * or excess arguments, values that do not convert, or a method whose
+     * parameters are not all plain options and arguments of simple types.
+     * The general parser then produces the same values or reports the
+     * error with help.
+     */
+    Object[] parse(String[] rawArgs);
+
+    /**
+     * Implemented by the class generated for each command class, named
+     * after the class with the {@link Invokers#SUFFIX} suffix.
+     */
+    interface Factory {
+
+        /**
+         * @param signature as built by {@link Invokers#signature}
+         * @return the invoker of that method or null
+         */
+        Invoker get(String signature);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.cmds;
+
+import java.lang.reflect.Method;
+
+/**
+ * Finds the generated {@link Invoker} of a command method.  The factory of
+ * a command class is looked up once, by name, and remembered; classes that
+ * were not compiled with the invoker processor simply have none.
+ *
+ * Generated invokers can be turned off with -Dcrest.invokers=false, in
+ * which case every command is parsed and invoked reflectively.
+ */
+public final class Invokers {
+
+    public static final String PROPERTY = "crest.invokers";
+
+    public static final String SUFFIX = "_CrestInvoker";
+
+    private static final ClassValue<Invoker.Factory> FACTORIES = new ClassValue<Invoker.Factory>() {
+        @Override
+        protected Invoker.Factory computeValue(final Class<?> type) {
+            return load(type);
+        }
+    };
+
+    private Invokers() {
+        // no-op
+    }
+
+    public static boolean isEnabled() {
+        return !"false".equals(System.getProperty(PROPERTY));
+    }
+
+    public static Invoker find(final Method method) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        final Invoker.Factory factory = FACTORIES.get(method.getDeclaringClass());
+        if (factory == null) {
+            return null;
+        }
+
+        return factory.get(signature(method));
+    }
+
+    /**
+     * The method name and its erased parameter types, for example
+     * {@code deploy(java.lang.String,int,java.lang.String[])}
+     */
+    public static String signature(final Method method) {
+        final StringBuilder sb = new StringBuilder(method.getName()).append('(');
+        final Class<?>[] types = method.getParameterTypes();
+        for (int i = 0; i < types.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(types[i].getTypeName());
+        }
+        return sb.append(')').toString();
+    }
+
+    private static Invoker.Factory load(final Class<?> type) {
+        final ClassLoader loader = type.getClassLoader();
+        if (loader == null) {
+            return null;
+        }
+
+        final Class<?> generated;
+        try {
+            generated = Class.forName(type.getName() + SUFFIX, true, loader);
+        } catch (final ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+
+        if (!Invoker.Factory.class.isAssignableFrom(generated)) {
+            return null;
+        }
+
+        try {
+            return (Invoker.Factory) generated.getConstructor().newInstance();
+        } catch (final ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
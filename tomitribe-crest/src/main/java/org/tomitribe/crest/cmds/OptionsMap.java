@@ -20,11 +20,16 @@ import org.tomitribe.util.Join;
 
 import java.util.AbstractMap;
 import java.util.AbstractSet;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
@@ -41,91 +46,94 @@ import java.util.Set;
  * The key set is fixed at the command's declared option names: values may
  * be replaced but entries cannot be added or removed.  Writes are type
  * checked against the option's declared type.
+ *
+ * Names are resolved to integer slots once per command, in its
+ * {@link Layout}; an invocation only holds the slot values and flags.
  */
 public class OptionsMap extends AbstractMap<String, Object> {
 
-    private final Map<String, OptionParam> declarations;
-    private final Map<String, Slot> slots = new LinkedHashMap<>();
-
-    /**
-     * Names supplied on the command line or written by an interceptor,
-     * i.e. not merely carrying their declared default
-     */
-    private final Set<String> provided;
+    private static final byte PROVIDED = 1;
 
     /**
-     * Names written after parsing.  Beans derived from these constituents
+     * Written after parsing.  Beans derived from such constituents
      * are rebuilt before their receiver sees them.
      */
-    private final Set<String> dirty = new HashSet<>();
+    private static final byte DIRTY = 2;
 
-    public OptionsMap(final Map<String, OptionParam> declarations, final Set<String> provided) {
-        this.declarations = declarations;
-        this.provided = provided;
+    private final Layout layout;
+    private final List<Object> parameters;
+    private final Object[] locals;
+    private final byte[] flags;
+    private boolean dirty;
+
+    public OptionsMap(final Layout layout, final List<Object> parameters) {
+        this.layout = layout;
+        this.parameters = parameters;
+        this.locals = new Object[layout.size()];
+        this.flags = new byte[layout.size()];
     }
 
-    void addListSlot(final String name, final List<Object> parameters, final int index) {
-        slots.put(name, new Slot() {
-            @Override
-            public Object get() {
-                return parameters.get(index);
-            }
+    /**
+     * Stores the initial value of a slot the parameter list does not back
+     */
+    void init(final int slot, final Object value) {
+        locals[slot] = value;
+    }
 
-            @Override
-            public void set(final Object value) {
-                parameters.set(index, value);
-            }
-        });
+    void provided(final int slot) {
+        flags[slot] |= PROVIDED;
     }
 
-    void addLocalSlot(final String name, final Object initial) {
-        slots.put(name, new Slot() {
-            private Object value = initial;
+    public Layout getLayout() {
+        return layout;
+    }
 
-            @Override
-            public Object get() {
-                return value;
-            }
+    public Object get(final int slot) {
+        final int parameter = layout.parameterIndexes[slot];
+        return parameter < 0 ? locals[slot] : parameters.get(parameter);
+    }
 
-            @Override
-            public void set(final Object value) {
-                this.value = value;
-            }
-        });
+    private void set(final int slot, final Object value) {
+        final int parameter = layout.parameterIndexes[slot];
+        if (parameter < 0) {
+            locals[slot] = value;
+        } else {
+            parameters.set(parameter, value);
+        }
     }
 
     @Override
     public Object get(final Object key) {
-        final Slot slot = slots.get(key);
-        return slot == null ? null : slot.get();
+        final int slot = layout.indexOf(key);
+        return slot < 0 ? null : get(slot);
     }
 
     @Override
     public boolean containsKey(final Object key) {
-        return slots.containsKey(key);
+        return layout.indexOf(key) >= 0;
     }
 
     @Override
     public Object put(final String name, final Object value) {
-        final Slot slot = slots.get(name);
+        final int slot = layout.indexOf(name);
 
-        if (slot == null) {
+        if (slot < 0) {
             throw new IllegalArgumentException(String.format("No such option \"%s\".  The options of this" +
                     " command are: %s.  Option entries may be replaced but not added or removed", name,
-                    Join.join(", ", slots.keySet())));
+                    Join.join(", ", Arrays.asList(layout.names))));
         }
 
-        final OptionParam declaration = declarations.get(name);
+        final OptionParam declaration = layout.declarations[slot];
         if (value != null && declaration != null && !boxed(declaration.getType()).isInstance(value)) {
             throw new IllegalArgumentException(String.format("Option \"%s\" is declared as %s and cannot" +
                     " be set to an instance of %s.  Pass a %s", name, declaration.getType().getName(),
                     value.getClass().getName(), declaration.getType().getSimpleName()));
         }
 
-        final Object previous = slot.get();
-        slot.set(value);
-        provided.add(name);
-        dirty.add(name);
+        final Object previous = get(slot);
+        set(slot, value);
+        flags[slot] |= PROVIDED | DIRTY;
+        dirty = true;
         return previous;
     }
 
@@ -143,42 +151,80 @@ public class OptionsMap extends AbstractMap<String, Object> {
     }
 
     public boolean isProvided(final String name) {
-        return provided.contains(name);
+        final int slot = layout.indexOf(name);
+        return slot >= 0 && (flags[slot] & PROVIDED) != 0;
     }
 
-    public Set<String> getDirty() {
+    /**
+     * True once any entry was written after parsing
+     */
+    public boolean isDirty() {
         return dirty;
     }
 
+    /**
+     * True if any of the given slots was written after parsing
+     */
+    public boolean isDirty(final int[] slots) {
+        if (!dirty) {
+            return false;
+        }
+        for (final int slot : slots) {
+            if ((flags[slot] & DIRTY) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Set<String> getDirty() {
+        final Set<String> names = new LinkedHashSet<>();
+        for (int i = 0; i < flags.length; i++) {
+            if ((flags[i] & DIRTY) != 0) {
+                names.add(layout.names[i]);
+            }
+        }
+        return names;
+    }
+
+    @Override
+    public int size() {
+        return layout.size();
+    }
+
     @Override
     public Set<Entry<String, Object>> entrySet() {
         return new AbstractSet<Entry<String, Object>>() {
             @Override
             public Iterator<Entry<String, Object>> iterator() {
-                final Iterator<Map.Entry<String, Slot>> iterator = slots.entrySet().iterator();
                 return new Iterator<Entry<String, Object>>() {
+                    private int next;
+
                     @Override
                     public boolean hasNext() {
-                        return iterator.hasNext();
+                        return next < layout.size();
                     }
 
                     @Override
                     public Entry<String, Object> next() {
-                        final Map.Entry<String, Slot> entry = iterator.next();
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        final int slot = next++;
                         return new Entry<String, Object>() {
                             @Override
                             public String getKey() {
-                                return entry.getKey();
+                                return layout.names[slot];
                             }
 
                             @Override
                             public Object getValue() {
-                                return entry.getValue().get();
+                                return get(slot);
                             }
 
                             @Override
                             public Object setValue(final Object value) {
-                                return put(entry.getKey(), value);
+                                return put(layout.names[slot], value);
                             }
                         };
                     }
@@ -187,14 +233,82 @@ public class OptionsMap extends AbstractMap<String, Object> {
 
             @Override
             public int size() {
-                return slots.size();
+                return layout.size();
             }
         };
     }
 
-    private interface Slot {
-        Object get();
+    /**
+     * The option namespace of one command, fixed at link time: every option
+     * name mapped to a slot, the slot's declaration, and for options the
+     * command method declares, the index of the backing parameter.
+     */
+    public static final class Layout {
+        private final String[] names;
+        private final OptionParam[] declarations;
+        private final int[] parameterIndexes;
+        private final Map<String, Integer> indexes;
 
-        void set(Object value);
+        /**
+         * @param declarations every option of the command, interceptor-declared
+         *                     options and bean constituents included
+         * @param parameterSlots the parameter list index of each option the
+         *                       command method declares directly
+         */
+        public Layout(final Map<String, OptionParam> declarations, final Map<String, Integer> parameterSlots) {
+            final List<String> names = new ArrayList<>(parameterSlots.keySet());
+            for (final String name : declarations.keySet()) {
+                if (!parameterSlots.containsKey(name)) {
+                    names.add(name);
+                }
+            }
+
+            this.names = names.toArray(new String[0]);
+            this.declarations = new OptionParam[this.names.length];
+            this.parameterIndexes = new int[this.names.length];
+
+            final Map<String, Integer> indexes = new HashMap<>();
+            for (int i = 0; i < this.names.length; i++) {
+                final String name = this.names[i];
+                final Integer parameter = parameterSlots.get(name);
+                this.declarations[i] = declarations.get(name);
+                this.parameterIndexes[i] = parameter == null ? -1 : parameter;
+                indexes.put(name, i);
+            }
+            this.indexes = Collections.unmodifiableMap(indexes);
+        }
+
+        public int size() {
+            return names.length;
+        }
+
+        /**
+         * The slot of the named option, or -1 if the command has no such option
+         */
+        public int indexOf(final Object name) {
+            final Integer index = indexes.get(name);
+            return index == null ? -1 : index;
+        }
+
+        public int[] indexesOf(final Collection<String> names) {
+            final int[] slots = new int[names.size()];
+            int i = 0;
+            for (final String name : names) {
+                slots[i++] = indexOf(name);
+            }
+            return Arrays.stream(slots).filter(slot -> slot >= 0).toArray();
+        }
+
+        public String getName(final int slot) {
+            return names[slot];
+        }
+
+        public OptionParam getDeclaration(final int slot) {
+            return declarations[slot];
+        }
+
+        public boolean isParameter(final int slot) {
+            return parameterIndexes[slot] >= 0;
+        }
     }
 }
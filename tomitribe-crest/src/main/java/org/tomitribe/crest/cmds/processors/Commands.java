@@ -25,6 +25,7 @@ import org.tomitribe.crest.cmds.targets.Target;
 import org.tomitribe.crest.contexts.DefaultsContext;
 import org.tomitribe.crest.contexts.SystemPropertiesDefaultsContext;
 import org.tomitribe.crest.environments.Environment;
+import org.tomitribe.crest.trace.Startup;
 import org.tomitribe.crest.val.BeanValidationImpl;
 import org.tomitribe.util.Strings;
 import org.tomitribe.util.collect.FilteredIterable;
@@ -147,6 +148,12 @@ public class Commands {
     }
 
     public static Iterable<Class<?>> load() {
+        try (Startup.Step step = Startup.begin("load", null)) {
+            return loadClasses();
+        }
+    }
+
+    private static Iterable<Class<?>> loadClasses() {
         ClassLoader loader = Thread.currentThread().getContextClassLoader();
         if (loader == null) {
             loader = ClassLoader.getSystemClassLoader();
@@ -177,7 +184,8 @@ public class Commands {
                 final boolean done = urls.hasMoreElements();
                 while (urls.hasMoreElements()) {
                     final URL url = urls.nextElement();
-                    try (InputStream stream = url.openStream();
+                    try (Startup.Step step = Startup.begin("crest-commands", url);
+                         InputStream stream = url.openStream();
                          BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
                         String line;
                         while ((line = reader.readLine()) != null) {
@@ -217,8 +225,12 @@ public class Commands {
 
     private static void addAll(final LinkedHashSet<Class<?>> classes, final Iterator<? extends Iterable<Class<?>>> all) {
         while (all.hasNext()) {
-            for (final Class<?> clazz : all.next()) {
-                classes.add(clazz);
+            try (Startup.Step step = Startup.begin("loader", null)) {
+                final Iterable<Class<?>> loader = all.next();
+                step.detail(loader.getClass().getName());
+                for (final Class<?> clazz : loader) {
+                    classes.add(clazz);
+                }
             }
         }
     }
@@ -48,7 +48,11 @@ public class SimpleBean implements Target {
         }
 
         final Class<?> declaringClass = method.getDeclaringClass();
-        return newInstance(declaringClass);
+        try {
+            return newInstance(declaringClass);
+        } catch (final IllegalArgumentException e) {
+            throw new TargetInstantiationException(e);
+        }
     }
 
     public Object newInstance(final Class<?> declaringClass) {
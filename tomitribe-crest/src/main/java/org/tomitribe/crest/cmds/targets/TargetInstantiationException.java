@@ -0,0 +1,31 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.cmds.targets;
+
+/**
+ * The target could not produce the instance to invoke a command on.
+ *
+ * This is a usage problem rather than a bug in the command, so it is
+ * reported with help like an invalid argument, using the exception
+ * this wraps.  Any other exception thrown while invoking the command,
+ * such as a mismatch Method.invoke rejects, is left alone.
+ */
+public class TargetInstantiationException extends IllegalArgumentException {
+    public TargetInstantiationException(final IllegalArgumentException cause) {
+        super(cause.getMessage(), cause);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.cmds.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable prefix trie used to answer tab completion.
+ *
+ * The keys are held sorted and every node of the trie covers the
+ * contiguous range of keys that share its prefix.  A lookup walks one
+ * node per character of the prefix and returns a view of that range,
+ * so the candidates come back already sorted and nothing is copied or
+ * compared against the keys that do not match.
+ */
+public final class PrefixTrie<V> {
+
+    private static final PrefixTrie<?> EMPTY = new PrefixTrie<>(Collections.emptyMap());
+
+    private final String[] keys;
+    private final List<V> values;
+    private final Node root;
+
+    @SuppressWarnings("unchecked")
+    private PrefixTrie(final Map<String, V> entries) {
+        final TreeMap<String, V> sorted = new TreeMap<>(entries);
+        this.keys = sorted.keySet().toArray(new String[0]);
+        this.values = Collections.unmodifiableList(Arrays.asList(sorted.values().toArray((V[]) new Object[0])));
+        this.root = build(keys, 0, keys.length, 0);
+    }
+
+    public static <V> PrefixTrie<V> of(final Map<String, V> entries) {
+        if (entries.isEmpty()) return empty();
+        return new PrefixTrie<>(entries);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PrefixTrie<V> empty() {
+        return (PrefixTrie<V>) EMPTY;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * The value of the exact key or null
+     */
+    public V get(final String key) {
+        final Node node = find(key);
+        if (node == null || node.from == node.to || keys[node.from].length() != key.length()) {
+            return null;
+        }
+        return values.get(node.from);
+    }
+
+    /**
+     * The values of all keys starting with the prefix, in key order
+     */
+    public List<V> startingWith(final String prefix) {
+        final Node node = find(prefix);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        return values.subList(node.from, node.to);
+    }
+
+    private Node find(final String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        return node;
+    }
+
+    private static Node build(final String[] keys, final int from, final int to, final int depth) {
+        int start = from;
+
+        // the sorted order puts the key ending at this node first
+        if (start < to && keys[start].length() == depth) {
+            start++;
+        }
+
+        int runs = 0;
+        for (int i = start; i < to; i++) {
+            if (i == start || keys[i].charAt(depth) != keys[i - 1].charAt(depth)) {
+                runs++;
+            }
+        }
+
+        final char[] labels = new char[runs];
+        final Node[] children = new Node[runs];
+
+        int run = 0;
+        int i = start;
+        while (i < to) {
+            final char c = keys[i].charAt(depth);
+            int end = i + 1;
+            while (end < to && keys[end].charAt(depth) == c) {
+                end++;
+            }
+            labels[run] = c;
+            children[run] = build(keys, i, end, depth + 1);
+            run++;
+            i = end;
+        }
+
+        return new Node(labels, children, from, to);
+    }
+
+    private static final class Node {
+        private final char[] labels;
+        private final Node[] children;
+        private final int from;
+        private final int to;
+
+        private Node(final char[] labels, final Node[] children, final int from, final int to) {
+            this.labels = labels;
+            this.children = children;
+            this.from = from;
+            this.to = to;
+        }
+
+        private Node child(final char c) {
+            final int index = Arrays.binarySearch(labels, c);
+            return index < 0 ? null : children[index];
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.environments;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A large buffer in front of stdout.
+ *
+ * Bytes are copied into the buffer and written on in one call when
+ * the buffer is full, when flush() is called, or by a timer
+ * flushInterval after the first bytes went into an empty buffer, so
+ * output written before the command goes quiet still shows up.  Main
+ * flushes when a command ends and before exiting, and the interactive
+ * CLI flushes before showing its prompt.
+ *
+ * The lock is only contended when the timer flushes while a command
+ * writes.
+ */
+final class BufferedSink extends OutputStream {
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private final long flushInterval;
+    private int count;
+    private ScheduledFuture<?> timed;
+
+    /**
+     * @param flushInterval nanoseconds, zero or less to flush only when full or asked
+     */
+    BufferedSink(final OutputStream out, final int size, final long flushInterval) {
+        this.out = out;
+        this.buffer = new byte[size];
+        this.flushInterval = flushInterval;
+    }
+
+    @Override
+    public synchronized void write(final int b) throws IOException {
+        if (count == buffer.length) drain();
+        buffer[count++] = (byte) b;
+        schedule();
+    }
+
+    @Override
+    public synchronized void write(final byte[] bytes, final int offset, final int length) throws IOException {
+        if (length >= buffer.length) {
+            // Too big to buffer, don't copy it
+            drain();
+            out.write(bytes, offset, length);
+            return;
+        }
+
+        if (length > buffer.length - count) drain();
+
+        System.arraycopy(bytes, offset, buffer, count, length);
+        count += length;
+        schedule();
+    }
+
+    private void schedule() {
+        if (flushInterval > 0 && timed == null && count > 0) {
+            timed = Threads.timer().schedule(this::timed, flushInterval, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private synchronized void timed() {
+        timed = null;
+        try {
+            flush();
+        } catch (final IOException e) {
+            // the next write or flush will see it
+        }
+    }
+
+    private void drain() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (timed != null) {
+            timed.cancel(false);
+            timed = null;
+        }
+        drain();
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.environments;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ExecutorService commands get when they declare one as a parameter.
+ *
+ * Every task runs with the Environment of the thread that submitted it,
+ * so a task can print to the command's output, find services and read
+ * global options.  By default each task gets its own virtual thread where
+ * the JVM has them.  Given a number of threads, tasks instead run on a
+ * fixed pool of platform threads and wait in a queue for a free one.
+ *
+ * No thread is started until the first task is submitted.  The executor
+ * is shut down with the Main or CrestCli that created it, so commands
+ * must not shut it down themselves.
+ */
+public class CommandExecutor extends AbstractExecutorService {
+
+    private final int threads;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private volatile ExecutorService delegate;
+    private volatile boolean shutdown;
+
+    public CommandExecutor() {
+        this(0);
+    }
+
+    /**
+     * @param threads the size of a fixed pool of platform threads,
+     *                or zero for a new thread per task
+     */
+    public CommandExecutor(final int threads) {
+        if (threads < 0) throw new IllegalArgumentException("Threads must not be negative: " + threads);
+        this.threads = threads;
+    }
+
+    /**
+     * Only the first task takes the lock
+     */
+    private ExecutorService delegate() {
+        ExecutorService executor = delegate;
+        if (executor != null) return executor;
+
+        synchronized (this) {
+            executor = delegate;
+            if (executor == null) {
+                if (shutdown) throw new RejectedExecutionException("Executor is shut down");
+                executor = threads > 0
+                        ? Executors.newFixedThreadPool(threads, Threads.platformFactory("crest-task"))
+                        : Threads.newPerTaskExecutor("crest-task");
+                delegate = executor;
+            }
+            return executor;
+        }
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        final Task task = new Task(Environment.propagate(command));
+
+        queued.incrementAndGet();
+        try {
+            delegate().execute(task);
+        } catch (final RuntimeException e) {
+            task.dequeue();
+            throw e;
+        }
+    }
+
+    /**
+     * Tasks submitted but not yet started
+     */
+    public int getQueueSize() {
+        return queued.get();
+    }
+
+    /**
+     * Tasks running now
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    /**
+     * Tasks that have finished, normally or not
+     */
+    public long getCompletedTaskCount() {
+        return completed.get();
+    }
+
+    /**
+     * The size of the platform thread pool, or zero
+     * when each task gets a new thread
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        shutdown = true;
+        if (delegate != null) delegate.shutdown();
+    }
+
+    /**
+     * The tasks that never started are no longer counted as queued
+     */
+    @Override
+    public synchronized List<Runnable> shutdownNow() {
+        shutdown = true;
+        if (delegate == null) return Collections.emptyList();
+
+        final List<Runnable> drained = delegate.shutdownNow();
+        for (final Runnable runnable : drained) {
+            if (runnable instanceof Task) ((Task) runnable).dequeue();
+        }
+        return drained;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        final ExecutorService executor;
+        synchronized (this) {
+            if (!shutdown) return false;
+            if (delegate == null) return true;
+            executor = delegate;
+        }
+        return executor.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final ExecutorService executor;
+        synchronized (this) {
+            if (delegate == null) return shutdown;
+            executor = delegate;
+        }
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Leaves the queue once, whether it is run or drained by shutdownNow()
+     */
+    private class Task implements Runnable {
+        private final Runnable task;
+        private final AtomicBoolean dequeued = new AtomicBoolean();
+
+        Task(final Runnable task) {
+            this.task = task;
+        }
+
+        void dequeue() {
+            if (dequeued.compareAndSet(false, true)) queued.decrementAndGet();
+        }
+
+        @Override
+        public void run() {
+            dequeue();
+            active.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                active.decrementAndGet();
+                completed.incrementAndGet();
+            }
+        }
+    }
+}
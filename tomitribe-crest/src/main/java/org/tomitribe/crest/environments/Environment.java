@@ -18,12 +18,20 @@ package org.tomitribe.crest.environments;
 
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
 
 public interface Environment {
 
+    /**
+     * Not inheritable, as threads created lazily while a command runs,
+     * such as those of a shared pool, would keep its Environment long
+     * after it is done.  Main sets it on the thread running the command,
+     * and tasks handed to other threads can be wrapped with propagate().
+     */
     ThreadLocal<Environment> ENVIRONMENT_THREAD_LOCAL = new ThreadLocal<Environment>() {
         @Override
         protected Environment initialValue() {
@@ -41,8 +49,49 @@ public interface Environment {
         return old;
     }
 
+    /**
+     * Runs the task with the Environment of the calling thread,
+     * whichever thread ends up running it
+     */
+    static Runnable propagate(final Runnable task) {
+        final Environment environment = get();
+        return () -> {
+            final Environment old = set(environment);
+            try {
+                task.run();
+            } finally {
+                set(old);
+            }
+        };
+    }
+
+    /**
+     * @see #propagate(Runnable)
+     */
+    static <T> Callable<T> propagate(final Callable<T> task) {
+        final Environment environment = get();
+        return () -> {
+            final Environment old = set(environment);
+            try {
+                return task.call();
+            } finally {
+                set(old);
+            }
+        };
+    }
+
     PrintStream getOutput();
 
+    /**
+     * The file or pipe behind getOutput(), when there is one, so file
+     * and channel results can be transferred without copying them
+     * through the PrintStream.  Null when output is not known to go
+     * straight to a file descriptor.
+     */
+    default WritableByteChannel getOutputChannel() {
+        return null;
+    }
+
     PrintStream getError();
 
     InputStream getInput();
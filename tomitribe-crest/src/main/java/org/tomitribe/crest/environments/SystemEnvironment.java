@@ -20,17 +20,31 @@ package org.tomitribe.crest.environments;
 import org.tomitribe.crest.val.BeanValidation;
 import org.tomitribe.crest.val.BeanValidationImpl;
 
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 
 public class SystemEnvironment implements Environment {
+
+    /**
+     * Never closed, closing it would close the process' stdout
+     */
+    private static final WritableByteChannel STDOUT = new FileOutputStream(FileDescriptor.out).getChannel();
+
     private final Map<Class<?>, Object> services;
     private final PrintStream out;
+    private final WritableByteChannel outputChannel;
     private final PrintStream err;
     private final InputStream in;
     private final Properties properties;
@@ -47,8 +61,18 @@ public class SystemEnvironment implements Environment {
                                 final PrintStream err,
                                 final InputStream in,
                                 final Properties properties, final String name, final String version) {
+        this(services, out, null, err, in, properties, name, version);
+    }
+
+    protected SystemEnvironment(final Map<Class<?>, Object> services,
+                                final PrintStream out,
+                                final WritableByteChannel outputChannel,
+                                final PrintStream err,
+                                final InputStream in,
+                                final Properties properties, final String name, final String version) {
         this.services = new HashMap<>(services);
         this.out = out;
+        this.outputChannel = outputChannel;
         this.err = err;
         this.in = in;
         this.properties = properties;
@@ -76,6 +100,11 @@ public class SystemEnvironment implements Environment {
         return out;
     }
 
+    @Override
+    public WritableByteChannel getOutputChannel() {
+        return outputChannel;
+    }
+
     @Override
     public PrintStream getError() {
         return err;
@@ -108,6 +137,7 @@ public class SystemEnvironment implements Environment {
 
     protected void init() {
         services.put(BeanValidationImpl.class, BeanValidation.create(this::findService));
+        services.putIfAbsent(ExecutorService.class, new CommandExecutor());
     }
 
     public static Builder builder() {
@@ -119,9 +149,12 @@ public class SystemEnvironment implements Environment {
         private String version;
         private Map<Class<?>, Object> services = new HashMap<>();
         private PrintStream out;
+        private WritableByteChannel outputChannel;
         private PrintStream err;
         private InputStream in;
         private Properties properties;
+        private int bufferSize;
+        private Duration flushInterval;
 
         private Builder() {
         }
@@ -137,11 +170,42 @@ public class SystemEnvironment implements Environment {
             return this;
         }
 
+        /**
+         * Runs the tasks of an injected ExecutorService on a fixed pool
+         * of platform threads, instead of a new thread for each task.
+         *
+         * @see CommandExecutor
+         */
+        public Builder threads(final int threads) {
+            this.services.put(ExecutorService.class, new CommandExecutor(threads));
+            return this;
+        }
+
         public Builder out(PrintStream out) {
             this.out = out;
             return this;
         }
 
+        /**
+         * Declares that output goes to the process' stdout, whatever file
+         * or pipe that is.  Channel and ByteBuffer results are then
+         * transferred to it directly, after anything written to the
+         * PrintStream.
+         */
+        public Builder stdout() {
+            this.outputChannel = STDOUT;
+            return this;
+        }
+
+        /**
+         * The channel that channel and ByteBuffer results are transferred to,
+         * which must be where the output PrintStream writes as well.
+         */
+        public Builder outputChannel(final WritableByteChannel outputChannel) {
+            this.outputChannel = outputChannel;
+            return this;
+        }
+
         public Builder name(String name) {
             this.name = name;
             return this;
@@ -167,8 +231,62 @@ public class SystemEnvironment implements Environment {
             return this;
         }
 
+        /**
+         * Puts a 64k buffer in front of the output stream, written out
+         * at most 100 milliseconds after it was written to.
+         *
+         * @see #buffered(int, Duration)
+         */
+        public Builder buffered() {
+            return buffered(64 * 1024, Duration.ofMillis(100));
+        }
+
+        /**
+         * Puts a buffer of the given size in front of the output stream,
+         * so commands that print many lines do not pay for a write and a
+         * flush on every println.  The error stream is left unbuffered,
+         * so messages are never held back.
+         *
+         * Buffered output is written when the buffer is full, when the
+         * flush interval has passed since it was written, when a command
+         * ends and before the interactive prompt is shown.  A zero
+         * interval means only those last three.
+         */
+        public Builder buffered(final int size, final Duration flushInterval) {
+            if (size <= 0) throw new IllegalArgumentException("Buffer size must be greater than zero: " + size);
+            this.bufferSize = size;
+            this.flushInterval = flushInterval;
+            return this;
+        }
+
         public SystemEnvironment build() {
-            return new SystemEnvironment(services, out, err, in, properties, name, version);
+            if (bufferSize > 0) {
+                final PrintStream out = buffer(this.out != null ? this.out : System.out);
+                return new SystemEnvironment(services, out, outputChannel, err, in, properties, name, version);
+            }
+            return new SystemEnvironment(services, out, outputChannel, err, in, properties, name, version);
+        }
+
+        private PrintStream buffer(final PrintStream stream) {
+            final long interval = flushInterval == null ? 0 : flushInterval.toNanos();
+            try {
+                return new PrintStream(new BufferedSink(stream, bufferSize, interval), false, charset(stream).name());
+            } catch (final UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * The charset the stream encodes characters with, so a stream
+     * wrapping it can encode the same way.  PrintStream only tells since
+     * Java 18; before that it is the default charset.
+     */
+    public static Charset charset(final PrintStream stream) {
+        try {
+            return (Charset) PrintStream.class.getMethod("charset").invoke(stream);
+        } catch (final Exception e) {
+            return Charset.defaultCharset();
         }
     }
 }
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.environments;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Virtual threads where the JVM has them, daemon platform threads where
+ * it does not.  Crest is built for Java 8, so virtual threads are only
+ * reached through reflection.
+ */
+public final class Threads {
+
+    private static final ThreadFactory VIRTUAL = virtualThreadFactory();
+
+    private static volatile ScheduledExecutorService timer;
+
+    private Threads() {
+        // no-op
+    }
+
+    public static boolean hasVirtualThreads() {
+        return VIRTUAL != null;
+    }
+
+    /**
+     * A factory of virtual threads, or of daemon platform threads
+     * named with the given prefix when virtual threads are not available
+     */
+    public static ThreadFactory factory(final String prefix) {
+        if (VIRTUAL != null) return VIRTUAL;
+        return platformFactory(prefix);
+    }
+
+    /**
+     * A factory of daemon platform threads named with the given prefix
+     */
+    public static ThreadFactory platformFactory(final String prefix) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * One new virtual thread per task, or a cached pool of
+     * daemon platform threads when virtual threads are not available
+     */
+    public static ExecutorService newPerTaskExecutor(final String prefix) {
+        if (VIRTUAL != null) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                        .invoke(null, VIRTUAL);
+            } catch (final Exception e) {
+                throw new IllegalStateException("Cannot create a virtual thread executor", e);
+            }
+        }
+        return Executors.newCachedThreadPool(factory(prefix));
+    }
+
+    /**
+     * One daemon thread shared for short delayed tasks, such as flushing
+     * output a slow producer left in a buffer.  Cancelled tasks are
+     * removed at once, so scheduling and cancelling one per write is cheap.
+     */
+    public static ScheduledExecutorService timer() {
+        ScheduledExecutorService scheduler = timer;
+        if (scheduler == null) {
+            synchronized (Threads.class) {
+                scheduler = timer;
+                if (scheduler == null) {
+                    final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, platformFactory("crest-timer"));
+                    executor.setRemoveOnCancelPolicy(true);
+                    scheduler = executor;
+                    timer = scheduler;
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (final Exception e) {
+            // Before Java 21
+            return null;
+        }
+    }
+}
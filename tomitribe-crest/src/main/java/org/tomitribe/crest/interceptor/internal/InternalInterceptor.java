@@ -77,6 +77,12 @@ public class InternalInterceptor {
      */
     private final List<Param> injectableParams;
 
+    /**
+     * How each injectable parameter is supplied, decided once here so a
+     * call does no annotation or type inspection
+     */
+    private final Kind[] kinds;
+
     private final int contextIndex;
     private final int parameterCount;
 
@@ -162,37 +168,101 @@ public class InternalInterceptor {
         this.contextIndex = contextIndex;
         this.parameterCount = params.size();
         this.injectableParams = Collections.unmodifiableList(injectableParams);
+        this.kinds = injectableParams.stream().map(Kind::of).toArray(Kind[]::new);
+    }
+
+    private String getOptionName(final int injectable) {
+        final Param param = injectableParams.get(injectable);
+        return param instanceof OptionParam ? ((OptionParam) param).getName() : null;
+    }
+
+    private Object materialize(final int injectable, final OptionsMap options, final int slot, final Environment environment) {
+        final Param param = injectableParams.get(injectable);
+        switch (kinds[injectable]) {
+            case OPTION:
+                return slot < 0 ? null : options.get(slot);
+            case BEAN:
+                return ((ComplexParam) param).build(options::get, options::isProvided).getValue();
+            case IN:
+                return environment.getInput();
+            case OUT:
+                return environment.getOutput();
+            case ERR:
+                return environment.getError();
+            case ENVIRONMENT:
+                return environment;
+            default:
+                return environment.findService(param.getType());
+        }
     }
 
     /**
-     * Builds this interceptor's arguments — minus the CrestContext — from
-     * the invocation's option values as they stand right now, plus the
-     * injected parameters read from the Environment.  Called at the
-     * interceptor's turn in the chain, so it sees every replacement made
-     * by interceptors that ran before it.
+     * Resolves the option parameters of this interceptor against the option
+     * layout of one command.  Done once per command at link time so a call
+     * reads option values by slot.
      */
-    public Object[] materializeArguments(final OptionsMap options) {
-        final Object[] values = new Object[injectableParams.size()];
-        final Environment environment = Environment.ENVIRONMENT_THREAD_LOCAL.get();
-        for (int i = 0; i < injectableParams.size(); i++) {
-            final Param param = injectableParams.get(i);
-            if (param instanceof OptionParam) {
-                values[i] = options.get(((OptionParam) param).getName());
-            } else if (param instanceof ComplexParam) {
-                values[i] = ((ComplexParam) param).build(options::get, options::isProvided).getValue();
-            } else if (param.isAnnotationPresent(In.class)) {
-                values[i] = environment.getInput();
-            } else if (param.isAnnotationPresent(Out.class)) {
-                values[i] = environment.getOutput();
-            } else if (param.isAnnotationPresent(Err.class)) {
-                values[i] = environment.getError();
-            } else if (Environment.class.isAssignableFrom(param.getType())) {
-                values[i] = environment;
-            } else {
-                values[i] = environment.findService(param.getType());
+    public Bound bind(final OptionsMap.Layout layout) {
+        return new Bound(layout);
+    }
+
+    /**
+     * This interceptor as bound into the chain of one command
+     */
+    public final class Bound {
+        private final int[] slots;
+        private final boolean options;
+
+        private Bound(final OptionsMap.Layout layout) {
+            this.slots = new int[injectableParams.size()];
+
+            boolean options = false;
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = kinds[i] == Kind.OPTION ? layout.indexOf(getOptionName(i)) : -1;
+                options |= kinds[i] == Kind.OPTION || kinds[i] == Kind.BEAN;
             }
+            this.options = options;
+        }
+
+        public InternalInterceptor getInterceptor() {
+            return InternalInterceptor.this;
+        }
+
+        /**
+         * Invokes the interceptor with its arguments built straight into the
+         * one array the reflective call needs.  The option namespace is only
+         * consulted, and so only created, when the interceptor declares options.
+         */
+        public Object intercept(final InternalInterceptorInvocationContext context) {
+            final Object[] args = new Object[parameterCount];
+            final OptionsMap optionsMap = options ? context.getOptions() : null;
+            final Environment environment = slots.length > 0 ? Environment.ENVIRONMENT_THREAD_LOCAL.get() : null;
+
+            int injectable = 0;
+            for (int i = 0; i < parameterCount; i++) {
+                if (i == contextIndex) {
+                    args[i] = context;
+                } else {
+                    args[i] = materialize(injectable, optionsMap, slots[injectable], environment);
+                    injectable++;
+                }
+            }
+
+            return invoke(args);
+        }
+    }
+
+    private enum Kind {
+        OPTION, BEAN, IN, OUT, ERR, ENVIRONMENT, SERVICE;
+
+        static Kind of(final Param param) {
+            if (param instanceof OptionParam) return OPTION;
+            if (param instanceof ComplexParam) return BEAN;
+            if (param.isAnnotationPresent(In.class)) return IN;
+            if (param.isAnnotationPresent(Out.class)) return OUT;
+            if (param.isAnnotationPresent(Err.class)) return ERR;
+            if (Environment.class.isAssignableFrom(param.getType())) return ENVIRONMENT;
+            return SERVICE;
         }
-        return values;
     }
 
     /**
@@ -229,6 +299,10 @@ public class InternalInterceptor {
             args[i] = i == contextIndex ? crestContext : options[option++];
         }
 
+        return invoke(args);
+    }
+
+    private Object invoke(final Object[] args) {
         try {
             return target.invoke(method, args);
         } catch (final InvocationTargetException e) {
@@ -19,75 +19,93 @@ package org.tomitribe.crest.interceptor.internal;
 import org.tomitribe.crest.api.interceptor.CrestContext;
 import org.tomitribe.crest.api.interceptor.ParameterMetadata;
 import org.tomitribe.crest.cmds.OptionsMap;
+import org.tomitribe.crest.trace.Phase;
+import org.tomitribe.crest.trace.Span;
+import org.tomitribe.crest.trace.Trace;
 
 import java.lang.reflect.Method;
 import java.util.List;
-import java.util.Map;
 
-public abstract class InternalInterceptorInvocationContext {
+/**
+ * One pass through a command's interceptor chain.  The context is itself
+ * the CrestContext handed to each interceptor, and the option namespace is
+ * only assembled once something asks for it — an interceptor declaring
+ * options or calling getOptions() — so a chain of plain interceptors
+ * costs one object per invocation.
+ */
+public abstract class InternalInterceptorInvocationContext implements CrestContext {
 
-    private final List<InternalInterceptor> chain;
-    private final OptionsMap options;
-    private final CrestContext context;
+    private final InternalInterceptor.Bound[] chain;
+    private final String name;
+    private final List<ParameterMetadata> parameterMetadatas;
+    private final Method method;
+    private final List<Object> parameters;
 
-    private List<Object> parameters;
+    private OptionsMap options;
     private int index = 0;
 
-    public InternalInterceptorInvocationContext(final List<InternalInterceptor> chain,
-                                                final OptionsMap options,
+    public InternalInterceptorInvocationContext(final InternalInterceptor.Bound[] chain,
                                                 final String name,
                                                 final List<ParameterMetadata> parameterMetadatas,
                                                 final Method method,
                                                 final List<Object> parameters) {
         this.chain = chain;
-        this.options = options;
+        this.name = name;
+        this.parameterMetadatas = parameterMetadatas;
+        this.method = method;
         this.parameters = parameters;
-        this.context = new CrestContext() {
-            @Override
-            public Object proceed() {
-                return InternalInterceptorInvocationContext.this.proceed();
-            }
-
-            @Override
-            public Method getMethod() {
-                return method;
-            }
-
-            @Override
-            public List<Object> getParameters() { // mutable
-                return parameters;
-            }
-
-            @Override
-            public Map<String, Object> getOptions() { // mutable; live view where the command declares the option
-                return options;
-            }
-
-            @Override
-            public String getName() {
-                return name;
-            }
-
-            @Override
-            public List<ParameterMetadata> getParameterMetadata() {
-                return parameterMetadatas;
-            }
-        };
     }
 
+    @Override
     public Object proceed() {
-        if (index < chain.size()) {
-            final InternalInterceptor interceptor = chain.get(index++);
-
+        if (index < chain.length) {
             /*
              * The interceptor's arguments materialize now, at its turn in
              * the chain, so it sees the option values as replaced by every
              * interceptor that ran before it.
              */
-            return interceptor.intercept(context, interceptor.materializeArguments(options));
+            final InternalInterceptor.Bound link = chain[index++];
+            try (Span span = Trace.begin(Phase.INTERCEPTOR, name, parameters.size())) {
+                span.detail(link.getInterceptor().getClazz().getName());
+                return link.intercept(this);
+            }
         }
-        return doInvoke(parameters);
+        return doInvoke(parameters, options);
+    }
+
+    @Override
+    public Method getMethod() {
+        return method;
     }
 
-    protected abstract Object doInvoke(List<Object> parameters);
-}
\ No newline at end of file
+    @Override
+    public List<Object> getParameters() { // mutable
+        return parameters;
+    }
+
+    @Override
+    public OptionsMap getOptions() { // mutable; live view where the command declares the option
+        if (options == null) {
+            options = createOptions(parameters);
+        }
+        return options;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public List<ParameterMetadata> getParameterMetadata() {
+        return parameterMetadatas;
+    }
+
+    protected abstract OptionsMap createOptions(List<Object> parameters);
+
+    /**
+     * @param options the option namespace, or null if nothing in the chain
+     *                asked for it and so nothing could have written to it
+     */
+    protected abstract Object doInvoke(List<Object> parameters, OptionsMap options);
+}
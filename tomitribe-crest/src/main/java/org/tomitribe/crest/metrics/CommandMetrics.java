@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.metrics;
+
+import org.tomitribe.crest.trace.Phase;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What one command has done since the program started
+ */
+public class CommandMetrics {
+
+    private final String name;
+    private final LongAdder invocations = new LongAdder();
+    private final Map<Integer, LongAdder> errors = new ConcurrentHashMap<>();
+    private final Histogram duration = new Histogram();
+    private final AtomicReferenceArray<Histogram> phases = new AtomicReferenceArray<>(Phase.values().length);
+
+    CommandMetrics(final String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    /**
+     * Failed invocations by exit code: the value of @Exit on the
+     * exception, or -1 for exceptions without one
+     */
+    public Map<Integer, Long> getErrors() {
+        final Map<Integer, Long> map = new TreeMap<>();
+        errors.forEach((code, count) -> map.put(code, count.sum()));
+        return map;
+    }
+
+    /**
+     * The time of each invocation from start to end, written output included
+     */
+    public Histogram getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return null if the phase has not happened for this command
+     */
+    public Histogram getPhase(final Phase phase) {
+        return phases.get(phase.ordinal());
+    }
+
+    public void record(final Phase phase, final long nanos) {
+        Histogram histogram = phases.get(phase.ordinal());
+        if (histogram == null) {
+            phases.compareAndSet(phase.ordinal(), null, new Histogram());
+            histogram = phases.get(phase.ordinal());
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * @param exitCode zero for success
+     */
+    public void record(final long nanos, final int exitCode) {
+        invocations.increment();
+        duration.record(nanos);
+        if (exitCode != 0) {
+            errors.computeIfAbsent(exitCode, code -> new LongAdder()).increment();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Invocation counts, errors and phase latencies of each command.
+ *
+ * Enabled with Main.builder().metrics(), which also adds the built-in
+ * "metrics" command.  Main times each invocation and the phases within
+ * it are timed as they end, for the command running on that thread.
+ */
+public class Metrics {
+
+    private static final ThreadLocal<CommandMetrics> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Commands being timed by an installed registry, on any thread.
+     * While there are none, the phases skip the thread local entirely,
+     * however many registries have been created.
+     */
+    private static final AtomicInteger ACTIVE = new AtomicInteger();
+
+    private final Map<String, CommandMetrics> commands = new ConcurrentHashMap<>();
+
+    public CommandMetrics command(final String name) {
+        return commands.computeIfAbsent(name, CommandMetrics::new);
+    }
+
+    /**
+     * Every command that has been run, by name
+     */
+    public List<CommandMetrics> getCommands() {
+        final List<CommandMetrics> list = new ArrayList<>(commands.values());
+        list.sort(Comparator.comparing(CommandMetrics::getName));
+        return list;
+    }
+
+    /**
+     * The command running on this thread, if metrics are on
+     */
+    public static CommandMetrics current() {
+        return ACTIVE.get() > 0 ? CURRENT.get() : null;
+    }
+
+    /**
+     * Makes the command current on this thread
+     *
+     * @return the command that was current before, to restore afterwards
+     */
+    public static CommandMetrics enter(final CommandMetrics command) {
+        ACTIVE.incrementAndGet();
+        final CommandMetrics old = CURRENT.get();
+        CURRENT.set(command);
+        return old;
+    }
+
+    /**
+     * Ends a command made current with enter()
+     */
+    public static void exit(final CommandMetrics old) {
+        ACTIVE.decrementAndGet();
+        if (old == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(old);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.metrics;
+
+import org.tomitribe.crest.api.Command;
+import org.tomitribe.crest.api.Default;
+import org.tomitribe.crest.api.Option;
+import org.tomitribe.crest.trace.Phase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The built-in "metrics" command, added by Main.builder().metrics()
+ */
+public class MetricsCommand {
+
+    public enum Format {
+        table, prometheus
+    }
+
+    private final Metrics metrics;
+
+    public MetricsCommand(final Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Show invocation counts, errors and latencies of each command run so far
+     *
+     * @param format table for people, prometheus for the Prometheus text format
+     * @param file   write the Prometheus text format to this file instead
+     */
+    @Command
+    public Object metrics(@Option("format") @Default("table") final Format format,
+                          @Option("file") final File file) throws IOException {
+        if (file != null) {
+            Prometheus.write(metrics, file.toPath());
+            return null;
+        }
+
+        if (format == Format.prometheus) {
+            return Prometheus.format(metrics);
+        }
+
+        final List<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{"command", "phase", "count", "errors", "p50 ms", "p90 ms", "p99 ms", "max ms"});
+
+        for (final CommandMetrics command : metrics.getCommands()) {
+            rows.add(row(command.getName(), "total", command.getDuration(), errors(command.getErrors())));
+
+            for (final Phase phase : Phase.values()) {
+                final Histogram histogram = command.getPhase(phase);
+                if (histogram == null) continue;
+
+                rows.add(row(command.getName(), phase.name().toLowerCase(Locale.ROOT), histogram, ""));
+            }
+        }
+
+        return rows.toArray(new String[0][]);
+    }
+
+    private static String[] row(final String command, final String phase, final Histogram histogram, final String errors) {
+        return new String[]{
+                command,
+                phase,
+                Long.toString(histogram.getCount()),
+                errors,
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getMax())
+        };
+    }
+
+    private static String errors(final Map<Integer, Long> errors) {
+        long total = 0;
+        for (final Long count : errors.values()) {
+            total += count;
+        }
+        return Long.toString(total);
+    }
+
+    private static String millis(final long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
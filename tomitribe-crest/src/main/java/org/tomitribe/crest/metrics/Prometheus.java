@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.tomitribe.crest.trace.Phase;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Writes Metrics in the Prometheus text exposition format, either to a
+ * file for the node exporter's textfile collector or over HTTP.
+ *
+ * Durations are summaries in seconds with the 0.5, 0.9 and 0.99 quantiles.
+ */
+public final class Prometheus {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private Prometheus() {
+        // no-op
+    }
+
+    public static String format(final Metrics metrics) {
+        final StringBuilder sb = new StringBuilder();
+
+        sb.append("# HELP crest_command_invocations_total Command invocations\n");
+        sb.append("# TYPE crest_command_invocations_total counter\n");
+        for (final CommandMetrics command : metrics.getCommands()) {
+            sb.append("crest_command_invocations_total{command=\"").append(escape(command.getName())).append("\"} ")
+                    .append(command.getInvocations()).append('\n');
+        }
+
+        sb.append("# HELP crest_command_errors_total Failed command invocations by exit code\n");
+        sb.append("# TYPE crest_command_errors_total counter\n");
+        for (final CommandMetrics command : metrics.getCommands()) {
+            for (final Map.Entry<Integer, Long> entry : command.getErrors().entrySet()) {
+                sb.append("crest_command_errors_total{command=\"").append(escape(command.getName()))
+                        .append("\",exit=\"").append(entry.getKey()).append("\"} ")
+                        .append(entry.getValue()).append('\n');
+            }
+        }
+
+        sb.append("# HELP crest_command_duration_seconds Time of each command invocation\n");
+        sb.append("# TYPE crest_command_duration_seconds summary\n");
+        for (final CommandMetrics command : metrics.getCommands()) {
+            summary(sb, "crest_command_duration_seconds", "command=\"" + escape(command.getName()) + "\"",
+                    command.getDuration());
+        }
+
+        sb.append("# HELP crest_command_phase_seconds Time of each phase of a command invocation\n");
+        sb.append("# TYPE crest_command_phase_seconds summary\n");
+        for (final CommandMetrics command : metrics.getCommands()) {
+            for (final Phase phase : Phase.values()) {
+                final Histogram histogram = command.getPhase(phase);
+                if (histogram == null) continue;
+
+                summary(sb, "crest_command_phase_seconds", "command=\"" + escape(command.getName()) +
+                        "\",phase=\"" + phase.name().toLowerCase(Locale.ROOT) + "\"", histogram);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Replaces the file in one move, so a collector never reads it half written
+     */
+    public static void write(final Metrics metrics, final Path file) throws IOException {
+        final Path parent = file.toAbsolutePath().getParent();
+        final Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, format(metrics).getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Serves the metrics at /metrics on the given address until closed.
+     * Bind to a loopback address unless the metrics may be public.
+     * Closing stops the server and its thread.
+     */
+    public static Closeable serve(final Metrics metrics, final InetSocketAddress address) throws IOException {
+        final HttpServer server = HttpServer.create(address, 0);
+        final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "crest-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+
+        server.createContext("/metrics", exchange -> {
+            final byte[] bytes = format(metrics).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+
+        server.start();
+        return () -> {
+            server.stop(0);
+            executor.shutdown();
+        };
+    }
+
+    private static void summary(final StringBuilder sb, final String name, final String labels, final Histogram histogram) {
+        for (final double quantile : QUANTILES) {
+            sb.append(name).append('{').append(labels).append(",quantile=\"").append(quantile).append("\"} ")
+                    .append(seconds(histogram.getValueAtPercentile(quantile * 100))).append('\n');
+        }
+        sb.append(name).append("_sum{").append(labels).append("} ").append(seconds(histogram.getSum())).append('\n');
+        sb.append(name).append("_count{").append(labels).append("} ").append(histogram.getCount()).append('\n');
+    }
+
+    private static String seconds(final long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    private static String escape(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -65,19 +65,48 @@ public class Data {
                 .orElse(0);
     }
 
+    /**
+     * The same data re-wrapped into new cells.  Rows, columns and widths
+     * are measured in one pass over the cells; whether a column is numeric
+     * depends only on the raw data, so that is carried over.
+     */
     Data(final Cell[][] cells, final Data previous) {
         this.heading = previous.heading;
         this.cells = cells;
-        this.rows = createRows(this, this.cells);
-        this.columns = createColumns(this, this.cells);
-        this.width = Stream.of(columns)
-                .map(Column::getWidth)
-                .reduce(Width::add)
-                .orElse(Width.ZERO);
-        this.height = Stream.of(rows)
-                .mapToInt(Row::getHeight)
-                .reduce(Integer::sum)
-                .orElse(0);
+        this.rows = new Row[cells.length];
+        this.columns = new Column[previous.columns.length];
+
+        final int[] columnMin = new int[columns.length];
+        final int[] columnMax = new int[columns.length];
+
+        int height = 0;
+        for (int row = 0; row < cells.length; row++) {
+            int rowHeight = 0;
+            int rowMin = 0;
+            int rowMax = 0;
+            for (int column = 0; column < cells[row].length; column++) {
+                final Cell cell = cells[row][column];
+                rowHeight = Math.max(rowHeight, cell.getHeight());
+                rowMin += cell.width.getMin();
+                rowMax += cell.width.getMax();
+                columnMin[column] = Math.max(columnMin[column], cell.width.getMin());
+                columnMax[column] = Math.max(columnMax[column], cell.width.getMax());
+            }
+            this.rows[row] = new Row(row, new Width(rowMin, rowMax), rowHeight);
+            height += rowHeight;
+        }
+
+        int min = 0;
+        int max = 0;
+        for (int column = 0; column < columns.length; column++) {
+            this.columns[column] = new Column(column, new Width(columnMin[column], columnMax[column]),
+                    previous.columns[column].numeric);
+            min += columnMin[column];
+            max += columnMax[column];
+        }
+
+        this.width = new Width(min, max);
+        this.height = height;
     }
 
     public boolean hasHeading() {
@@ -140,6 +169,10 @@ public class Data {
             return cells[row].length;
         }
 
+        public Cell getCell(final int column) {
+            return cells[row][column];
+        }
+
         public String[][] toLines() {
             final String[][] lines = new String[height][columns.length];
             for (int lineNumber = 0; lineNumber < lines.length; lineNumber++) {
@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -37,12 +38,84 @@ public class Formatting {
     }
 
     static Data asTable(final Iterable<?> iterable, final Options options) {
+        final Data.Builder data = Data.builder();
+
+        rows(iterable, options, new Rows() {
+            @Override
+            public void heading(final String[] headings) {
+                data.headings(true);
+                data.row(headings);
+            }
+
+            @Override
+            public void row(final String[] fields, final List<Item> row) {
+                final String[] a = new String[fields.length];
+                for (int i = 0; i < a.length; i++) {
+                    a[i] = row.get(i).getString();
+                }
+                data.row(a);
+            }
+        });
+
+        return data.build();
+    }
+
+    /**
+     * Receives the rows of a table as the fields of each item are resolved
+     */
+    interface Rows {
+
+        /**
+         * Called once, before the first row, and only if the
+         * options ask for a header
+         */
+        void heading(String[] headings);
+
+        void row(String[] fields, List<Item> row);
+
+        /**
+         * True once the rows can no longer be written anywhere,
+         * for example because the reader closed the pipe
+         */
+        default boolean isClosed() {
+            return false;
+        }
+    }
+
+    /**
+     * Resolves the fields of each item and hands the rows on in order.
+     * Without a sort, each row is handed on as soon as its item is read
+     * and reading stops once the limit is reached; a sort needs every
+     * row first.
+     */
+    static void rows(final Iterable<?> iterable, final Options options, final Rows rows) {
         final String[] sort = getSortArray(options);
+        final boolean sorted = sort != null && sort.length > 0;
+
+        if (!sorted) {
+            rows(iterable, options, rows, null);
+            return;
+        }
+
+        try (Sorter sorter = new Sorter(sort, offset(options), limit(options))) {
+            rows(iterable, options, rows, sorter);
+        }
+    }
+
+    private static void rows(final Iterable<?> iterable, final Options options, final Rows rows, final Sorter sorter) {
         String[] fields = getFieldsArray(options);
 
-        final List<List<Item>> rows = new ArrayList<>();
+        final long offset = offset(options);
+        final long limit = limit(options);
+
+        boolean heading = !options.header();
+        long skipped = 0;
+        long written = 0;
 
         for (final Object item : iterable) {
+            if (sorter == null && written >= limit) break;
+            if (rows.isClosed()) return;
+
             final CaseInsensitiveMap map = asMap(item);
 
             if (fields == null) {
@@ -61,35 +134,61 @@ public class Formatting {
                 }
             }
 
+            if (sorter == null && skipped < offset) {
+                skipped++;
+                continue;
+            }
+
             final List<Item> row = new ArrayList<>();
 
             for (final String field : fields) {
                 row.add(resolve(map, field));
             }
-            rows.add(row);
-        }
 
-        if (sort != null && sort.length > 0) {
-            rows.sort(compareFields(fields, sort));
-        }
+            if (sorter != null) {
+                sorter.add(fields, row);
+                continue;
+            }
 
-        final Data.Builder data = Data.builder();
+            if (!heading) {
+                rows.heading(unescape(fields));
+                heading = true;
+            }
+            rows.row(fields, row);
+            written++;
+        }
 
-        if (options.header()) {
-            // Add the headers
-            data.headings(true);
-            data.row(unescape(fields));
+        if (!heading && fields != null) {
+            rows.heading(unescape(fields));
         }
 
-        for (final List<Item> row : rows) {
-            final String[] a = new String[fields.length];
-            for (int i = 0; i < a.length; i++) {
-                a[i] = row.get(i).getString();
+        if (sorter != null) {
+            final Iterator<List<Item>> sorted = sorter.iterator();
+            while (sorted.hasNext() && !rows.isClosed()) {
+                rows.row(fields, sorted.next());
             }
-            data.row(a);
         }
+    }
 
-        return data.build();
+    static boolean isSorted(final Options options) {
+        final String[] sort = getSortArray(options);
+        return sort != null && sort.length > 0;
+    }
+
+    /**
+     * The number of leading rows to drop, zero when unset or negative
+     */
+    static long offset(final Options options) {
+        final Integer offset = options.getOffset();
+        return offset == null || offset < 0 ? 0 : offset;
+    }
+
+    /**
+     * The most rows to write, unbounded when unset or negative
+     */
+    static long limit(final Options options) {
+        final Integer limit = options.getLimit();
+        return limit == null || limit < 0 ? Long.MAX_VALUE : limit;
     }
 
     private static String[] unescape(final String[] fields) {
@@ -321,6 +420,14 @@ public class Formatting {
             this.string = value != null ? toString(value) : "";
         }
 
+        /**
+         * Restores an item whose string was already computed
+         */
+        Item(final Object object, final String string) {
+            this.object = object instanceof Comparable ? (Comparable) object : null;
+            this.string = string;
+        }
+
         private static String toString(final Object value) {
             try {
                 final PropertyEditor editor = Editors.get(value.getClass());
@@ -339,6 +446,13 @@ public class Formatting {
             return string;
         }
 
+        /**
+         * The value as it was resolved, if it is Comparable
+         */
+        public Object getObject() {
+            return object;
+        }
+
         @Override
         public int compareTo(final Item that) {
             if (this.object != null || that.object != null) {
@@ -18,6 +18,7 @@ package org.tomitribe.crest.table;
 import org.tomitribe.crest.api.interceptor.CrestContext;
 import org.tomitribe.crest.api.interceptor.ParameterMetadata;
 import org.tomitribe.crest.api.table.Border;
+import org.tomitribe.crest.api.table.Format;
 import org.tomitribe.crest.api.table.Table;
 import org.tomitribe.crest.api.table.TableOptions;
 import org.tomitribe.util.collect.ObjectMap;
@@ -33,8 +34,10 @@ public class Options implements Table {
     private String fields;
     private String sort;
     //        private Orientation orientation;
-//        private Format format;
+    private Format format;
     private org.tomitribe.crest.api.table.Border border;
+    private Integer limit;
+    private Integer offset;
 
     public Options() {
     }
@@ -50,15 +53,23 @@ public class Options implements Table {
 //        public Orientation getOrientation() {
 //            return orientation;
 //        }
-//
-//        public Format getFormat() {
-//            return format;
-//        }
+
+    public Format getFormat() {
+        return format;
+    }
 
     public org.tomitribe.crest.api.table.Border getBorder() {
         return border;
     }
 
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public Integer getOffset() {
+        return offset;
+    }
+
     public void setFields(final String fields) {
         this.fields = fields;
     }
@@ -69,16 +80,24 @@ public class Options implements Table {
 
 //        public void setOrientation(final Orientation orientation) {
 //            this.orientation = orientation;
-//        }
-//
-//        public void setFormat(final Format format) {
-//            this.format = format;
 //        }
 
+    public void setFormat(final Format format) {
+        this.format = format;
+    }
+
     public void setBorder(final org.tomitribe.crest.api.table.Border border) {
         this.border = border;
     }
 
+    public void setLimit(final Integer limit) {
+        this.limit = limit;
+    }
+
+    public void setOffset(final Integer offset) {
+        this.offset = offset;
+    }
+
     public void setHeader(final Boolean header) {
         this.header = header;
     }
@@ -105,13 +124,13 @@ public class Options implements Table {
 //        @Override
 //        public Orientation orientation() {
 //            return orientation;
-//        }
-//
-//        @Override
-//        public Format format() {
-//            return format;
 //        }
 
+    @Override
+    public Format format() {
+        return format;
+    }
+
     @Override
     public Border border() {
         return border;
@@ -127,7 +146,7 @@ public class Options implements Table {
         options.setBorder(table.border());
         options.setFields(table.fields());
         options.setHeader(table.header());
-//            options.setFormat(table.format());
+        options.setFormat(table.format());
         options.setSort(table.sort());
         return options;
     }
@@ -137,8 +156,10 @@ public class Options implements Table {
         options.setBorder(this.border);
         options.setFields(this.fields);
         options.setHeader(this.header);
-//            options.setFormat(table.format());
+        options.setFormat(this.format);
         options.setSort(this.sort);
+        options.setLimit(this.limit);
+        options.setOffset(this.offset);
         return options;
     }
 
@@ -147,7 +168,10 @@ public class Options implements Table {
         options.setBorder(table.getBorder());
         options.setFields(table.getFields());
         options.setHeader(table.isHeader());
+        options.setFormat(table.getFormat());
         options.setSort(table.getSort());
+        options.setLimit(table.getLimit());
+        options.setOffset(table.getOffset());
         return options;
     }
 
@@ -157,9 +181,27 @@ public class Options implements Table {
         if (overrides.sort() != null) options.setSort(overrides.sort());
         if (overrides.fields() != null) options.setFields(overrides.fields());
         if (overrides.isHeader() != null) options.setHeader(overrides.isHeader());
+        if (overrides.getFormat() != null) options.setFormat(overrides.getFormat());
+        if (overrides.getLimit() != null) options.setLimit(overrides.getLimit());
+        if (overrides.getOffset() != null) options.setOffset(overrides.getOffset());
         return options;
     }
 
+    /**
+     * Fills in any setting the user did not override, so a command
+     * holding the TableOptions sees the same fields, sort, limit and
+     * offset the table will be rendered with.
+     */
+    public void resolve(final TableOptions table) {
+        if (table.getBorder() == null) table.setBorder(border);
+        if (table.getFields() == null) table.setFields(fields);
+        if (table.isHeader() == null) table.setHeader(header);
+        if (table.getFormat() == null) table.setFormat(format);
+        if (table.getSort() == null) table.setSort(sort);
+        if (table.getLimit() == null) table.setLimit(limit);
+        if (table.getOffset() == null) table.setOffset(offset);
+    }
+
     public static Options from(final CrestContext crestContext) {
         final Options defaults = from(crestContext.getMethod().getAnnotation(Table.class));
         final Options overrides = from(crestContext.getParameterMetadata(), crestContext.getParameters());
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.tomitribe.crest.table;
+
+import org.tomitribe.crest.api.table.Format;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes table rows in a machine-readable format as they are resolved.
+ * There is no Data, no width measurement and no word wrap: each row is
+ * formatted into a reused buffer and written straight to the stream.
+ */
+abstract class Records implements Formatting.Rows {
+
+    private static final String NEWLINE = System.lineSeparator();
+
+    /**
+     * Rows from a slow producer are flushed as they come, rows from a
+     * fast one at most this often
+     */
+    private static final long FLUSH_INTERVAL = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final PrintStream out;
+    protected final StringBuilder line = new StringBuilder(256);
+    private long flushed = System.nanoTime();
+    private boolean closed;
+
+    protected Records(final PrintStream out) {
+        this.out = out;
+    }
+
+    static Records of(final Format format, final PrintStream out) {
+        switch (format) {
+            case csv:
+                return new Csv(out);
+            case jsonl:
+                return new JsonLines(out);
+            default:
+                throw new IllegalArgumentException("Not a record format: " + format);
+        }
+    }
+
+    protected void endLine() {
+        line.append(NEWLINE);
+        out.append(line);
+        line.setLength(0);
+
+        final long now = System.nanoTime();
+        if (now - flushed >= FLUSH_INTERVAL) {
+            flushed = now;
+            // flushes, and tells us if the reader went away
+            closed = out.checkError();
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Comma-separated values.  A field is quoted only when it contains a
+     * comma, a quote or a line break, and quotes inside it are doubled,
+     * as described in RFC 4180.
+     */
+    static class Csv extends Records {
+
+        Csv(final PrintStream out) {
+            super(out);
+        }
+
+        @Override
+        public void heading(final String[] headings) {
+            for (int i = 0; i < headings.length; i++) {
+                if (i > 0) line.append(',');
+                field(headings[i]);
+            }
+            endLine();
+        }
+
+        @Override
+        public void row(final String[] fields, final List<Formatting.Item> row) {
+            for (int i = 0; i < row.size(); i++) {
+                if (i > 0) line.append(',');
+                field(row.get(i).getString());
+            }
+            endLine();
+        }
+
+        private void field(final String value) {
+            if (!needsQuotes(value)) {
+                line.append(value);
+                return;
+            }
+
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c == '"') line.append('"');
+                line.append(c);
+            }
+            line.append('"');
+        }
+
+        private static boolean needsQuotes(final String value) {
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * One JSON object per line, keyed by field name.  There is no heading
+     * line; the keys carry the field names on every row.
+     */
+    static class JsonLines extends Records {
+
+        private String[] fields;
+        private String[] keys;
+
+        JsonLines(final PrintStream out) {
+            super(out);
+        }
+
+        @Override
+        public void heading(final String[] headings) {
+        }
+
+        @Override
+        public void row(final String[] fields, final List<Formatting.Item> row) {
+            if (fields != this.fields) {
+                this.fields = fields;
+                this.keys = new String[fields.length];
+                for (int i = 0; i < fields.length; i++) {
+                    keys[i] = Parts.unescape(fields[i]);
+                }
+            }
+
+            line.append('{');
+            for (int i = 0; i < row.size(); i++) {
+                if (i > 0) line.append(',');
+                string(keys[i]);
+                line.append(':');
+                value(row.get(i));
+            }
+            line.append('}');
+            endLine();
+        }
+
+        private void value(final Formatting.Item item) {
+            final Object object = item.getObject();
+
+            if (object instanceof Boolean) {
+                line.append(object);
+            } else if (object instanceof Double || object instanceof Float) {
+                final double d = ((Number) object).doubleValue();
+                if (Double.isNaN(d) || Double.isInfinite(d)) {
+                    string(item.getString());
+                } else {
+                    line.append(object);
+                }
+            } else if (object instanceof Number) {
+                line.append(object);
+            } else {
+                string(item.getString());
+            }
+        }
+
+        private void string(final String value) {
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                switch (c) {
+                    case '"':
+                        line.append("\\\"");
+                        break;
+                    case '\\':
+                        line.append("\\\\");
+                        break;
+                    case '\n':
+                        line.append("\\n");
+                        break;
+                    case '\r':
+                        line.append("\\r");
+                        break;
+                    case '\t':
+                        line.append("\\t");
+                        break;
+                    case '\b':
+                        line.append("\\b");
+                        break;
+                    case '\f':
+                        line.append("\\f");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            line.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            line.append(c);
+                        }
+                }
+            }
+            line.append('"');
+        }
+    }
+}
@@ -16,10 +16,7 @@
  */
 package org.tomitribe.crest.table;
 
-import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Arrays;
 
 public class Resize {
 
@@ -29,37 +26,26 @@ public class Resize {
     public static Data resize(final Data data, final int width) {
         if (data.getWidth().getMax() < width) return data;
 
-        /*
-         * We take the minimum size of the table and slowly and evenly expand it back out
-         * until we reach the maximum.  If the desired table size is 200 and the minimum
-         * size this table can be squished to is 92 we will have a remainder of 108.  The
-         * 108 will be given back to each column till there is no more to allocate.
-         *
-         * Each column will stop taking space once it reaches its maximum or there is no
-         * more space left to allocate.
-         *
-         * We do this to find the optimal sizes for each column, it does not actually
-         * resize the cells.  That happens later.
-         */
-        final AtomicInteger remaining = new AtomicInteger(width - data.getWidth().getMin());
-
-        final List<Column> columns = data.getColumns().stream()
-                .map(column -> new Column(column, remaining))
-                .collect(Collectors.toList());
-
-        while (expand(columns)) {
-            /* checkstyle */
+        final int[] min = new int[data.getColumns().size()];
+        final int[] max = new int[min.length];
+        for (int i = 0; i < min.length; i++) {
+            min[i] = data.getColumn(i).getWidth().getMin();
+            max[i] = data.getColumn(i).getWidth().getMax();
         }
 
+        final int[] sizes = allocate(min, max, width - data.getWidth().getMin());
+
         /*
          * Now actually resize the cells to fit in their new column size
          * and add them to the new array of cell[][]
          */
-        final Data.Cell[][] resized = new Data.Cell[data.getRows().size()][data.getColumns().size()];
-
-        columns.stream()
-                .flatMap(Column::resize)
-                .forEach(cell -> resized[cell.getRow()][cell.getColumn()] = cell);
+        final Data.Cell[][] resized = new Data.Cell[data.getRows().size()][min.length];
+        for (int row = 0; row < resized.length; row++) {
+            final Data.Row source = data.getRow(row);
+            for (int column = 0; column < min.length; column++) {
+                resized[row][column] = source.getCell(column).resizeTo(sizes[column]);
+            }
+        }
 
         /*
          * Create a new Data instance with the new cells
@@ -67,33 +53,74 @@ public class Resize {
         return new Data(resized, data);
     }
 
-    private static boolean expand(final List<Column> columns) {
-        return columns.stream()
-                .map(Column::expand)
-                .reduce((columnAExpanded, columnBExpanded) -> columnAExpanded || columnBExpanded)
-                .orElse(false);
-    }
+    /**
+     * We take the minimum size of the table and evenly expand it back out
+     * until we reach the maximum.  If the desired table size is 200 and the minimum
+     * size this table can be squished to is 92 we will have a remainder of 108.  The
+     * 108 is given back to the columns one character per column per round till there
+     * is no more to allocate.  Each column stops taking space once it reaches its
+     * maximum.  A final partial round favors the leftmost columns.
+     *
+     * Rather than play out the rounds, we find the number of complete rounds
+     * directly: with the columns sorted by how much they can grow, every column
+     * that saturates before the level is reached takes its full growth and the
+     * rest share what is left evenly.
+     *
+     * We do this to find the optimal sizes for each column, it does not actually
+     * resize the cells.  That happens later.
+     *
+     * @param remaining the width available beyond the sum of the minimums
+     */
+    static int[] allocate(final int[] min, final int[] max, final int remaining) {
+        final int[] sizes = min.clone();
+        if (remaining <= 0 || sizes.length == 0) return sizes;
 
-    public static class Column {
-        private final Data.Column column;
-        private final AtomicInteger remaining;
-        private int size;
+        final int[] growth = new int[sizes.length];
+        for (int i = 0; i < growth.length; i++) {
+            growth[i] = Math.max(0, max[i] - min[i]);
+        }
 
-        public Column(final Data.Column column, final AtomicInteger remaining) {
-            this.column = column;
-            this.size = column.getWidth().getMin();
-            this.remaining = remaining;
+        final int[] sorted = growth.clone();
+        Arrays.sort(sorted);
+
+        /*
+         * Find the number of complete rounds, the level every unsaturated
+         * column reaches
+         */
+        int left = remaining;
+        int level = 0;
+        int i = 0;
+        while (i < sorted.length) {
+            final int unsaturated = sorted.length - i;
+            final int rounds = left / unsaturated;
+
+            if (level + rounds < sorted[i]) {
+                level += rounds;
+                left -= rounds * unsaturated;
+                break;
+            }
+
+            // every column at the lowest remaining growth saturates
+            left -= (sorted[i] - level) * unsaturated;
+            level = sorted[i];
+            while (i < sorted.length && sorted[i] == level) i++;
         }
 
-        public boolean expand() {
-            if (size == column.getWidth().getMax()) return false;
-            if (remaining.getAndDecrement() <= 0) return false;
-            size++;
-            return true;
+        for (int column = 0; column < sizes.length; column++) {
+            sizes[column] += Math.min(growth[column], level);
         }
 
-        public Stream<Data.Cell> resize() {
-            return column.stream().map(cell -> cell.resizeTo(size));
+        /*
+         * Hand out the partial round left to right to the columns
+         * that can still grow
+         */
+        for (int column = 0; column < sizes.length && left > 0; column++) {
+            if (growth[column] > level) {
+                sizes[column]++;
+                left--;
+            }
         }
+
+        return sizes;
     }
 }
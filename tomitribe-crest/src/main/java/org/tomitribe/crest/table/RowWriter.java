@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.tomitribe.crest.table;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Writes the rows of one table.  The border segments, column widths and
+ * alignment are fixed when the writer is built, so each line is appended
+ * straight into a reusable buffer rather than going through a format
+ * string.  The buffer is handed to the stream in large chunks.
+ *
+ * Output is exactly what the printf format of {@link Table#getFormat(Line)}
+ * produces, except that border characters are never interpreted as
+ * format specifiers.
+ */
+class RowWriter {
+
+    private static final int CHUNK = 64 * 1024;
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final PrintStream out;
+    private final Function<String, String> escape;
+    private final StringBuilder buffer = new StringBuilder(CHUNK + 1024);
+
+    private final String left;
+    private final String inner;
+    private final String right;
+
+    /**
+     * The padded width of each column, 0 when the line is not padded
+     */
+    private final int[] widths;
+
+    /**
+     * Numeric columns are right-aligned
+     */
+    private final boolean[] numeric;
+
+    /**
+     * The width a centered heading cell is padded to
+     */
+    private final int[] centers;
+
+    RowWriter(final PrintStream out, final Line line, final List<Data.Column> columns, final Function<String, String> escape) {
+        this.out = out;
+        this.escape = escape;
+        this.left = line.getLeft();
+        this.inner = line.getInner();
+        this.right = line.getRight();
+        this.widths = new int[columns.size()];
+        this.numeric = new boolean[columns.size()];
+        this.centers = new int[columns.size()];
+
+        for (int i = 0; i < widths.length; i++) {
+            final Data.Column column = columns.get(i);
+            widths[i] = line.isPadded() ? column.getWidth().getMax() : 0;
+            numeric[i] = column.isNumeric();
+            centers[i] = column.getWidth().getMax();
+        }
+    }
+
+    /**
+     * Writes every line of the row, a cell with fewer lines than
+     * the row is tall is blank on the remaining lines
+     *
+     * @param center pad each cell to the middle of its column first
+     */
+    public void row(final Data.Row row, final boolean center) {
+        for (int line = 0; line < row.getHeight(); line++) {
+            buffer.append(left);
+            for (int column = 0; column < widths.length; column++) {
+                if (column > 0) buffer.append(inner);
+
+                final List<String> lines = row.getCell(column).getLines();
+                String value = line < lines.size() ? lines.get(line) : "";
+                if (center) value = Lines.center(value, centers[column]);
+
+                cell(escape.apply(value), column);
+            }
+            buffer.append(right);
+            newLine();
+        }
+    }
+
+    private void cell(final String value, final int column) {
+        final int padding = widths[column] - value.length();
+        if (padding > 0 && numeric[column]) pad(padding);
+        buffer.append(value);
+        if (padding > 0 && !numeric[column]) pad(padding);
+    }
+
+    private void pad(final int padding) {
+        for (int i = 0; i < padding; i++) {
+            buffer.append(' ');
+        }
+    }
+
+    public void line(final String line) {
+        buffer.append(line);
+        newLine();
+    }
+
+    private void newLine() {
+        buffer.append(NEWLINE);
+        if (buffer.length() >= CHUNK) flush();
+    }
+
+    public void flush() {
+        if (buffer.length() == 0) return;
+        out.append(buffer);
+        buffer.setLength(0);
+    }
+}
@@ -0,0 +1,514 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.tomitribe.crest.table;
+
+import org.tomitribe.crest.table.Formatting.Item;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Puts the rows of a table in sort order.
+ *
+ * When only the first offset + limit rows will be shown, and that is
+ * no more than one run, a bounded heap keeps just those rows and the
+ * others are dropped as they arrive.
+ *
+ * Otherwise rows are sorted in runs.  Each full run is written to a
+ * temp file, and the runs are merged as the rows are handed on, so
+ * memory holds at most one run regardless of the number of rows.
+ *
+ * The values compared are picked out of each row once, when it is
+ * added, and ties keep the order the rows arrived in.
+ */
+class Sorter implements Closeable {
+
+    static final int RUN_SIZE = 50000;
+
+    private final String[] sort;
+    private final long offset;
+    private final long limit;
+    private final int runSize;
+
+    /**
+     * Holds the largest of the rows kept on top, so it is the one
+     * evicted when a smaller row arrives
+     */
+    private final PriorityQueue<Entry> top;
+    private final int keep;
+
+    private final List<Entry> run = new ArrayList<>();
+    private final List<File> runs = new ArrayList<>();
+    private final List<Source> sources = new ArrayList<>();
+    private boolean spillable = true;
+    private long sequence;
+    private int[] columns;
+
+    Sorter(final String[] sort, final long offset, final long limit) {
+        this(sort, offset, limit, RUN_SIZE);
+    }
+
+    Sorter(final String[] sort, final long offset, final long limit, final int runSize) {
+        this.sort = sort;
+        this.offset = offset;
+        this.limit = limit;
+        this.runSize = runSize;
+
+        final long wanted = limit == Long.MAX_VALUE ? Long.MAX_VALUE : offset + limit;
+        if (wanted <= runSize) {
+            this.keep = (int) wanted;
+            this.top = new PriorityQueue<>(Math.max(1, keep), Collections.reverseOrder());
+        } else {
+            this.keep = -1;
+            this.top = null;
+        }
+    }
+
+    /**
+     * The position in each row of the fields we sort on, in sort
+     * order.  Sort fields that are not shown are ignored.
+     */
+    private static int[] columns(final String[] fields, final String[] sort) {
+        final List<String> names = Arrays.asList(fields);
+        return Arrays.stream(sort)
+                .mapToInt(names::indexOf)
+                .filter(i -> i >= 0)
+                .toArray();
+    }
+
+    /**
+     * All rows of a table have the same fields, the positions of the
+     * sort fields are looked up with the first one
+     */
+    public void add(final String[] fields, final List<Item> row) {
+        if (columns == null) {
+            columns = columns(fields, sort);
+        }
+
+        final Entry entry = new Entry(key(row), sequence++, row);
+
+        if (top != null) {
+            if (top.size() < keep) {
+                top.add(entry);
+            } else if (keep > 0 && entry.compareTo(top.peek()) < 0) {
+                top.poll();
+                top.add(entry);
+            }
+            return;
+        }
+
+        if (spillable) {
+            spillable = isEncodable(entry.key);
+        }
+
+        run.add(entry);
+
+        if (run.size() >= runSize && spillable) {
+            spill();
+        }
+    }
+
+    private Item[] key(final List<Item> row) {
+        final Item[] key = new Item[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            key[i] = row.get(columns[i]);
+        }
+        return key;
+    }
+
+    /**
+     * Run files only hold strings and boxed primitives, which read back
+     * the same whatever class loader the command came from.  Rows sorted
+     * on any other kind of value could not be compared again after being
+     * read, so they are kept in memory.
+     */
+    private static boolean isEncodable(final Item[] key) {
+        for (final Item item : key) {
+            if (tag(item.getObject()) == UNKNOWN) return false;
+        }
+        return true;
+    }
+
+    /**
+     * The rows in sort order, after skipping the offset and
+     * stopping at the limit
+     */
+    public Iterator<List<Item>> iterator() {
+        final Iterator<Entry> entries;
+
+        if (top != null) {
+            final List<Entry> kept = new ArrayList<>(top);
+            Collections.sort(kept);
+            entries = kept.iterator();
+        } else if (runs.isEmpty()) {
+            Collections.sort(run);
+            entries = run.iterator();
+        } else {
+            entries = merge();
+        }
+
+        for (long skipped = 0; skipped < offset && entries.hasNext(); skipped++) {
+            entries.next();
+        }
+
+        return new Iterator<List<Item>>() {
+            private long returned;
+
+            @Override
+            public boolean hasNext() {
+                return returned < limit && entries.hasNext();
+            }
+
+            @Override
+            public List<Item> next() {
+                returned++;
+                return entries.next().row;
+            }
+        };
+    }
+
+    /**
+     * Writes the run to a temp file only the current user can read.  The
+     * sort values are written with their type, the other columns as the
+     * strings they are shown as, plus their value when it is one the run
+     * file can hold, as the output formats may still want numbers typed.
+     */
+    private void spill() {
+        Collections.sort(run);
+
+        final File file;
+        try {
+            file = Files.createTempFile("crest-table-", ".run").toFile();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            for (final Entry entry : run) {
+                out.writeLong(entry.sequence);
+                out.writeInt(entry.row.size());
+                for (final Item item : entry.row) {
+                    writeString(out, item.getString());
+                    writeValue(out, item.getObject());
+                }
+            }
+        } catch (final IOException e) {
+            delete(file);
+            throw new UncheckedIOException(e);
+        }
+
+        runs.add(file);
+        run.clear();
+    }
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte CHARACTER = 3;
+    private static final byte BYTE = 4;
+    private static final byte SHORT = 5;
+    private static final byte INTEGER = 6;
+    private static final byte LONG = 7;
+    private static final byte FLOAT = 8;
+    private static final byte DOUBLE = 9;
+    private static final byte BIG_INTEGER = 10;
+    private static final byte BIG_DECIMAL = 11;
+    private static final byte UNKNOWN = -1;
+
+    private static byte tag(final Object object) {
+        if (object == null) return NULL;
+
+        final Class<?> type = object.getClass();
+        if (type == String.class) return STRING;
+        if (type == Boolean.class) return BOOLEAN;
+        if (type == Character.class) return CHARACTER;
+        if (type == Byte.class) return BYTE;
+        if (type == Short.class) return SHORT;
+        if (type == Integer.class) return INTEGER;
+        if (type == Long.class) return LONG;
+        if (type == Float.class) return FLOAT;
+        if (type == Double.class) return DOUBLE;
+        if (type == BigInteger.class) return BIG_INTEGER;
+        if (type == BigDecimal.class) return BIG_DECIMAL;
+        return UNKNOWN;
+    }
+
+    /**
+     * Values of other types are written as null, which only happens for
+     * columns that are not sorted on
+     */
+    private static void writeValue(final DataOutputStream out, final Object object) throws IOException {
+        final byte tag = tag(object);
+        out.writeByte(tag == UNKNOWN ? NULL : tag);
+
+        switch (tag) {
+            case STRING:
+                writeString(out, (String) object);
+                break;
+            case BOOLEAN:
+                out.writeBoolean((Boolean) object);
+                break;
+            case CHARACTER:
+                out.writeChar((Character) object);
+                break;
+            case BYTE:
+                out.writeByte((Byte) object);
+                break;
+            case SHORT:
+                out.writeShort((Short) object);
+                break;
+            case INTEGER:
+                out.writeInt((Integer) object);
+                break;
+            case LONG:
+                out.writeLong((Long) object);
+                break;
+            case FLOAT:
+                out.writeFloat((Float) object);
+                break;
+            case DOUBLE:
+                out.writeDouble((Double) object);
+                break;
+            case BIG_INTEGER:
+            case BIG_DECIMAL:
+                writeString(out, object.toString());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static Object readValue(final DataInputStream in) throws IOException {
+        final byte tag = in.readByte();
+        switch (tag) {
+            case NULL: return null;
+            case STRING: return readString(in);
+            case BOOLEAN: return in.readBoolean();
+            case CHARACTER: return in.readChar();
+            case BYTE: return in.readByte();
+            case SHORT: return in.readShort();
+            case INTEGER: return in.readInt();
+            case LONG: return in.readLong();
+            case FLOAT: return in.readFloat();
+            case DOUBLE: return in.readDouble();
+            case BIG_INTEGER: return new BigInteger(readString(in));
+            case BIG_DECIMAL: return new BigDecimal(readString(in));
+            default: throw new IOException("Unknown value in run file: " + tag);
+        }
+    }
+
+    /**
+     * writeUTF is limited to 64k, which a cell may well exceed
+     */
+    private static void writeString(final DataOutputStream out, final String string) throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) return null;
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void delete(final File file) {
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * Merges the runs on disk with the rows still in memory.  Each source
+     * is already sorted, so the next row is always the head of one of them.
+     */
+    private Iterator<Entry> merge() {
+        Collections.sort(run);
+
+        final PriorityQueue<Source> sources = new PriorityQueue<>();
+        for (final File file : runs) {
+            final Source source = new RunFile(file);
+            this.sources.add(source);
+            if (source.advance()) sources.add(source);
+        }
+
+        final Source memory = new InMemory(run.iterator());
+        if (memory.advance()) sources.add(memory);
+
+        return new Iterator<Entry>() {
+            @Override
+            public boolean hasNext() {
+                return !sources.isEmpty();
+            }
+
+            @Override
+            public Entry next() {
+                final Source source = sources.poll();
+                final Entry entry = source.head;
+                if (source.advance()) sources.add(source);
+                return entry;
+            }
+        };
+    }
+
+    /**
+     * Closes the runs still being read, as the merge may stop before
+     * their end, and deletes their files
+     */
+    @Override
+    public void close() {
+        for (final Source source : sources) {
+            source.close();
+        }
+        sources.clear();
+
+        for (final File file : runs) {
+            delete(file);
+        }
+        runs.clear();
+        run.clear();
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final Item[] key;
+        private final long sequence;
+        private final List<Item> row;
+
+        private Entry(final Item[] key, final long sequence, final List<Item> row) {
+            this.key = key;
+            this.sequence = sequence;
+            this.row = row;
+        }
+
+        @Override
+        public int compareTo(final Entry that) {
+            for (int i = 0; i < key.length; i++) {
+                final int compare = this.key[i].compareTo(that.key[i]);
+                if (compare != 0) return compare;
+            }
+            return Long.compare(this.sequence, that.sequence);
+        }
+    }
+
+    private abstract static class Source implements Comparable<Source>, Closeable {
+        private Entry head;
+
+        /**
+         * Moves on to the next row, returning false when there are none left
+         */
+        final boolean advance() {
+            head = next();
+            return head != null;
+        }
+
+        protected abstract Entry next();
+
+        @Override
+        public void close() {
+            // no-op
+        }
+
+        @Override
+        public int compareTo(final Source that) {
+            return this.head.compareTo(that.head);
+        }
+    }
+
+    private static class InMemory extends Source {
+        private final Iterator<Entry> entries;
+
+        InMemory(final Iterator<Entry> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        protected Entry next() {
+            return entries.hasNext() ? entries.next() : null;
+        }
+    }
+
+    private class RunFile extends Source {
+        private final DataInputStream in;
+
+        RunFile(final File file) {
+            try {
+                this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        protected Entry next() {
+            try {
+                final long sequence;
+                try {
+                    sequence = in.readLong();
+                } catch (final EOFException e) {
+                    close();
+                    return null;
+                }
+
+                final int size = in.readInt();
+                final List<Item> row = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    final String string = readString(in);
+                    final Object object = readValue(in);
+                    row.add(new Item(object, string));
+                }
+                return new Entry(key(row), sequence, row);
+
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                in.close();
+            } catch (final IOException e) {
+                // no-op
+            }
+        }
+    }
+}
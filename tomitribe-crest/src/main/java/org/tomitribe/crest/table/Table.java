@@ -20,11 +20,8 @@ import org.tomitribe.util.Join;
 import org.tomitribe.util.PrintString;
 
 import java.io.PrintStream;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 class Table {
 
@@ -45,83 +42,54 @@ class Table {
     }
 
     public void format(final PrintStream out) {
-        final String rowFormat = getFormat(border.getRow());
+        final RowWriter writer = new RowWriter(out, border.getRow(), data.getColumns(), border::escape);
         final String rowSeparator = getLine(border.getInner());
 
-        final Consumer<Object> printSeparator = rowSeparator != null ? o -> out.println(rowSeparator) : o -> {
-        };
-        final Consumer<String[]> printRow = strings -> {
-            out.printf((rowFormat) + "%n", Stream.of(strings)
-                    .map(border::escape)
-                    .toArray());
-        };
-
-        final List<Data.Row> rows = new ArrayList<>(data.getRows());
+        final List<Data.Row> rows = data.getRows();
+        int next = 0;
 
         /*
          * Print the top border
          */
-        if (border.getFirst() != null) out.println(getLine(border.getFirst()));
+        if (border.getFirst() != null) writer.line(getLine(border.getFirst()));
 
         /*
          * Print the heading
          */
 
-        if (data.hasHeading()) {
+        if (data.hasHeading() && next < rows.size()) {
 
             /*
              * Some formats like tsv do not pad or center the heading
              * Check to see if padding is enabled
              */
-            if (border.getHeader() != null && border.getHeader().isPadded()) {
-
-                Stream.of(rows.remove(0))
-                        .map(Data.Row::toLines)
-                        .flatMap(Stream::of)
-                        .map(this::center) // this is the line that adds padding
-                        .forEach(printRow);
-            } else {
-
-                Stream.of(rows.remove(0))
-                        .map(Data.Row::toLines)
-                        .flatMap(Stream::of)
-                        .forEach(printRow);
-            }
-
-            if (border.getHeader() != null) out.println(getLine(border.getHeader()));
+            final boolean center = border.getHeader() != null && border.getHeader().isPadded();
+            writer.row(rows.get(next++), center);
+
+            if (border.getHeader() != null) writer.line(getLine(border.getHeader()));
         }
 
         /*
          * Print the first line after the heading
          */
-        if (rows.size() > 0) Stream.of(rows.remove(0))
-                .map(Data.Row::toLines)
-                .flatMap(Stream::of)
-                .forEach(printRow);
+        if (next < rows.size()) writer.row(rows.get(next++), false);
 
 
         /*
          * Print the remaining lines with a separator before
          * each one if we have a separator
          */
-        rows.stream()
-                .peek(printSeparator)
-                .map(Data.Row::toLines)
-                .flatMap(Stream::of)
-                .forEach(printRow);
+        while (next < rows.size()) {
+            if (rowSeparator != null) writer.line(rowSeparator);
+            writer.row(rows.get(next++), false);
+        }
 
         /*
          * Print the bottom border
          */
-        if (border.getLast() != null) out.println(getLine(border.getLast()));
-    }
+        if (border.getLast() != null) writer.line(getLine(border.getLast()));
 
-    private String[] center(final String[] strings) {
-        for (int column = 0; column < strings.length; column++) {
-            final int width = data.getColumns().get(column).getWidth().getMax();
-            strings[column] = Lines.center(strings[column], width);
-        }
-        return strings;
+        writer.flush();
     }
 
     public String getFormat(final Line line) {
@@ -15,13 +15,15 @@
  */
 package org.tomitribe.crest.table;
 
+import org.tomitribe.crest.Async;
 import org.tomitribe.crest.api.interceptor.CrestContext;
 import org.tomitribe.crest.api.interceptor.CrestInterceptor;
 import org.tomitribe.crest.api.table.Table;
+import org.tomitribe.crest.api.table.TableOptions;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Stream;
 
 @Table
@@ -30,9 +32,50 @@ public class TableInterceptor {
     @CrestInterceptor
     public Object intercept(final CrestContext crestContext) {
 
+        /*
+         * Let the command see the settings the table will be rendered
+         * with so it can push the projection and limits down itself
+         */
+        final Options resolved = Options.from(crestContext);
+        for (final Object parameter : crestContext.getParameters()) {
+            if (parameter instanceof TableOptions) {
+                resolved.resolve((TableOptions) parameter);
+            }
+        }
+
         final Object result = crestContext.proceed();
 
+        /*
+         * Paging is not idempotent, so the command does not get to change
+         * it by accident: the resolved limit and offset are used unless
+         * the command says it applied them itself
+         */
         final Options options = Options.from(crestContext);
+        options.setLimit(resolved.getLimit());
+        options.setOffset(resolved.getOffset());
+        for (final Object parameter : crestContext.getParameters()) {
+            if (parameter instanceof TableOptions && ((TableOptions) parameter).isPagingApplied()) {
+                options.setLimit(null);
+                options.setOffset(null);
+            }
+        }
+
+        /*
+         * An asynchronous result is formatted once it arrives,
+         * published items are formatted as they are published
+         */
+        if (result instanceof CompletionStage) {
+            final CompletionStage<?> stage = (CompletionStage<?>) result;
+            return stage.thenApply(value -> format(value, options));
+        }
+
+        return format(result, options);
+    }
+
+    private static Object format(final Object result, final Options options) {
+        if (Async.isPublisher(result)) {
+            return format(Async.stream(result), options);
+        }
 
         if (result instanceof Iterable) {
             final Iterable<?> list = (Iterable<?>) result;
@@ -41,8 +84,24 @@ public class TableInterceptor {
 
         if (result instanceof Stream) {
             final Stream<?> stream = (Stream<?>) result;
-            final List<?> list = stream.collect(Collectors.toList());
-            return new TableOutput(list, options);
+
+            /*
+             * The stream is read when the table is written.  Without
+             * a sort the rows past the limit are never shown, so
+             * stop pulling from the stream after them.
+             */
+            if (!Formatting.isSorted(options) && options.getLimit() != null && options.getLimit() >= 0) {
+                final Stream<?> limited = stream
+                        .skip(Formatting.offset(options))
+                        .limit(options.getLimit());
+
+                final Options applied = options.copy();
+                applied.setOffset(null);
+                applied.setLimit(null);
+                return new TableOutput(limited, applied);
+            }
+
+            return new TableOutput(stream, options);
         }
 
         if (result != null && result.getClass().isArray()) {
@@ -14,8 +14,12 @@
 package org.tomitribe.crest.table;
 
 import org.tomitribe.crest.api.PrintOutput;
+import org.tomitribe.crest.api.table.Format;
 import org.tomitribe.crest.api.table.TableOptions;
 import org.tomitribe.crest.term.Screen;
+import org.tomitribe.crest.trace.Phase;
+import org.tomitribe.crest.trace.Span;
+import org.tomitribe.crest.trace.Trace;
 
 import java.io.IOException;
 import java.io.PrintStream;
@@ -23,30 +27,68 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Objects;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Rows are read from the source only when the table is written, outside
+ * the interceptor chain.  A TableOutput built on a Stream can therefore
+ * be written only once; the stream is closed when writing ends.
+ */
 public class TableOutput implements PrintOutput {
-    private final Data data;
+    private final Iterable<?> iterable;
+    private final Stream<?> stream;
     private final Options options;
 
     public TableOutput(final Iterable<?> iterable, final Options options) {
         Objects.requireNonNull(iterable);
         Objects.requireNonNull(options);
-        this.data = Formatting.asTable(iterable, options);
+        this.iterable = iterable;
+        this.stream = null;
         this.options = options;
     }
 
-    @Override
-    public void write(final PrintStream out) throws IOException {
+    public TableOutput(final Stream<?> stream, final Options options) {
+        Objects.requireNonNull(stream);
+        Objects.requireNonNull(options);
+        this.iterable = iterable(stream);
+        this.stream = stream;
+        this.options = options;
+    }
 
-        final int guess = Screen.guessWidth();
-        final int width = guess > 0 ? guess : 150;
+    private static <T> Iterable<T> iterable(final Stream<T> stream) {
+        return stream::iterator;
+    }
 
-        final Border.Builder builder = getBuilder();
-        final Table table = new Table(data, builder.build(), width);
+    private boolean isRecords() {
+        return options.getFormat() != null && options.getFormat() != Format.text;
+    }
 
-        table.format(out);
+    @Override
+    public void write(final PrintStream out) throws IOException {
+        try (Span span = Trace.begin(Phase.TABLE, null, 0)) {
+            span.detail(String.valueOf(options.getFormat() != null ? options.getFormat() : options.getBorder()));
+            if (isRecords()) {
+                /*
+                 * Machine-readable formats are written row by row straight
+                 * from the source, there is no table to build up front
+                 */
+                Formatting.rows(iterable, options, Records.of(options.getFormat(), out));
+                out.flush();
+                return;
+            }
+
+            final Data data = Formatting.asTable(iterable, options);
+
+            final int guess = Screen.guessWidth();
+            final int width = guess > 0 ? guess : 150;
+
+            final Border.Builder builder = getBuilder();
+            final Table table = new Table(data, builder.build(), width);
+
+            table.format(out);
+        } finally {
+            if (stream != null) stream.close();
+        }
     }
 
     private Border.Builder getBuilder() {
@@ -77,6 +119,7 @@ public class TableOutput implements PrintOutput {
     public static class Builder {
         private final Options options = new Options();
         private Iterable<?> iterable;
+        private Stream<?> stream;
 
         public Builder() {
             options.setBorder(org.tomitribe.crest.api.table.Border.asciiCompact);
@@ -84,17 +127,20 @@ public class TableOutput implements PrintOutput {
         }
 
         public Builder data(final Stream<?> data) {
-            this.iterable = data.collect(Collectors.toList());
+            this.stream = data;
+            this.iterable = null;
             return this;
         }
 
         public Builder data(final Iterable<?> data) {
             this.iterable = data;
+            this.stream = null;
             return this;
         }
 
         public Builder data(final Object[] data) {
             this.iterable = Arrays.asList(data);
+            this.stream = null;
             return this;
         }
 
@@ -118,11 +164,29 @@ public class TableOutput implements PrintOutput {
             return this;
         }
 
+        public Builder format(final Format format) {
+            options.setFormat(format);
+            return this;
+        }
+
+        public Builder limit(final Integer limit) {
+            options.setLimit(limit);
+            return this;
+        }
+
+        public Builder offset(final Integer offset) {
+            options.setOffset(offset);
+            return this;
+        }
+
         public Builder options(final TableOptions tableOptions) {
             if (tableOptions.getFields() != null) options.setFields(tableOptions.getFields());
             if (tableOptions.getSort() != null) options.setSort(tableOptions.getSort());
             if (tableOptions.getBorder() != null) options.setBorder(tableOptions.getBorder());
             if (tableOptions.isHeader() != null) options.setHeader(tableOptions.isHeader());
+            if (tableOptions.getFormat() != null) options.setFormat(tableOptions.getFormat());
+            if (tableOptions.getLimit() != null) options.setLimit(tableOptions.getLimit());
+            if (tableOptions.getOffset() != null) options.setOffset(tableOptions.getOffset());
             return this;
         }
 
@@ -131,10 +195,14 @@ public class TableOutput implements PrintOutput {
             if (options.getSort() != null) this.options.setSort(options.getSort());
             if (options.getBorder() != null) this.options.setBorder(options.getBorder());
             if (options.isHeader() != null) this.options.setHeader(options.isHeader());
+            if (options.getFormat() != null) this.options.setFormat(options.getFormat());
+            if (options.getLimit() != null) this.options.setLimit(options.getLimit());
+            if (options.getOffset() != null) this.options.setOffset(options.getOffset());
             return this;
         }
 
         public TableOutput build() {
+            if (stream != null) return new TableOutput(stream, options);
             return new TableOutput(iterable, options);
         }
     }
@@ -16,10 +16,6 @@
  */
 package org.tomitribe.crest.table;
 
-import org.tomitribe.crest.help.Wrap;
-
-import java.util.stream.Stream;
-
 public class Width {
     public static final Width ZERO = new Width(0, 0);
     private final int min;
@@ -38,16 +34,29 @@ public class Width {
         return new Width(max, max);
     }
 
+    /**
+     * The maximum is the length of the string, the minimum its longest
+     * word — the width it would have wrapped as narrow as possible.
+     * Measured in one scan rather than by actually wrapping at width 1.
+     */
     public static Width ofString(final String string) {
-        final String wrapped = Wrap.wrap(string, 1);
-
-        final int maximum = string.length();
-        final int minimum = Stream.of(wrapped.split(System.lineSeparator()))
-                .map(String::length)
-                .reduce(Math::max)
-                .orElse(0);
-
-        return new Width(minimum, maximum);
+        final String separator = System.lineSeparator();
+
+        int minimum = 0;
+        int word = 0;
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+            if (c == ' ') {
+                word = 0;
+            } else if (string.startsWith(separator, i)) {
+                word = 0;
+                i += separator.length() - 1;
+            } else {
+                minimum = Math.max(minimum, ++word);
+            }
+        }
+
+        return new Width(minimum, string.length());
     }
 
     public Width adjust(final Width that) {
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.trace;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Crest is built for Java 8, which has no jdk.jfr API to compile
+ * against, so the events are defined at runtime with jdk.jfr.EventFactory
+ * and everything is reached through reflection.
+ *
+ * A listener on the Flight Recorder keeps a flag saying whether any
+ * recording is running.  The event types are only registered once one is.
+ */
+final class FlightRecorderEvents {
+
+    private static final Api API = Api.load();
+
+    private static volatile boolean recording;
+
+    private static volatile Object[] factories;
+
+    static {
+        if (API != null) API.listen();
+    }
+
+    private FlightRecorderEvents() {
+        // no-op
+    }
+
+    static boolean isRecording() {
+        return recording;
+    }
+
+    static Object newEvent(final Phase phase) {
+        try {
+            final Object factory = factories()[phase.ordinal()];
+            return API.newEvent.invoke(factory);
+        } catch (final Exception e) {
+            return null;
+        }
+    }
+
+    static void begin(final Object event) {
+        try {
+            API.begin.invoke(event);
+        } catch (final Exception e) {
+            // the event is simply not recorded
+        }
+    }
+
+    static void commit(final Object event, final String command, final int arguments, final String detail) {
+        try {
+            API.end.invoke(event);
+            if (!(Boolean) API.shouldCommit.invoke(event)) return;
+
+            API.set.invoke(event, 0, command);
+            API.set.invoke(event, 1, arguments);
+            API.set.invoke(event, 2, detail);
+            API.commit.invoke(event);
+        } catch (final Exception e) {
+            // the event is simply not recorded
+        }
+    }
+
+    private static Object[] factories() throws Exception {
+        Object[] factories = FlightRecorderEvents.factories;
+        if (factories == null) {
+            synchronized (FlightRecorderEvents.class) {
+                factories = FlightRecorderEvents.factories;
+                if (factories == null) {
+                    final Phase[] phases = Phase.values();
+                    factories = new Object[phases.length];
+                    for (final Phase phase : phases) {
+                        factories[phase.ordinal()] = API.factory(phase);
+                    }
+                    FlightRecorderEvents.factories = factories;
+                }
+            }
+        }
+        return factories;
+    }
+
+    private static void update(final Object changed) {
+        try {
+            if (changed != null && API.isRunning(changed)) {
+                recording = true;
+                return;
+            }
+
+            boolean running = false;
+            final Object recorder = API.getFlightRecorder.invoke(null);
+            for (final Object r : (List<?>) API.getRecordings.invoke(recorder)) {
+                running |= API.isRunning(r);
+            }
+            recording = running;
+        } catch (final Exception e) {
+            recording = false;
+        }
+    }
+
+    private static final class Api {
+        private final Class<?> flightRecorderListener;
+        private final Method addListener;
+        private final Method getFlightRecorder;
+        private final Method getRecordings;
+        private final Method getState;
+
+        private final Method create;
+        private final Method newEvent;
+        private final Constructor<?> annotationElement;
+        private final Constructor<?> valueDescriptor;
+        private final Class<?> name;
+        private final Class<?> label;
+        private final Class<?> description;
+        private final Class<?> category;
+        private final Class<?> stackTrace;
+
+        private final Method begin;
+        private final Method end;
+        private final Method shouldCommit;
+        private final Method commit;
+        private final Method set;
+
+        private Api() throws Exception {
+            final Class<?> flightRecorder = Class.forName("jdk.jfr.FlightRecorder");
+            final Class<?> recording = Class.forName("jdk.jfr.Recording");
+            flightRecorderListener = Class.forName("jdk.jfr.FlightRecorderListener");
+            addListener = flightRecorder.getMethod("addListener", flightRecorderListener);
+            getFlightRecorder = flightRecorder.getMethod("getFlightRecorder");
+            getRecordings = flightRecorder.getMethod("getRecordings");
+            getState = recording.getMethod("getState");
+
+            final Class<?> eventFactory = Class.forName("jdk.jfr.EventFactory");
+            final Class<?> element = Class.forName("jdk.jfr.AnnotationElement");
+            create = eventFactory.getMethod("create", List.class, List.class);
+            newEvent = eventFactory.getMethod("newEvent");
+            annotationElement = element.getConstructor(Class.class, Object.class);
+            valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class, List.class);
+            name = Class.forName("jdk.jfr.Name");
+            label = Class.forName("jdk.jfr.Label");
+            description = Class.forName("jdk.jfr.Description");
+            category = Class.forName("jdk.jfr.Category");
+            stackTrace = Class.forName("jdk.jfr.StackTrace");
+
+            final Class<?> event = Class.forName("jdk.jfr.Event");
+            begin = event.getMethod("begin");
+            end = event.getMethod("end");
+            shouldCommit = event.getMethod("shouldCommit");
+            commit = event.getMethod("commit");
+            set = event.getMethod("set", int.class, Object.class);
+        }
+
+        static Api load() {
+            try {
+                return new Api();
+            } catch (final Exception | LinkageError e) {
+                // No Flight Recorder in this JVM
+                return null;
+            }
+        }
+
+        void listen() {
+            final Object listener = Proxy.newProxyInstance(FlightRecorderEvents.class.getClassLoader(),
+                    new Class<?>[]{flightRecorderListener}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "recordingStateChanged":
+                                update(args[0]);
+                                return null;
+                            case "recorderInitialized":
+                                update(null);
+                                return null;
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "equals":
+                                return proxy == args[0];
+                            case "toString":
+                                return "crest";
+                            default:
+                                return null;
+                        }
+                    });
+
+            try {
+                addListener.invoke(null, listener);
+            } catch (final Exception e) {
+                // Events are never recorded
+            }
+        }
+
+        boolean isRunning(final Object recording) throws Exception {
+            return "RUNNING".equals(((Enum<?>) getState.invoke(recording)).name());
+        }
+
+        /**
+         * The event has the command, the argument count and a detail
+         * field, in that order
+         */
+        Object factory(final Phase phase) throws Exception {
+            final List<Object> annotations = Arrays.asList(
+                    annotationElement.newInstance(name, phase.getEventName()),
+                    annotationElement.newInstance(label, phase.getLabel()),
+                    annotationElement.newInstance(description, phase.getDescription()),
+                    annotationElement.newInstance(category, new String[]{"Crest"}),
+                    annotationElement.newInstance(stackTrace, false));
+
+            final List<Object> fields = Arrays.asList(
+                    valueDescriptor.newInstance(String.class, "command", labelled("Command")),
+                    valueDescriptor.newInstance(int.class, "arguments", labelled("Arguments")),
+                    valueDescriptor.newInstance(String.class, "detail", labelled("Detail")));
+
+            return create.invoke(null, annotations, fields);
+        }
+
+        private List<Object> labelled(final String text) throws Exception {
+            return Arrays.asList(annotationElement.newInstance(label, text));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.trace;
+
+/**
+ * The steps of one crest invocation, in the order they happen
+ */
+public enum Phase {
+    SPLIT("Split", "Split Arguments", "Separate global options, the command name and the command arguments"),
+    GLOBAL_OPTIONS("GlobalOptions", "Parse Global Options", "Convert global options into their @GlobalOptions beans"),
+    PARSE("Parse", "Parse Arguments", "Match command arguments to the options and arguments of the command"),
+    CONVERT("Convert", "Convert Arguments", "Convert option and argument strings to the parameter types of the command"),
+    VALIDATE("Validate", "Validate Arguments", "Bean validation of the command parameters"),
+    INTERCEPTOR("Interceptor", "Interceptor", "One interceptor, including everything after it in the chain"),
+    INVOKE("Invoke", "Invoke Command", "The command method itself"),
+    RENDER("Render", "Render Result", "Write the result of the command to the output"),
+    TABLE("Table", "Write Table", "Format and write a table");
+
+    private final String eventName;
+    private final String label;
+    private final String description;
+
+    Phase(final String name, final String label, final String description) {
+        this.eventName = "org.tomitribe.crest." + name;
+        this.label = label;
+        this.description = description;
+    }
+
+    /**
+     * The name of the Flight Recorder event
+     */
+    public String getEventName() {
+        return eventName;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
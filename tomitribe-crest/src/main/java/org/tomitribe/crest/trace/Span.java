@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.trace;
+
+import org.tomitribe.crest.metrics.CommandMetrics;
+
+/**
+ * The time spent in one phase of an invocation.  Closing the span
+ * records it.
+ *
+ * Spans are only created while a Flight Recorder recording is running
+ * or metrics are on.  Otherwise Trace.begin() returns NONE, which does
+ * nothing at all.
+ */
+public class Span implements AutoCloseable {
+
+    public static final Span NONE = new Span();
+
+    private Span() {
+    }
+
+    /**
+     * The command, where it was not known when the span began
+     */
+    public Span command(final String command) {
+        return this;
+    }
+
+    /**
+     * What the phase worked on, such as the interceptor class or the
+     * type of the result
+     */
+    public Span detail(final String detail) {
+        return this;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    static Span of(final Phase phase, final Object event, final CommandMetrics metrics,
+                   final String command, final int arguments) {
+        return new Recorded(phase, event, metrics, command, arguments);
+    }
+
+    /**
+     * @see FlightRecorderEvents
+     * @see CommandMetrics
+     */
+    private static final class Recorded extends Span {
+        private final Phase phase;
+        private final Object event;
+        private final CommandMetrics metrics;
+        private final long start;
+        private String command;
+        private final int arguments;
+        private String detail;
+
+        private Recorded(final Phase phase, final Object event, final CommandMetrics metrics,
+                         final String command, final int arguments) {
+            this.phase = phase;
+            this.event = event;
+            this.metrics = metrics;
+            this.command = command;
+            this.arguments = arguments;
+            this.start = metrics != null ? System.nanoTime() : 0;
+            if (event != null) FlightRecorderEvents.begin(event);
+        }
+
+        @Override
+        public Span command(final String command) {
+            this.command = command;
+            return this;
+        }
+
+        @Override
+        public Span detail(final String detail) {
+            this.detail = detail;
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (metrics != null) metrics.record(phase, System.nanoTime() - start);
+            if (event != null) FlightRecorderEvents.commit(event, command, arguments, detail);
+        }
+    }
+}
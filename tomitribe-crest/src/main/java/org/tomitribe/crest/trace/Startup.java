@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.trace;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * With -Dcrest.trace.startup set, each step of building a Main is timed
+ * and a report sorted by time is printed to stderr once the Main is
+ * constructed: loading the command classes, each Loader, reading the
+ * manifests, processing each class, installing help and linking each
+ * command.
+ *
+ * Allocation is measured per thread where the JVM supports it.
+ */
+public final class Startup {
+
+    public static final String PROPERTY = "crest.trace.startup";
+
+    private static final List<Step> STEPS = new ArrayList<>();
+
+    private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    private Startup() {
+        // no-op
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(PROPERTY);
+    }
+
+    /**
+     * @param step   what is being done, such as "processClass"
+     * @param detail what it is done to, such as the class name
+     */
+    public static Step begin(final String step, final Object detail) {
+        if (!isEnabled()) return Step.NONE;
+        return new Step(step, detail == null ? "" : String.valueOf(detail));
+    }
+
+    /**
+     * Prints the steps recorded so far, slowest first, and forgets them
+     */
+    public static void report(final PrintStream out) {
+        final List<Step> steps;
+        synchronized (STEPS) {
+            if (STEPS.isEmpty()) return;
+            steps = new ArrayList<>(STEPS);
+            STEPS.clear();
+        }
+
+        long nanos = 0;
+        long bytes = 0;
+        for (final Step step : steps) {
+            if (step.depth > 0) continue;
+            nanos += step.nanos;
+            bytes += Math.max(0, step.bytes);
+        }
+
+        steps.sort(Comparator.comparingLong((Step step) -> step.nanos).reversed());
+
+        out.printf(Locale.ROOT, "crest startup: %.3f ms, %d KB allocated%n", nanos / 1e6, bytes / 1024);
+        out.printf(Locale.ROOT, "%10s %10s  %-14s %s%n", "ms", "KB", "step", "detail");
+        for (final Step step : steps) {
+            out.printf(Locale.ROOT, "%10.3f %10s  %-14s %s%n",
+                    step.nanos / 1e6,
+                    step.bytes < 0 ? "-" : Long.toString(step.bytes / 1024),
+                    indent(step.depth) + step.name,
+                    step.detail);
+        }
+        out.flush();
+    }
+
+    private static String indent(final int depth) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            sb.append("  ");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Bytes allocated by this thread so far, or -1 if not supported
+     */
+    private static long allocated() {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * One timed step.  Steps begun while another is open are nested in it
+     * and are shown indented; only the outermost count toward the total.
+     */
+    public static class Step implements AutoCloseable {
+
+        public static final Step NONE = new Step();
+
+        private final String name;
+        private String detail;
+        private final int depth;
+        private final long start;
+        private final long startBytes;
+        private long nanos;
+        private long bytes;
+
+        private Step() {
+            this.name = null;
+            this.detail = null;
+            this.depth = 0;
+            this.start = 0;
+            this.startBytes = 0;
+        }
+
+        private Step(final String name, final String detail) {
+            this.name = name;
+            this.detail = detail;
+            this.depth = DEPTH.get()[0]++;
+            this.startBytes = allocated();
+            this.start = System.nanoTime();
+        }
+
+        /**
+         * What the step worked on, where it was not known when it began
+         */
+        public Step detail(final Object detail) {
+            if (this != NONE) this.detail = String.valueOf(detail);
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (this == NONE) return;
+
+            nanos = System.nanoTime() - start;
+            final long end = allocated();
+            bytes = end < 0 || startBytes < 0 ? -1 : end - startBytes;
+            DEPTH.get()[0]--;
+
+            synchronized (STEPS) {
+                STEPS.add(this);
+            }
+        }
+    }
+}
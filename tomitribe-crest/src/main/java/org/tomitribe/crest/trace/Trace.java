@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.trace;
+
+import org.tomitribe.crest.metrics.CommandMetrics;
+import org.tomitribe.crest.metrics.Metrics;
+
+/**
+ * Records the phases of each invocation as JDK Flight Recorder events,
+ * so a recording started with -XX:StartFlightRecording shows where a slow
+ * invocation spent its time.
+ *
+ * <pre>
+ * try (Span span = Trace.begin(Phase.PARSE, name, args.length)) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * The same phases feed the latency histograms of Metrics, when on.
+ *
+ * When no recording is running, or the JVM has no Flight Recorder, and
+ * metrics are off, begin() reads two volatile fields and returns Span.NONE.
+ */
+public final class Trace {
+
+    private Trace() {
+        // no-op
+    }
+
+    public static boolean isRecording() {
+        return FlightRecorderEvents.isRecording();
+    }
+
+    /**
+     * @param command   the command name, if known yet
+     * @param arguments the number of arguments the phase works on
+     */
+    public static Span begin(final Phase phase, final String command, final int arguments) {
+        final CommandMetrics metrics = Metrics.current();
+        final Object event = FlightRecorderEvents.isRecording() ? FlightRecorderEvents.newEvent(phase) : null;
+        if (event == null && metrics == null) return Span.NONE;
+
+        return Span.of(phase, event, metrics, command, arguments);
+    }
+}
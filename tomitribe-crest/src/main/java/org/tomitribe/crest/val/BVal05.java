@@ -33,6 +33,7 @@ public class BVal05 extends BeanValidationMessages {
     private final Method validateMethodParameters;
     private final Method validateConstructorParamters;
     private final Method byProviderMethod;
+    private volatile Object validator;
 
     public BVal05() { // not static for laziness
         try {
@@ -81,13 +82,27 @@ public class BVal05 extends BeanValidationMessages {
     }
 
     private Object getValidatorObject() {
+        Object object = validator;
+        if (object == null) {
+            synchronized (this) {
+                object = validator;
+                if (object == null) {
+                    object = buildValidatorObject();
+                    validator = object;
+                }
+            }
+        }
+        return object;
+    }
+
+    private Object buildValidatorObject() {
         try {
             final ProviderSpecificBootstrap<?> provider = (ProviderSpecificBootstrap<?>) byProviderMethod.invoke(null, providerClass);
             return provider.configure().buildValidatorFactory().getValidator().unwrap(unwrapClass);
-        } catch (final IllegalAccessException e) {
-            throw new IllegalStateException(e);
+        } catch (final IllegalAccessException | RuntimeException e) {
+            throw new ValidatorUnavailableException(e);
         } catch (final InvocationTargetException e) {
-            throw new IllegalStateException(e);
+            throw new ValidatorUnavailableException(e.getCause());
         }
     }
 }
@@ -16,6 +16,10 @@
  */
 package org.tomitribe.crest.val;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Optional;
 import java.util.function.Function;
 
 /**
@@ -28,20 +32,71 @@ public class BeanValidation {
     }
 
     public static BeanValidationImpl create(final Function<Class<?>, Object> validatorLookup) {
-        BeanValidationImpl impl = null;
+        return new BuiltInValidation(new Lazy(), validatorLookup);
+    }
+
+    private static BeanValidationImpl probe() {
         final ClassLoader loader = BeanValidation.class.getClassLoader();
         try {
             Class.forName("javax.validation.executable.ExecutableValidator", false, loader);
-            impl = new BeanValidation11();
+            return new BeanValidation11();
         } catch (final ClassNotFoundException e) {
             try {
                 Class.forName("org.apache.bval.jsr303.extensions.MethodValidator", false, loader);
-                impl = new BVal05();
+                return new BVal05();
             } catch (final ClassNotFoundException cnfe) {
-                // no-op
+                return null;
             }
         }
-        return new BuiltInValidation(impl, validatorLookup);
     }
-}
 
+    /**
+     * Defers probing for a bean validation provider until the first
+     * constrained command or @Options bean is actually validated.  Crest
+     * only validates executables that carry constraints, so a catalogue
+     * without any never loads the javax.validation API at all.
+     */
+    private static class Lazy implements BeanValidationImpl {
+        private volatile Optional<BeanValidationImpl> delegate;
+
+        private Optional<BeanValidationImpl> get() {
+            Optional<BeanValidationImpl> impl = delegate;
+            if (impl == null) {
+                synchronized (this) {
+                    impl = delegate;
+                    if (impl == null) {
+                        try {
+                            impl = Optional.ofNullable(probe());
+                        } catch (final RuntimeException e) {
+                            throw new ValidatorUnavailableException(e);
+                        }
+                        delegate = impl;
+                    }
+                }
+            }
+            return impl;
+        }
+
+        @Override
+        public void validateParameters(final Object instanceOrClass, final Method method, final Object[] parameters) {
+            get().ifPresent(impl -> impl.validateParameters(instanceOrClass, method, parameters));
+        }
+
+        @Override
+        public void validateParameters(final Constructor constructor, final Object[] parameters) {
+            get().ifPresent(impl -> impl.validateParameters(constructor, parameters));
+        }
+
+        @Override
+        public Optional<List<String>> messages(final Throwable exception) {
+            final Optional<BeanValidationImpl> impl = delegate;
+
+            // Nothing was validated yet, so no violation can exist
+            if (impl == null || !impl.isPresent()) {
+                return Optional.empty();
+            }
+
+            return impl.get().messages(exception);
+        }
+    }
+}
@@ -26,10 +26,30 @@ import java.lang.reflect.Method;
 import java.util.Set;
 
 class BeanValidation11 extends BeanValidationMessages {
-    private final ValidatorFactory validatorFactory;
+    private volatile ExecutableValidator executableValidator;
 
-    public BeanValidation11() {
-        validatorFactory = Validation.buildDefaultValidatorFactory();
+    /**
+     * The ValidatorFactory is only bootstrapped on the first constrained
+     * call; building it scans the provider configuration and is the bulk
+     * of the startup cost of bean validation.
+     */
+    private ExecutableValidator getExecutableValidator() {
+        ExecutableValidator validator = executableValidator;
+        if (validator == null) {
+            synchronized (this) {
+                validator = executableValidator;
+                if (validator == null) {
+                    try {
+                        final ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
+                        validator = validatorFactory.getValidator().forExecutables();
+                    } catch (final RuntimeException e) {
+                        throw new ValidatorUnavailableException(e);
+                    }
+                    executableValidator = validator;
+                }
+            }
+        }
+        return validator;
     }
 
     @Override
@@ -37,8 +57,7 @@ class BeanValidation11 extends BeanValidationMessages {
         if (instanceOrClass == null) { // bval 11 doesnt support it
             return;
         }
-        final ExecutableValidator executableValidator = validatorFactory.getValidator().forExecutables();
-        final Set<ConstraintViolation<Object>> violations = executableValidator.validateParameters(instanceOrClass, method, parameters);
+        final Set<ConstraintViolation<Object>> violations = getExecutableValidator().validateParameters(instanceOrClass, method, parameters);
         if (!violations.isEmpty()) {
             throw new ConstraintViolationException(violations);
         }
@@ -46,8 +65,7 @@ class BeanValidation11 extends BeanValidationMessages {
 
     @Override
     public void validateParameters(final Constructor constructor, final Object[] parameters) {
-        final ExecutableValidator executableValidator = validatorFactory.getValidator().forExecutables();
-        final Set<ConstraintViolation<?>> violations = executableValidator.validateConstructorParameters(constructor, parameters);
+        final Set<ConstraintViolation<?>> violations = getExecutableValidator().validateConstructorParameters(constructor, parameters);
         if (!violations.isEmpty()) {
             throw new ConstraintViolationException(violations);
         }
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.val;
+
+import org.tomitribe.crest.api.validation.Validation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedArrayType;
+import java.lang.reflect.AnnotatedParameterizedType;
+import java.lang.reflect.AnnotatedType;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Decides once, at deploy time, whether a command method or an @Options
+ * constructor carries anything a validator would look at.  Executables
+ * without constraints skip validation entirely at invocation time, which
+ * also means the bean validation provider is never bootstrapped for them.
+ *
+ * Annotations are matched by name so this works whether or not the
+ * javax.validation API is on the classpath.
+ */
+public final class Constraints {
+
+    private static final Set<String> CONSTRAINT_MARKERS = new HashSet<>(Arrays.asList(
+            "javax.validation.Constraint",
+            "jakarta.validation.Constraint"
+    ));
+
+    private static final Set<String> CASCADE_MARKERS = new HashSet<>(Arrays.asList(
+            "javax.validation.Valid",
+            "jakarta.validation.Valid"
+    ));
+
+    private Constraints() {
+        // no-op
+    }
+
+    public static boolean isConstrained(final Executable executable) {
+        if (hasConstraint(executable.getAnnotations())) {
+            return true;
+        }
+
+        for (final Parameter parameter : executable.getParameters()) {
+            if (hasConstraint(parameter.getAnnotations())) {
+                return true;
+            }
+            if (hasConstraint(parameter.getAnnotatedType())) {
+                return true;
+            }
+        }
+
+        /*
+         * Bean validation also applies the parameter constraints of
+         * overridden methods, so a command that implements a constrained
+         * interface method is constrained too.
+         */
+        if (executable instanceof Method) {
+            final Method method = (Method) executable;
+            for (final Class<?> type : supertypes(method.getDeclaringClass())) {
+                try {
+                    final Method overridden = type.getDeclaredMethod(method.getName(), method.getParameterTypes());
+                    if (overridden != null && isConstrained(overridden)) {
+                        return true;
+                    }
+                } catch (final NoSuchMethodException e) {
+                    // not declared at this level
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static Set<Class<?>> supertypes(final Class<?> clazz) {
+        final Set<Class<?>> types = new HashSet<>();
+        collectSupertypes(clazz, types);
+        types.remove(clazz);
+        types.remove(Object.class);
+        return types;
+    }
+
+    private static void collectSupertypes(final Class<?> clazz, final Set<Class<?>> types) {
+        if (clazz == null || !types.add(clazz)) {
+            return;
+        }
+        collectSupertypes(clazz.getSuperclass(), types);
+        for (final Class<?> anInterface : clazz.getInterfaces()) {
+            collectSupertypes(anInterface, types);
+        }
+    }
+
+    /**
+     * Container element constraints such as List<@NotEmpty String>
+     */
+    private static boolean hasConstraint(final AnnotatedType type) {
+        if (type == null) {
+            return false;
+        }
+
+        if (hasConstraint(type.getAnnotations())) {
+            return true;
+        }
+
+        if (type instanceof AnnotatedParameterizedType) {
+            for (final AnnotatedType argument : ((AnnotatedParameterizedType) type).getAnnotatedActualTypeArguments()) {
+                if (hasConstraint(argument)) {
+                    return true;
+                }
+            }
+        }
+
+        if (type instanceof AnnotatedArrayType) {
+            return hasConstraint(((AnnotatedArrayType) type).getAnnotatedGenericComponentType());
+        }
+
+        return false;
+    }
+
+    private static boolean hasConstraint(final Annotation[] annotations) {
+        for (final Annotation annotation : annotations) {
+            if (isConstraint(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isConstraint(final Annotation annotation) {
+        final Class<? extends Annotation> type = annotation.annotationType();
+
+        if (CASCADE_MARKERS.contains(type.getName())) {
+            return true;
+        }
+
+        if (type.isAnnotationPresent(Validation.class)) {
+            return true;
+        }
+
+        for (final Annotation meta : type.getAnnotations()) {
+            if (CONSTRAINT_MARKERS.contains(meta.annotationType().getName())) {
+                return true;
+            }
+        }
+
+        return isConstraintList(annotation);
+    }
+
+    /**
+     * Repeated constraints are wrapped in a container annotation,
+     * e.g. @Pattern.List, whose value() holds the actual constraints.
+     */
+    private static boolean isConstraintList(final Annotation annotation) {
+        final Method value;
+        try {
+            value = annotation.annotationType().getMethod("value");
+        } catch (final NoSuchMethodException e) {
+            return false;
+        }
+
+        if (!value.getReturnType().isArray() || !value.getReturnType().getComponentType().isAnnotation()) {
+            return false;
+        }
+
+        try {
+            value.setAccessible(true);
+            return hasConstraint((Annotation[]) value.invoke(annotation));
+        } catch (final Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.tomitribe.crest.api.Command;
+import org.tomitribe.crest.api.Exit;
+import org.tomitribe.crest.api.table.Border;
+import org.tomitribe.crest.api.table.Table;
+import org.tomitribe.crest.cmds.CommandFailedException;
+import org.tomitribe.util.PrintString;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncTest {
+
+    private static final String NL = System.lineSeparator();
+
+    public static class Fruit {
+        private final String name;
+        private final int count;
+
+        public Fruit(final String name, final int count) {
+            this.name = name;
+            this.count = count;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+
+    @Exit(7)
+    public static class Unavailable extends RuntimeException {
+        public Unavailable() {
+            super("unavailable");
+        }
+    }
+
+    public static class Commands {
+
+        @Command
+        public CompletableFuture<String> hello() {
+            return CompletableFuture.supplyAsync(() -> "hello");
+        }
+
+        @Command
+        @Table(fields = "name count", sort = "name", border = Border.tsv)
+        public CompletableFuture<List<Fruit>> fruit() {
+            return CompletableFuture.supplyAsync(() -> Arrays.asList(new Fruit("cherry", 12), new Fruit("apple", 3)));
+        }
+
+        @Command
+        public CompletableFuture<String> broken() {
+            final CompletableFuture<String> future = new CompletableFuture<>();
+            future.completeExceptionally(new Unavailable());
+            return future;
+        }
+
+        @Command
+        public Object numbers() throws Exception {
+            return publish(IntStream.range(0, 1000).boxed().collect(Collectors.toList()));
+        }
+
+        @Command
+        @Table(fields = "name count", border = Border.tsv, header = false)
+        public Object published() throws Exception {
+            return publish(Arrays.asList(new Fruit("cherry", 12), new Fruit("apple", 3)));
+        }
+    }
+
+    private static String run(final AtomicInteger exit, final String... args) {
+        final PrintString out = new PrintString();
+        final PrintString err = new PrintString();
+        Main.builder()
+                .command(Commands.class)
+                .out(out)
+                .err(err)
+                .exit(exit::set)
+                .build()
+                .run(args);
+        return out.toString() + err.toString();
+    }
+
+    @Test
+    public void future() {
+        assertEquals("hello" + NL, run(new AtomicInteger(), "hello"));
+    }
+
+    @Test
+    public void futureFormattedAsTable() {
+        assertEquals("name\tcount" + NL + "apple\t3" + NL + "cherry\t12" + NL,
+                run(new AtomicInteger(), "fruit").replace(" ", ""));
+    }
+
+    @Test
+    public void failedFuture() {
+        final AtomicInteger exit = new AtomicInteger();
+        assertEquals("unavailable" + NL, run(exit, "broken"));
+        assertEquals(7, exit.get());
+    }
+
+    @Test
+    public void cancelledOnInterrupt() throws Exception {
+        final CompletableFuture<String> never = new CompletableFuture<>();
+        final AtomicReference<Throwable> thrown = new AtomicReference<>();
+
+        final Thread thread = new Thread(() -> {
+            try {
+                Async.await(never);
+            } catch (final Throwable t) {
+                thrown.set(t);
+            }
+        });
+        thread.start();
+        Thread.sleep(50);
+        thread.interrupt();
+        thread.join(5000);
+
+        assertTrue(never.isCancelled());
+        assertTrue(thrown.get() instanceof InterruptedException);
+    }
+
+    @Test
+    public void publisher() {
+        final String expected = IntStream.range(0, 1000)
+                .mapToObj(i -> i + NL)
+                .collect(Collectors.joining());
+        assertEquals(expected, run(new AtomicInteger(), "numbers"));
+    }
+
+    @Test
+    public void publisherFormattedAsTable() {
+        assertEquals("cherry\t12" + NL + "apple\t3" + NL, run(new AtomicInteger(), "published").replace(" ", ""));
+    }
+
+    @Test
+    public void publisherIgnoringDemandFails() throws Exception {
+        final AtomicInteger cancelled = new AtomicInteger();
+        final Object publisher = flood(Async.DEMAND + 10, cancelled);
+
+        try (Stream<Object> stream = Async.stream(publisher)) {
+            stream.count();
+            fail("expected the stream to fail");
+        } catch (final CommandFailedException e) {
+            assertTrue(e.getCause().getMessage(), e.getCause().getMessage().contains("more items than the " + Async.DEMAND + " requested"));
+        }
+        assertEquals(1, cancelled.get());
+    }
+
+    /**
+     * A Flow.Publisher that sends all its items as soon as it is
+     * subscribed to, whatever was requested
+     */
+    private static Object flood(final int count, final AtomicInteger cancelled) throws Exception {
+        final Class<?> publisherType;
+        final Class<?> subscriberType;
+        final Class<?> subscriptionType;
+        try {
+            publisherType = Class.forName("java.util.concurrent.Flow$Publisher");
+            subscriberType = Class.forName("java.util.concurrent.Flow$Subscriber");
+            subscriptionType = Class.forName("java.util.concurrent.Flow$Subscription");
+        } catch (final ClassNotFoundException e) {
+            Assume.assumeTrue("Flow requires Java 9", false);
+            return null;
+        }
+
+        final Object subscription = Proxy.newProxyInstance(AsyncTest.class.getClassLoader(), new Class<?>[]{subscriptionType},
+                (proxy, method, args) -> {
+                    if ("cancel".equals(method.getName())) cancelled.incrementAndGet();
+                    return null;
+                });
+
+        return Proxy.newProxyInstance(AsyncTest.class.getClassLoader(), new Class<?>[]{publisherType},
+                (proxy, method, args) -> {
+                    if (!"subscribe".equals(method.getName())) return null;
+                    final Object subscriber = args[0];
+                    subscriberType.getMethod("onSubscribe", subscriptionType).invoke(subscriber, subscription);
+                    for (int i = 0; i < count; i++) {
+                        subscriberType.getMethod("onNext", Object.class).invoke(subscriber, i);
+                    }
+                    subscriberType.getMethod("onComplete").invoke(subscriber);
+                    return null;
+                });
+    }
+
+    /**
+     * Flow is not in Java 8, so SubmissionPublisher is used through
+     * reflection.  It only delivers items submitted after a subscriber
+     * arrived, which happens when the output is written.  Its submit
+     * blocks while the subscriber has not asked for more.
+     */
+    private static Object publish(final List<?> items) throws Exception {
+        final Class<?> type;
+        try {
+            type = Class.forName("java.util.concurrent.SubmissionPublisher");
+        } catch (final ClassNotFoundException e) {
+            Assume.assumeTrue("Flow requires Java 9", false);
+            return null;
+        }
+
+        final Object publisher = type.getConstructor().newInstance();
+        final Method subscribers = type.getMethod("getNumberOfSubscribers");
+        final Method submit = type.getMethod("submit", Object.class);
+        final Method close = type.getMethod("close");
+        final CountDownLatch started = new CountDownLatch(1);
+
+        final Thread producer = new Thread(() -> {
+            try {
+                started.countDown();
+                while ((int) subscribers.invoke(publisher) == 0) {
+                    Thread.sleep(1);
+                }
+                for (final Object item : items) {
+                    submit.invoke(publisher, item);
+                }
+                close.invoke(publisher);
+            } catch (final Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        producer.setDaemon(true);
+        producer.start();
+        started.await();
+        return publisher;
+    }
+}
@@ -19,12 +19,14 @@ package org.tomitribe.crest;
 import org.junit.Assert;
 import org.junit.Test;
 import org.tomitribe.crest.api.Command;
+import org.tomitribe.crest.api.Editor;
 import org.tomitribe.crest.api.GlobalOptions;
 import org.tomitribe.crest.api.Option;
 import org.tomitribe.crest.api.StreamingOutput;
 import org.tomitribe.crest.val.Exists;
 import org.tomitribe.util.IO;
 
+import java.beans.PropertyEditorSupport;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
@@ -68,6 +70,19 @@ public class BashCompletionTest {
         assertCompletion("globalFlags", Svn.class, Bar.class);
     }
 
+    @Test
+    public void dynamic() throws IOException {
+        assertCompletion("dynamic", Cloud.class, ProfileEditor.class);
+    }
+
+    @Test
+    public void dynamicValues() throws Exception {
+        final Main main = new Main(Cloud.class, ProfileEditor.class);
+        Assert.assertEquals("dev\nprod", main.exec("_completion_values", "cloud", "deploy", "profile"));
+        Assert.assertEquals("", main.exec("_completion_values", "cloud", "deploy", "force"));
+        Assert.assertEquals("", main.exec("_completion_values", "cloud", "undeploy", "profile"));
+    }
+
     private void assertCompletion(final String cmd, final Class<?>... clazzes) throws IOException {
         final URL resource = this.getClass().getClassLoader().getResource("completion/" + cmd + ".sh");
         Assert.assertNotNull(resource);
@@ -233,6 +248,40 @@ public class BashCompletionTest {
 
     }
 
+    @Command
+    public static class Cloud {
+
+        @Command
+        public StreamingOutput deploy(@Option("profile") Profile profile, @Option("force") boolean force, File archive) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public static class Profile {
+        private final String name;
+
+        public Profile(final String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Profiles are only known at runtime, so the script asks for them
+     */
+    @Editor(Profile.class)
+    public static class ProfileEditor extends PropertyEditorSupport {
+
+        @Override
+        public void setAsText(final String text) {
+            setValue(new Profile(text));
+        }
+
+        @Override
+        public String[] getTags() {
+            return new String[]{"dev", "prod"};
+        }
+    }
+
     @GlobalOptions
     public static class Bar {
         private final String orange;
@@ -0,0 +1,231 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest;
+
+import org.junit.Rule;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tomitribe.crest.api.Command;
+import org.tomitribe.crest.api.Exit;
+import org.tomitribe.crest.api.GlobalOptions;
+import org.tomitribe.crest.api.Option;
+import org.tomitribe.crest.environments.Environment;
+import org.tomitribe.util.IO;
+import org.tomitribe.util.PrintString;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchTest {
+
+    private static final String NL = System.lineSeparator();
+
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    private final PrintString out = new PrintString();
+    private final PrintString err = new PrintString();
+    private final AtomicInteger exit = new AtomicInteger();
+
+    private final Main main = Main.builder()
+            .command(Commands.class)
+            .command(Verbose.class)
+            .out(out)
+            .err(err)
+            .exit(exit::set)
+            .scripts()
+            .build();
+
+    @Exit(3)
+    public static class Broken extends RuntimeException {
+        public Broken() {
+            super("broken");
+        }
+    }
+
+    @GlobalOptions
+    public static class Verbose {
+        private final boolean verbose;
+
+        public Verbose(@Option("verbose") final boolean verbose) {
+            this.verbose = verbose;
+        }
+    }
+
+    public static class Commands {
+
+        @Command
+        public String echo(final String value) {
+            final Verbose verbose = Environment.get().getGlobalOption(Verbose.class);
+            return verbose != null && verbose.verbose ? "echo " + value : value;
+        }
+
+        @Command
+        public String sleep(final long millis, final String value) throws InterruptedException {
+            Thread.sleep(millis);
+            return value;
+        }
+
+        @Command
+        public void broken() {
+            throw new Broken();
+        }
+    }
+
+    private static List<String[]> lines(final String... lines) {
+        final String[][] args = new String[lines.length][];
+        for (int i = 0; i < lines.length; i++) {
+            args[i] = lines[i].split(" ");
+        }
+        return Arrays.asList(args);
+    }
+
+    @Test
+    public void linesRunInOrder() throws Exception {
+        main.execBatch(lines("echo one", "echo two", "echo three"));
+
+        assertEquals("one" + NL + "two" + NL + "three" + NL, out.toString());
+    }
+
+    /**
+     * Global options given on one line do not carry over to the next
+     */
+    @Test
+    public void globalOptionsPerLine() throws Exception {
+        main.execBatch(lines("--verbose echo one", "echo two"));
+
+        assertEquals("echo one" + NL + "two" + NL, out.toString());
+    }
+
+    @Test
+    public void stopsAtFirstFailure() throws Exception {
+        try {
+            main.execBatch(lines("echo one", "broken", "echo two"));
+            fail("Expected Broken");
+        } catch (final Broken expected) {
+            // pass
+        }
+
+        assertEquals("one" + NL, out.toString());
+    }
+
+    @Test
+    public void parallelOutputInLineOrder() throws Exception {
+        main.execBatch(main.environment, lines("sleep 300 one", "sleep 200 two", "sleep 100 three", "echo four"), 3);
+
+        assertEquals("one" + NL + "two" + NL + "three" + NL + "four" + NL, out.toString());
+    }
+
+    @Test
+    public void parallelStopsAtFirstFailure() throws Exception {
+        try {
+            main.execBatch(main.environment, lines("sleep 100 one", "broken", "echo two"), 2);
+            fail("Expected Broken");
+        } catch (final Broken expected) {
+            // pass
+        }
+
+        assertEquals("one" + NL, out.toString());
+    }
+
+    @Test
+    public void runScript() throws Exception {
+        final File script = new File(temp.getRoot(), "script.crest");
+        IO.copy(("# greetings" + NL + "echo hello" + NL + NL + "--verbose echo 'hello world'" + NL).getBytes(), script);
+
+        main.run("run", script.getAbsolutePath());
+
+        assertEquals("hello" + NL + "echo hello world" + NL, out.toString());
+        assertEquals(0, exit.get());
+    }
+
+    @Test
+    public void runScriptFailure() throws Exception {
+        final File script = new File(temp.getRoot(), "script.crest");
+        IO.copy(("echo hello" + NL + "broken" + NL + "echo never" + NL).getBytes(), script);
+
+        main.run("run", "--parallel=2", script.getAbsolutePath());
+
+        assertEquals("hello" + NL, out.toString());
+        assertEquals("broken" + NL, err.toString());
+        assertEquals(3, exit.get());
+    }
+
+    @Test
+    public void runListedInHelp() {
+        main.run("help");
+        assertTrue(out.toString(), out.toString().contains("   run"));
+    }
+
+    @Test
+    public void runOnlyWithScripts() throws Exception {
+        final File script = new File(temp.getRoot(), "script.crest");
+        IO.copy(("echo hello" + NL).getBytes(), script);
+
+        final PrintString out = new PrintString();
+        final PrintString err = new PrintString();
+        Main.builder()
+                .command(Commands.class)
+                .out(out)
+                .err(err)
+                .noexit()
+                .build()
+                .run("run", script.getAbsolutePath());
+
+        assertEquals("", out.toString());
+        assertTrue(err.toString(), err.toString().startsWith("Unknown command: run"));
+    }
+
+    @Test
+    public void linesWriteWithCharsetOfOutput() throws Exception {
+        Assume.assumeTrue("PrintStream.charset() requires Java 18", hasCharset());
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final Main main = Main.builder()
+                .command(Commands.class)
+                .out(new PrintStream(bytes, true, "UTF-16BE"))
+                .noexit()
+                .scripts()
+                .build();
+
+        main.execBatch(lines("echo h\u00e9", "echo d\u00e9j\u00e0"));
+        assertEquals("h\u00e9" + NL + "d\u00e9j\u00e0" + NL, new String(bytes.toByteArray(), StandardCharsets.UTF_16BE));
+
+        final File script = new File(temp.getRoot(), "script.crest");
+        IO.copy(("echo h\u00e9" + NL + "echo d\u00e9j\u00e0" + NL).getBytes(StandardCharsets.UTF_8), script);
+
+        bytes.reset();
+        main.run("run", "--parallel=2", script.getAbsolutePath());
+        assertEquals("h\u00e9" + NL + "d\u00e9j\u00e0" + NL, new String(bytes.toByteArray(), StandardCharsets.UTF_16BE));
+    }
+
+    private static boolean hasCharset() {
+        try {
+            PrintStream.class.getMethod("charset");
+            return true;
+        } catch (final NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
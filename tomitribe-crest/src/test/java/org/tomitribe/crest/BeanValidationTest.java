@@ -22,16 +22,26 @@ import org.junit.Test;
 import org.tomitribe.crest.api.Command;
 import org.tomitribe.crest.api.validation.Validation;
 import org.tomitribe.crest.cmds.Cmd;
+import org.tomitribe.crest.cmds.CmdMethod;
 import org.tomitribe.crest.cmds.HelpPrintedException;
 import org.tomitribe.crest.cmds.processors.Commands;
+import org.tomitribe.crest.cmds.targets.SimpleBean;
+import org.tomitribe.crest.val.BeanValidation;
+import org.tomitribe.crest.val.BeanValidationImpl;
 import org.tomitribe.crest.val.BuiltInValidation;
+import org.tomitribe.crest.val.Constraints;
 import org.tomitribe.crest.val.Directory;
 
 import javax.validation.ConstraintViolationException;
 import java.io.File;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Consumer;
 
 import static java.lang.annotation.ElementType.PARAMETER;
@@ -78,6 +88,116 @@ public class BeanValidationTest extends Assert {
     }
 
 
+    @Test
+    public void unconstrainedCommandsSkipValidation() throws Exception {
+        final Counting counting = new Counting();
+
+        final CmdMethod plain = new CmdMethod(Mixed.class.getMethod("plain", String.class), new SimpleBean(null), counting);
+        final CmdMethod checked = new CmdMethod(Mixed.class.getMethod("checked", String.class), new SimpleBean(null), counting);
+        plain.link(Collections.emptyMap());
+        checked.link(Collections.emptyMap());
+
+        plain.exec(null, "foo");
+        assertEquals(0, counting.calls);
+
+        checked.exec(null, "foo");
+        assertEquals(1, counting.calls);
+    }
+
+    @Test
+    public void constraintDiscovery() throws Exception {
+        assertFalse(Constraints.isConstrained(Mixed.class.getMethod("plain", String.class)));
+        assertTrue(Constraints.isConstrained(Mixed.class.getMethod("checked", String.class)));
+        assertTrue(Constraints.isConstrained(Mixed.class.getMethod("elements", List.class)));
+        assertTrue(Constraints.isConstrained(Mixed.class.getMethod("builtIn", File.class)));
+        assertTrue(Constraints.isConstrained(Mixed.class.getMethod("inherited", String.class)));
+    }
+
+    @Test
+    public void validatorIsBootstrappedOnFirstConstrainedCall() throws Exception {
+        final BeanValidationImpl validation = BeanValidation.create(type -> null);
+        final CmdMethod checked = new CmdMethod(Mixed.class.getMethod("checked", String.class), new SimpleBean(null), validation);
+        checked.link(Collections.emptyMap());
+
+        checked.exec(null, "foo");
+
+        try {
+            checked.exec(null, "");
+            fail();
+        } catch (final HelpPrintedException e) {
+            assertEquals(ConstraintViolationException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test
+    public void missingInstanceIsReportedWithHelp() throws Exception {
+        final CmdMethod checked = new CmdMethod(NoDefaultConstructor.class.getMethod("checked", String.class), new SimpleBean(null), new Counting());
+        checked.link(Collections.emptyMap());
+
+        try {
+            checked.exec(null, "foo");
+            fail();
+        } catch (final HelpPrintedException e) {
+            assertEquals(IllegalArgumentException.class, e.getCause().getClass());
+            assertTrue(e.getMessage().contains("using default constructor"));
+        }
+    }
+
+    public static class NoDefaultConstructor {
+        public NoDefaultConstructor(final String value) {
+        }
+
+        @Command
+        public void checked(@NotEmpty final String value) {
+        }
+    }
+
+    public interface Checked {
+        void inherited(@NotEmpty String value);
+    }
+
+    public static class Mixed implements Checked {
+        @Command
+        public void plain(final String value) {
+        }
+
+        @Command
+        public void checked(@NotEmpty final String value) {
+        }
+
+        @Command
+        public void elements(final List<@NotEmpty String> values) {
+        }
+
+        @Command
+        public void builtIn(@CrestDirectory final File dir) {
+        }
+
+        @Command
+        @Override
+        public void inherited(final String value) {
+        }
+    }
+
+    public static class Counting implements BeanValidationImpl {
+        private int calls;
+
+        @Override
+        public void validateParameters(final Object instanceOrClass, final Method method, final Object[] parameters) {
+            calls++;
+        }
+
+        @Override
+        public void validateParameters(final Constructor constructor, final Object[] parameters) {
+            calls++;
+        }
+
+        @Override
+        public Optional<List<String>> messages(final Throwable exception) {
+            return Optional.empty();
+        }
+    }
+
     public static class Duplicates {
 
         @Command
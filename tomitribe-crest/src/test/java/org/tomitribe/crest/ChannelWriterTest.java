@@ -0,0 +1,202 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.tomitribe.crest.api.Command;
+import org.tomitribe.crest.api.Option;
+import org.tomitribe.crest.api.Out;
+import org.tomitribe.crest.environments.SystemEnvironment;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertEquals;
+
+public class ChannelWriterTest {
+
+    private static final String CONTENT = "The quick brown fox jumps over the lazy dog\n";
+
+    private static Path source;
+
+    @Before
+    public void before() throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append(i).append(' ').append(CONTENT);
+        }
+        source = Files.createTempFile("channel-writer", ".txt");
+        Files.write(source, sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void after() throws IOException {
+        Files.deleteIfExists(source);
+    }
+
+    private static String content() throws IOException {
+        return new String(Files.readAllBytes(source), StandardCharsets.UTF_8);
+    }
+
+    public static class Export {
+
+        @Command
+        public Path path() {
+            return source;
+        }
+
+        @Command
+        public File file() {
+            return source.toFile();
+        }
+
+        @Command
+        public FileChannel whole() throws IOException {
+            return FileChannel.open(source, StandardOpenOption.READ);
+        }
+
+        @Command
+        public FileChannel seek(@Option("skip") final int skip) throws IOException {
+            final FileChannel channel = FileChannel.open(source, StandardOpenOption.READ);
+            channel.position(skip);
+            return channel;
+        }
+
+        @Command
+        public ReadableByteChannel channel() throws IOException {
+            return Channels.newChannel(Files.newInputStream(source));
+        }
+
+        @Command
+        public ByteBuffer heap() {
+            return ByteBuffer.wrap(CONTENT.getBytes(StandardCharsets.UTF_8), 4, 5);
+        }
+
+        @Command
+        public ByteBuffer direct() {
+            final byte[] bytes = CONTENT.getBytes(StandardCharsets.UTF_8);
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+            buffer.put(bytes).flip();
+            return buffer;
+        }
+
+        @Command
+        public FileChannel report(@Out final PrintStream out) throws IOException {
+            out.println("header");
+            return FileChannel.open(source, StandardOpenOption.READ);
+        }
+    }
+
+    private static String run(final String... args) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Main.builder()
+                .command(Export.class)
+                .out(new PrintStream(out))
+                .noexit()
+                .build()
+                .run(args);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Only channels and buffers opt in to raw bytes, existing commands
+     * returning a File or Path still print it
+     */
+    @Test
+    public void pathsAndFilesArePrinted() {
+        final String nl = System.lineSeparator();
+        assertEquals(source.toFile() + nl, run("file"));
+
+        final StringBuilder names = new StringBuilder();
+        source.forEach(name -> names.append(name).append(nl));
+        assertEquals(names.toString(), run("path"));
+    }
+
+    @Test
+    public void copiedThroughPrintStream() throws IOException {
+        assertEquals(content(), run("whole"));
+        assertEquals(content(), run("channel"));
+        assertEquals(content().substring(10), run("seek", "--skip=10"));
+        assertEquals("quick", run("heap"));
+        assertEquals(CONTENT, run("direct"));
+        assertEquals("header" + System.lineSeparator() + content(), run("report"));
+    }
+
+    /**
+     * With an output channel the bytes go to it directly, after
+     * anything the command printed to the PrintStream
+     */
+    @Test
+    public void transferredToOutputChannel() throws Exception {
+        final String[][] commands = {{"whole"}, {"channel"}, {"seek", "--skip=10"}, {"direct"}, {"report"}};
+        final String[] expected = {content(), content(), content().substring(10), CONTENT,
+                "header" + System.lineSeparator() + content()};
+
+        for (int i = 0; i < commands.length; i++) {
+            final Path target = Files.createTempFile("channel-writer", ".out");
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE)) {
+                final SystemEnvironment environment = SystemEnvironment.builder()
+                        .out(new PrintStream(Channels.newOutputStream(channel)))
+                        .outputChannel(channel)
+                        .err(System.err)
+                        .in(new ByteArrayInputStream(new byte[0]))
+                        .properties(System.getProperties())
+                        .build();
+
+                new Main(Export.class).main(environment, commands[i]);
+            }
+
+            try {
+                assertEquals(String.join(" ", commands[i]), expected[i],
+                        new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+            } finally {
+                Files.delete(target);
+            }
+        }
+    }
+
+    /**
+     * Unless stdout() was asked for, the bytes go through the
+     * PrintStream, so a redirected System.out sees them
+     */
+    @Test
+    public void redirectedSystemOut() throws IOException {
+        final PrintStream original = System.out;
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            Main.builder()
+                    .command(Export.class)
+                    .noexit()
+                    .build()
+                    .run("whole");
+        } finally {
+            System.setOut(original);
+        }
+        assertEquals(content(), new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
@@ -21,6 +21,7 @@ import java.io.PrintStream;
 import java.net.URI;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 
 import org.tomitribe.crest.api.Command;
@@ -184,6 +185,35 @@ public class CompleterTest extends TestCase {
         assertTrue(candidates.contains("--include"));
     }
 
+    /**
+     * Completion walks each level of nested command groups
+     */
+    public void testCompleteNestedGroups() throws Exception {
+        final Main main = new Main(Server.class);
+
+        Collection<String> candidates = main.complete("cloud ", 6);
+        assertEquals(Collections.singletonList("server "), candidates);
+
+        candidates = main.complete("cloud server ", 13);
+        assertEquals(Arrays.asList("restart ", "start ", "stop "), candidates);
+
+        candidates = main.complete("cloud server st", 15);
+        assertEquals(Arrays.asList("start ", "stop "), candidates);
+
+        candidates = main.complete("cloud server start --", 21);
+        assertEquals(Arrays.asList("--region", "--wait"), candidates);
+    }
+
+    public void testCompleteDashes() throws Exception {
+        final Main main = new Main(Dashes.class);
+
+        Collection<String> candidates = main.complete("revision-control ", 17);
+        assertEquals(Collections.singletonList("commit-code "), candidates);
+
+        candidates = main.complete("revision-control commit-code --", 31);
+        assertEquals(Arrays.asList("--pass-word", "--user-name"), candidates);
+    }
+
     public void testCompleteFile() throws Exception {
         final Main main = new Main(Svn.class, Copy.class);
         
@@ -287,10 +317,25 @@ public class CompleterTest extends TestCase {
 
     }
 
-    /**
-     * Dashes and colons mess with out completer
-     * TODO: Fix the issue and write a test
-     */
+    @Command("cloud server")
+    public static class Server {
+
+        @Command
+        public void start(@Option("region") String region, @Option("wait") boolean wait) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Command
+        public void stop() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Command
+        public void restart() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     @Command("revision-control")
     public static class Dashes {
 
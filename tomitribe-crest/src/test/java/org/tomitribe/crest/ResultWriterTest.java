@@ -0,0 +1,171 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest;
+
+import org.junit.Test;
+import org.tomitribe.crest.api.Command;
+import org.tomitribe.util.PrintString;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResultWriterTest {
+
+    private static final String NL = System.lineSeparator();
+
+    private static String expected(final int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> "line" + i + NL)
+                .collect(Collectors.joining());
+    }
+
+    @Test
+    public void parallelStreamKeepsEncounterOrder() {
+        final PrintString out = new PrintString();
+
+        new ResultWriter(out, 100, TimeUnit.SECONDS.toNanos(10))
+                .write(IntStream.range(0, 20000).parallel().mapToObj(i -> "line" + i));
+
+        assertEquals(expected(20000), out.toString());
+    }
+
+    @Test
+    public void writtenInBatches() {
+        final AtomicInteger writes = new AtomicInteger();
+        final PrintString out = new PrintString() {
+            @Override
+            public PrintStream append(final CharSequence csq) {
+                writes.incrementAndGet();
+                return super.append(csq);
+            }
+        };
+
+        new ResultWriter(out, 100, TimeUnit.SECONDS.toNanos(10))
+                .write(IntStream.range(0, 1050).mapToObj(i -> "line" + i));
+
+        assertEquals(expected(1050), out.toString());
+        assertEquals(11, writes.get());
+    }
+
+    @Test(timeout = 10000)
+    public void slowProducerIsFlushedWhileWaiting() throws Exception {
+        final PrintString out = new PrintString();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final Iterable<String> slow = () -> new Iterator<String>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == 1) {
+                    try {
+                        release.await();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return next < 2;
+            }
+
+            @Override
+            public String next() {
+                return "line" + next++;
+            }
+        };
+
+        final Thread writer = new Thread(() -> new ResultWriter(out, 100, TimeUnit.MILLISECONDS.toNanos(20)).write(slow));
+        writer.start();
+
+        // the second element is not produced until the first line is out
+        while (!out.toString().equals(expected(1))) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        writer.join();
+
+        assertEquals(expected(2), out.toString());
+    }
+
+    @Test
+    public void nulls() {
+        final PrintString stream = new PrintString();
+        new ResultWriter(stream, 10, 0).write(Stream.of("a", null, "b"));
+        assertEquals("a" + NL + NL + "b" + NL, stream.toString());
+
+        final PrintString iterable = new PrintString();
+        new ResultWriter(iterable, 10, 0).write(Arrays.asList("a", null, "b"));
+        assertEquals("a" + NL + "b" + NL, iterable.toString());
+    }
+
+    @Test
+    public void streamIsClosed() {
+        final AtomicBoolean closed = new AtomicBoolean();
+        new ResultWriter(new PrintString(), 10, 0).write(Stream.of("a").onClose(() -> closed.set(true)));
+        assertTrue(closed.get());
+    }
+
+    @Test(timeout = 10000)
+    public void stopsWhenOutputClosed() {
+        new ResultWriter(broken(), 10, 0).write(Stream.generate(() -> "yes"));
+
+        final Iterable<String> endless = () -> Stream.generate(() -> "yes").iterator();
+        new ResultWriter(broken(), 10, 0).write(endless);
+    }
+
+    private static PrintStream broken() {
+        return new PrintStream(new OutputStream() {
+            @Override
+            public void write(final int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        });
+    }
+
+    public static class Numbers {
+        @Command
+        public Stream<Integer> numbers() {
+            return IntStream.range(0, 5000).parallel().boxed();
+        }
+    }
+
+    @Test
+    public void main() {
+        final PrintString out = new PrintString();
+        Main.builder()
+                .command(Numbers.class)
+                .out(out)
+                .batchSize(7)
+                .noexit()
+                .build()
+                .run("numbers");
+
+        final String expected = IntStream.range(0, 5000)
+                .mapToObj(i -> i + NL)
+                .collect(Collectors.joining());
+        assertEquals(expected, out.toString());
+    }
+}
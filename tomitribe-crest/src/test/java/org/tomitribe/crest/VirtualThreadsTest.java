@@ -0,0 +1,157 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest;
+
+import org.junit.Test;
+import org.tomitribe.crest.api.Command;
+import org.tomitribe.crest.cmds.CommandFailedException;
+import org.tomitribe.crest.environments.Environment;
+import org.tomitribe.crest.help.TestEnvironment;
+import org.tomitribe.util.PrintString;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class VirtualThreadsTest {
+
+    private static String run(final String... args) {
+        final PrintString out = new PrintString();
+        Main.builder()
+                .command(Work.class)
+                .out(out)
+                .noexit()
+                .virtualThreads()
+                .build()
+                .run(args);
+        return out.toString();
+    }
+
+    @Test
+    public void commandRunsOnAnotherThread() {
+        final String caller = String.valueOf(Thread.currentThread().getId());
+        assertNotEquals(caller, run("thread").trim());
+    }
+
+    @Test
+    public void injectedExecutorSeesEnvironment() {
+        assertEquals("0 1 2 3 4 5 6 7\n", run("fan-out").replace(System.lineSeparator(), "\n"));
+    }
+
+    @Test
+    public void childThreadSeesPropagatedEnvironment() {
+        assertEquals("child\n", run("child").replace(System.lineSeparator(), "\n"));
+    }
+
+    @Test
+    public void childThreadDoesNotInheritEnvironment() {
+        assertEquals("false\n", run("inherited").replace(System.lineSeparator(), "\n"));
+    }
+
+    @Test
+    public void propagateAcrossPool() throws Exception {
+        final Environment environment = Environment.ENVIRONMENT_THREAD_LOCAL.get();
+        final ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            // Create the pool thread before a different Environment is set
+            pool.submit(() -> null).get();
+
+            final Environment env = TestEnvironment.builder().build();
+            Environment.ENVIRONMENT_THREAD_LOCAL.set(env);
+
+            final Callable<Environment> current = Environment.ENVIRONMENT_THREAD_LOCAL::get;
+            assertNotSame(env, pool.submit(current).get());
+            assertSame(env, pool.submit(Environment.propagate(current)).get());
+        } finally {
+            Environment.ENVIRONMENT_THREAD_LOCAL.set(environment);
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void exceptionsUnwrapped() throws Exception {
+        try {
+            Main.builder()
+                    .command(Work.class)
+                    .out(new PrintString())
+                    .noexit()
+                    .virtualThreads()
+                    .build()
+                    .main(Environment.ENVIRONMENT_THREAD_LOCAL.get(), "fail");
+            fail("Expected an exception");
+        } catch (final CommandFailedException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    public static class Work {
+
+        @Command
+        public String thread() {
+            return String.valueOf(Thread.currentThread().getId());
+        }
+
+        @Command("fan-out")
+        public String fanOut(final ExecutorService executor) throws InterruptedException, ExecutionException {
+            final Environment environment = Environment.ENVIRONMENT_THREAD_LOCAL.get();
+            final List<Future<String>> futures = executor.invokeAll(IntStream.range(0, 8)
+                    .<Callable<String>>mapToObj(i -> () ->
+                            Environment.ENVIRONMENT_THREAD_LOCAL.get() == environment ? String.valueOf(i) : "?")
+                    .collect(Collectors.toList()));
+
+            final StringBuilder sb = new StringBuilder();
+            for (final Future<String> future : futures) {
+                if (sb.length() > 0) sb.append(" ");
+                sb.append(future.get());
+            }
+            return sb.toString();
+        }
+
+        @Command
+        public void child() throws InterruptedException {
+            final Thread thread = new Thread(Environment.propagate(() ->
+                    Environment.ENVIRONMENT_THREAD_LOCAL.get().getOutput().println("child")));
+            thread.start();
+            thread.join();
+        }
+
+        @Command
+        public boolean inherited() throws InterruptedException {
+            final Environment environment = Environment.ENVIRONMENT_THREAD_LOCAL.get();
+            final AtomicBoolean same = new AtomicBoolean();
+            final Thread thread = new Thread(() -> same.set(Environment.ENVIRONMENT_THREAD_LOCAL.get() == environment));
+            thread.start();
+            thread.join();
+            return same.get();
+        }
+
+        @Command
+        public void fail() {
+            throw new IllegalStateException("failed");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.cmds;
+
+import org.junit.Test;
+import org.tomitribe.crest.cmds.processors.OptionParam;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OptionsMapTest {
+
+    private static OptionsMap.Layout layout() {
+        final Map<String, OptionParam> declarations = new LinkedHashMap<>();
+        declarations.put("color", null);
+        declarations.put("size", null);
+        declarations.put("shape", null);
+        return new OptionsMap.Layout(declarations, Collections.singletonMap("shape", 1));
+    }
+
+    @Test
+    public void parameterSlotsFirst() {
+        final OptionsMap.Layout layout = layout();
+
+        assertEquals(3, layout.size());
+        assertEquals("shape", layout.getName(0));
+        assertTrue(layout.isParameter(0));
+        assertFalse(layout.isParameter(1));
+        assertEquals(-1, layout.indexOf("weight"));
+        assertArrayEquals(new int[]{2, 1}, layout.indexesOf(Arrays.asList("size", "weight", "color")));
+    }
+
+    @Test
+    public void slotsReadAndWriteThrough() {
+        final OptionsMap.Layout layout = layout();
+        final List<Object> parameters = new ArrayList<>(Arrays.asList("arg", "round"));
+        final OptionsMap options = new OptionsMap(layout, parameters);
+        options.init(layout.indexOf("color"), "red");
+
+        assertEquals("round", options.get("shape"));
+        assertEquals("red", options.get(layout.indexOf("color")));
+        assertFalse(options.isDirty());
+
+        options.put("shape", "square");
+        assertEquals("square", parameters.get(1));
+        assertTrue(options.isProvided("shape"));
+
+        parameters.set(1, "oval");
+        assertEquals("oval", options.get("shape"));
+
+        assertTrue(options.isDirty(new int[]{layout.indexOf("shape")}));
+        assertFalse(options.isDirty(new int[]{layout.indexOf("color"), layout.indexOf("size")}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void keysAreFixed() {
+        new OptionsMap(layout(), new ArrayList<>(Arrays.asList("arg", "round"))).put("weight", 1);
+    }
+}
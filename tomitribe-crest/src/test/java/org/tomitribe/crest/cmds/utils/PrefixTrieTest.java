@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.cmds.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PrefixTrieTest {
+
+    private static PrefixTrie<String> trie(final String... keys) {
+        final Map<String, String> entries = new HashMap<>();
+        for (final String key : keys) {
+            entries.put(key, key.toUpperCase());
+        }
+        return PrefixTrie.of(entries);
+    }
+
+    @Test
+    public void startingWith() {
+        final PrefixTrie<String> trie = trie("commit", "checkout", "co", "cat", "diff", "c");
+
+        assertEquals(Arrays.asList("C", "CAT", "CHECKOUT", "CO", "COMMIT", "DIFF"), trie.startingWith(""));
+        assertEquals(Arrays.asList("C", "CAT", "CHECKOUT", "CO", "COMMIT"), trie.startingWith("c"));
+        assertEquals(Arrays.asList("CO", "COMMIT"), trie.startingWith("co"));
+        assertEquals(Collections.singletonList("COMMIT"), trie.startingWith("commit"));
+        assertEquals(Collections.emptyList(), trie.startingWith("commits"));
+        assertEquals(Collections.emptyList(), trie.startingWith("x"));
+    }
+
+    @Test
+    public void get() {
+        final PrefixTrie<String> trie = trie("commit", "co", "diff");
+
+        assertEquals("CO", trie.get("co"));
+        assertEquals("COMMIT", trie.get("commit"));
+        assertNull(trie.get("com"));
+        assertNull(trie.get("c"));
+        assertNull(trie.get(""));
+        assertNull(trie.get("diffs"));
+    }
+
+    @Test
+    public void empty() {
+        final PrefixTrie<String> trie = trie();
+
+        assertEquals(0, trie.size());
+        assertTrue(trie.startingWith("").isEmpty());
+        assertNull(trie.get(""));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutable() {
+        trie("a", "b").startingWith("").clear();
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.environments;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.tomitribe.crest.Main;
+import org.tomitribe.crest.api.Command;
+import org.tomitribe.crest.api.Exit;
+import org.tomitribe.crest.api.Out;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class BufferedSinkTest {
+
+    private static class Counting extends ByteArrayOutputStream {
+        private int writes;
+
+        @Override
+        public synchronized void write(final byte[] b, final int off, final int len) {
+            writes++;
+            super.write(b, off, len);
+        }
+    }
+
+    @Test
+    public void heldUntilFull() throws IOException {
+        final Counting target = new Counting();
+        final BufferedSink sink = new BufferedSink(target, 10, 0);
+
+        sink.write("12345".getBytes());
+        sink.write("6789".getBytes());
+        assertEquals(0, target.size());
+
+        sink.write("ab".getBytes());
+        assertEquals("123456789", target.toString());
+
+        sink.flush();
+        assertEquals("123456789ab", target.toString());
+        assertEquals(2, target.writes);
+    }
+
+    @Test
+    public void largeWritesPassStraightThrough() throws IOException {
+        final Counting target = new Counting();
+        final BufferedSink sink = new BufferedSink(target, 4, 0);
+
+        sink.write('x');
+        sink.write("0123456789".getBytes());
+        assertEquals("x0123456789", target.toString());
+        assertEquals(2, target.writes);
+    }
+
+    @Test(timeout = 10000)
+    public void flushedAfterInterval() throws Exception {
+        final Counting target = new Counting();
+        final BufferedSink sink = new BufferedSink(target, 1024, TimeUnit.MILLISECONDS.toNanos(10));
+
+        sink.write("first\n".getBytes());
+
+        // nothing else is written, the timer has to write it out
+        while (target.size() == 0) {
+            Thread.sleep(5);
+        }
+        assertEquals("first\n", target.toString());
+    }
+
+    @Test
+    public void errorIsNotBuffered() {
+        final PrintStream err = new PrintStream(new ByteArrayOutputStream());
+        final SystemEnvironment environment = SystemEnvironment.builder()
+                .err(err)
+                .buffered()
+                .build();
+
+        assertSame(err, environment.getError());
+    }
+
+    @Test
+    public void charsetOfTheWrappedStream() throws Exception {
+        // PrintStream only reports its charset since Java 18
+        Assume.assumeTrue(Arrays.stream(PrintStream.class.getMethods()).anyMatch(m -> m.getName().equals("charset")));
+
+        final ByteArrayOutputStream target = new ByteArrayOutputStream();
+        final PrintStream out = SystemEnvironment.builder()
+                .out(new PrintStream(target, true, "UTF-16BE"))
+                .buffered()
+                .build()
+                .getOutput();
+
+        out.print("\u00e9t\u00e9");
+        out.flush();
+
+        assertEquals("\u00e9t\u00e9", target.toString("UTF-16BE"));
+    }
+
+    @Test
+    public void manyLinesFewWrites() {
+        final Counting target = new Counting();
+        final PrintStream out = SystemEnvironment.builder()
+                .out(new PrintStream(target))
+                .buffered(64 * 1024, Duration.ZERO)
+                .build()
+                .getOutput();
+
+        for (int i = 0; i < 10000; i++) {
+            out.println("line " + i);
+        }
+        out.flush();
+
+        assertEquals(10000, target.toString().split("\n").length);
+        assertEquals(2, target.writes);
+    }
+
+    public static class Commands {
+
+        @Command
+        public void lines(@Out final PrintStream out) {
+            for (int i = 0; i < 1000; i++) {
+                out.println(i);
+            }
+        }
+
+        @Command
+        public void fail(@Out final PrintStream out) {
+            out.println("partial");
+            throw new Failed();
+        }
+    }
+
+    @Exit(3)
+    public static class Failed extends RuntimeException {
+        public Failed() {
+            super("failed");
+        }
+    }
+
+    @Test
+    public void flushedWhenCommandEnds() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Main.builder()
+                .command(Commands.class)
+                .out(new PrintStream(out))
+                .buffered(1 << 20, Duration.ZERO)
+                .noexit()
+                .build()
+                .run("lines");
+
+        assertEquals(1000, out.toString().split(System.lineSeparator()).length);
+    }
+
+    @Test
+    public void flushedBeforeExit() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        final AtomicInteger code = new AtomicInteger();
+
+        Main.builder()
+                .command(Commands.class)
+                .out(new PrintStream(out))
+                .err(new PrintStream(err))
+                .buffered(1 << 20, Duration.ZERO)
+                .exit(exit -> {
+                    assertEquals("partial" + System.lineSeparator(), out.toString());
+                    assertEquals("failed" + System.lineSeparator(), err.toString());
+                    code.set(exit);
+                })
+                .build()
+                .run("fail");
+
+        assertEquals(3, code.get());
+    }
+}
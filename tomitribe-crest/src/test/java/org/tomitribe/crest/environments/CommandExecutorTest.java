@@ -0,0 +1,160 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.environments;
+
+import org.junit.Test;
+import org.tomitribe.crest.Main;
+import org.tomitribe.crest.api.Command;
+import org.tomitribe.crest.help.TestEnvironment;
+import org.tomitribe.util.PrintString;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CommandExecutorTest {
+
+    @Test
+    public void queueAndActiveCounts() throws Exception {
+        final CommandExecutor executor = new CommandExecutor(2);
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < 5; i++) {
+                executor.execute(() -> {
+                    started.countDown();
+                    await(release);
+                });
+            }
+
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            assertEquals(2, executor.getActiveCount());
+            assertEquals(3, executor.getQueueSize());
+
+            release.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+            assertEquals(0, executor.getActiveCount());
+            assertEquals(0, executor.getQueueSize());
+            assertEquals(5, executor.getCompletedTaskCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shutdownNowEmptiesQueue() throws Exception {
+        final CommandExecutor executor = new CommandExecutor(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < 4; i++) {
+                executor.execute(() -> {
+                    started.countDown();
+                    await(release);
+                });
+            }
+
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            assertEquals(3, executor.getQueueSize());
+
+            assertEquals(3, executor.shutdownNow().size());
+            assertEquals(0, executor.getQueueSize());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void propagatesEnvironment() throws Exception {
+        final CommandExecutor executor = new CommandExecutor(1);
+        final Environment old = Environment.ENVIRONMENT_THREAD_LOCAL.get();
+        try {
+            // Start the pool thread with another Environment
+            executor.submit(() -> null).get();
+
+            final TestEnvironment env = TestEnvironment.builder().build();
+            Environment.ENVIRONMENT_THREAD_LOCAL.set(env);
+
+            final Future<Environment> future = executor.submit(Environment.ENVIRONMENT_THREAD_LOCAL::get);
+            assertSame(env, future.get());
+        } finally {
+            Environment.ENVIRONMENT_THREAD_LOCAL.set(old);
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shutdownBeforeFirstTask() throws Exception {
+        final CommandExecutor executor = new CommandExecutor();
+        executor.shutdown();
+
+        assertTrue(executor.isShutdown());
+        assertTrue(executor.isTerminated());
+        assertTrue(executor.awaitTermination(1, TimeUnit.MILLISECONDS));
+
+        try {
+            executor.execute(() -> {
+            });
+            throw new AssertionError("Expected RejectedExecutionException");
+        } catch (final RejectedExecutionException e) {
+            assertEquals(0, executor.getQueueSize());
+        }
+    }
+
+    @Test
+    public void closedWithMain() {
+        final PrintString out = new PrintString();
+        final Main main = Main.builder()
+                .command(Pool.class)
+                .out(out)
+                .noexit()
+                .threads(3)
+                .build();
+
+        main.run("pool");
+        assertEquals("3", out.toString().trim());
+        assertFalse(Pool.executor.isShutdown());
+
+        main.close();
+        assertTrue(Pool.executor.isShutdown());
+    }
+
+    public static class Pool {
+        private static CommandExecutor executor;
+
+        @Command
+        public int pool(final ExecutorService executor) {
+            Pool.executor = (CommandExecutor) executor;
+            return Pool.executor.getThreads();
+        }
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
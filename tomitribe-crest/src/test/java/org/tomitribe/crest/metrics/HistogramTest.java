@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramTest {
+
+    @Test
+    public void bucketsAreContiguous() {
+        for (int index = 1; index < 592; index++) {
+            assertEquals(Histogram.highest(index - 1) + 1, Histogram.lowest(index));
+            assertEquals(index, Histogram.index(Histogram.lowest(index)));
+            assertEquals(index, Histogram.index(Histogram.highest(index)));
+        }
+    }
+
+    @Test
+    public void percentiles() {
+        final Histogram histogram = new Histogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500500000, histogram.getSum());
+        assertEquals(1000000, histogram.getMax());
+
+        assertWithin(500000, histogram.getValueAtPercentile(50));
+        assertWithin(990000, histogram.getValueAtPercentile(99));
+        assertEquals(1000000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void empty() {
+        assertEquals(0, new Histogram().getValueAtPercentile(99));
+    }
+
+    private static void assertWithin(final long expected, final long actual) {
+        assertTrue(expected + " ~ " + actual, Math.abs(actual - expected) <= expected * 0.0625);
+    }
+}
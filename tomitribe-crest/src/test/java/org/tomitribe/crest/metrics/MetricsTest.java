@@ -0,0 +1,168 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.metrics;
+
+import org.junit.Test;
+import org.tomitribe.crest.Main;
+import org.tomitribe.crest.api.Command;
+import org.tomitribe.crest.api.Exit;
+import org.tomitribe.crest.trace.Phase;
+import org.tomitribe.util.IO;
+import org.tomitribe.util.PrintString;
+
+import java.io.Closeable;
+import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsTest {
+
+    private final Metrics metrics = new Metrics();
+    private final PrintString out = new PrintString();
+
+    private final Main main = Main.builder()
+            .command(Jobs.class)
+            .out(out)
+            .err(new PrintString())
+            .noexit()
+            .metrics(metrics)
+            .build();
+
+    @Test
+    public void countsAndPhases() {
+        main.run("start", "backup");
+        main.run("start", "restore");
+        main.run("stop");
+        main.run("stop");
+
+        final CommandMetrics start = metrics.command("start");
+        assertEquals(2, start.getInvocations());
+        assertEquals(Collections.emptyMap(), start.getErrors());
+        assertEquals(2, start.getDuration().getCount());
+        assertEquals(2, start.getPhase(Phase.PARSE).getCount());
+        assertEquals(2, start.getPhase(Phase.INVOKE).getCount());
+        assertEquals(2, start.getPhase(Phase.RENDER).getCount());
+
+        final CommandMetrics stop = metrics.command("stop");
+        assertEquals(2, stop.getInvocations());
+        assertEquals(Long.valueOf(2), stop.getErrors().get(3));
+        assertNull(stop.getPhase(Phase.RENDER));
+    }
+
+    @Test
+    public void unknownCommands() {
+        main.run("sstart");
+        main.run("strat");
+
+        assertEquals(2, metrics.command("unknown").getInvocations());
+        assertEquals(1, metrics.getCommands().size());
+    }
+
+    @Test
+    public void metricsCommand() {
+        main.run("start", "backup");
+
+        final String table = run("metrics");
+        assertTrue(table, table.contains("start"));
+        assertTrue(table, table.contains("invoke"));
+
+        final String text = run("metrics", "--format=prometheus");
+        assertTrue(text, text.contains("crest_command_invocations_total{command=\"start\"} 1\n"));
+        assertTrue(text, text.contains("crest_command_phase_seconds_count{command=\"start\",phase=\"invoke\"} 1\n"));
+    }
+
+    private String run(final String... args) {
+        final int mark = out.toString().length();
+        main.run(args);
+        return out.toString().substring(mark);
+    }
+
+    @Test
+    public void prometheusFormat() {
+        main.run("stop");
+
+        final String text = Prometheus.format(metrics);
+        assertTrue(text, text.contains("# TYPE crest_command_invocations_total counter\n"));
+        assertTrue(text, text.contains("crest_command_errors_total{command=\"stop\",exit=\"3\"} 1\n"));
+        assertTrue(text, text.contains("crest_command_duration_seconds{command=\"stop\",quantile=\"0.99\"} "));
+        assertTrue(text, text.contains("crest_command_duration_seconds_count{command=\"stop\"} 1\n"));
+    }
+
+    @Test
+    public void file() throws Exception {
+        final File file = File.createTempFile("crest", ".prom");
+        try {
+            main.run("start", "backup");
+            main.run("metrics", "--file=" + file.getAbsolutePath());
+
+            assertTrue(IO.slurp(file).contains("crest_command_invocations_total{command=\"start\"} 1\n"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void endpoint() throws Exception {
+        main.run("start", "backup");
+
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        try (Closeable server = Prometheus.serve(metrics, new InetSocketAddress(InetAddress.getLoopbackAddress(), port))) {
+            final URL url = new URL("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + port + "/metrics");
+            final String text = IO.slurp(url);
+            assertTrue(text, text.contains("crest_command_invocations_total{command=\"start\"} 1\n"));
+        }
+
+        // Closing stops the thread serving the requests as well
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (serving() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(serving());
+    }
+
+    private static boolean serving() {
+        for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+            if ("crest-metrics".equals(thread.getName()) && thread.isAlive()) return true;
+        }
+        return false;
+    }
+
+    public static class Jobs {
+        @Command
+        public String start(final String job) {
+            return "started " + job;
+        }
+
+        @Command
+        public void stop() {
+            throw new NotRunning();
+        }
+    }
+
+    @Exit(3)
+    public static class NotRunning extends RuntimeException {
+    }
+}
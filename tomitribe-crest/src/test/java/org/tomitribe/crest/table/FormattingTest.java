@@ -2,11 +2,14 @@ package org.tomitribe.crest.table;
 
 import org.junit.Test;
 import org.tomitribe.crest.api.table.Border;
+import org.tomitribe.crest.api.table.Format;
 import org.tomitribe.util.PrintString;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -192,6 +195,100 @@ public class FormattingTest {
     }
 
 
+    @Test
+    public void csv() throws Exception {
+        final Options options = new Options();
+        options.setFields("director.id director.name writer.name");
+        options.setHeader(true);
+        options.setFormat(Format.csv);
+
+        final List<Movie> movies = new ArrayList<>();
+        movies.add(new Movie(new Person(123L, "Favreau, Jon"), new Person(435L, "Dave \"Dave\" Filoni")));
+        movies.add(new Movie(null, new Person(null, "line one\nline two")));
+
+        final PrintString out = new PrintString();
+        new TableOutput(movies, options).write(out);
+
+        assertEquals("director.id,director.name,writer.name\n" +
+                "123,\"Favreau, Jon\",\"Dave \"\"Dave\"\" Filoni\"\n" +
+                ",,\"line one\nline two\"\n", out.toString());
+    }
+
+    @Test
+    public void csvSortedNoHeader() throws Exception {
+        final Options options = new Options();
+        options.setFields("id name");
+        options.setSort("name");
+        options.setHeader(false);
+        options.setFormat(Format.csv);
+
+        final List<Person> people = new ArrayList<>();
+        people.add(new Person(2L, "Zed"));
+        people.add(new Person(1L, "Amy"));
+
+        final PrintString out = new PrintString();
+        new TableOutput(people, options).write(out);
+
+        assertEquals("1,Amy\n2,Zed\n", out.toString());
+    }
+
+    @Test
+    public void jsonLines() throws Exception {
+        final Options options = new Options();
+        options.setHeader(true);
+        options.setFormat(Format.jsonl);
+
+        final Map<String, Object> show = new LinkedHashMap<>();
+        show.put("name", "The \"Mandalorian\"\t\\");
+        show.put("season", 2);
+        show.put("rating", 8.7);
+        show.put("streaming", true);
+        show.put("director.name", "Jon Favreau");
+
+        final List<Map<String, Object>> shows = new ArrayList<>();
+        shows.add(show);
+
+        final PrintString out = new PrintString();
+        new TableOutput(shows, options).write(out);
+
+        assertEquals("{\"name\":\"The \\\"Mandalorian\\\"\\t\\\\\"," +
+                "\"season\":2,\"rating\":8.7,\"streaming\":true,\"director.name\":\"Jon Favreau\"}\n", out.toString());
+    }
+
+    /**
+     * Rows are written as the iterable produces them, no
+     * table is built before the first row is written
+     */
+    @Test
+    public void rowsWrittenAsProduced() throws Exception {
+        final Options options = new Options();
+        options.setFields("id name");
+        options.setHeader(true);
+        options.setFormat(Format.csv);
+
+        final PrintString out = new PrintString();
+        final List<String> seen = new ArrayList<>();
+
+        final Iterable<Person> people = () -> new Iterator<Person>() {
+            private int count;
+
+            @Override
+            public boolean hasNext() {
+                seen.add(out.toString());
+                return count < 2;
+            }
+
+            @Override
+            public Person next() {
+                return new Person((long) ++count, "p" + count);
+            }
+        };
+
+        new TableOutput(people, options).write(out);
+
+        assertEquals(Arrays.asList("", "id,name\n1,p1\n", "id,name\n1,p1\n2,p2\n"), seen);
+    }
+
     public static class Movie {
         private final Person director;
         private final Person writer;
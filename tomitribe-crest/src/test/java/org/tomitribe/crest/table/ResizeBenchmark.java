@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.tomitribe.crest.table;
+
+import java.util.Random;
+
+/**
+ * Times Resize.resize on a wide and a narrow table across terminal widths.
+ * Not a unit test; run the main method directly:
+ *
+ *   java -cp target/classes:target/test-classes org.tomitribe.crest.table.ResizeBenchmark
+ */
+public class ResizeBenchmark {
+
+    private static final String[] WORDS = {
+        "lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing", "elit",
+        "sed", "do", "eiusmod", "tempor", "incididunt", "ut", "labore", "et", "dolore", "magna"
+    };
+
+    public static void main(final String[] args) {
+        final Data wide = table(40, 200);
+        final Data narrow = table(4, 200);
+
+        for (final int width : new int[]{80, 200, 500}) {
+            run("wide", wide, width);
+            run("narrow", narrow, width);
+        }
+    }
+
+    private static void run(final String name, final Data data, final int width) {
+        final int warmup = 20;
+        final int iterations = 50;
+
+        for (int i = 0; i < warmup; i++) {
+            Resize.resize(data, width);
+        }
+
+        final long start = System.nanoTime();
+        int height = 0;
+        for (int i = 0; i < iterations; i++) {
+            height += Resize.resize(data, width).getHeight();
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%-7s columns=%-3d width=%-4d %8.3f ms/op  (height %d)%n", name,
+                data.getColumns().size(), width, elapsed / 1e6 / iterations, height / iterations);
+    }
+
+    private static Data table(final int columns, final int rows) {
+        final Random random = new Random(columns);
+        final Data.Builder builder = Data.builder().headings(true);
+
+        final String[] heading = new String[columns];
+        for (int column = 0; column < columns; column++) {
+            heading[column] = "column" + column;
+        }
+        builder.row(heading);
+
+        for (int row = 0; row < rows; row++) {
+            final String[] cells = new String[columns];
+            for (int column = 0; column < columns; column++) {
+                final StringBuilder cell = new StringBuilder();
+                final int words = 1 + random.nextInt(column % 3 == 0 ? 3 : 12);
+                for (int word = 0; word < words; word++) {
+                    if (word > 0) cell.append(' ');
+                    cell.append(WORDS[random.nextInt(WORDS.length)]);
+                }
+                cells[column] = cell.toString();
+            }
+            builder.row(cells);
+        }
+        return builder.build();
+    }
+}
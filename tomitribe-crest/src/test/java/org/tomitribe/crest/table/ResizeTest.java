@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.tomitribe.crest.table;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class ResizeTest {
+
+    @Test
+    public void evenly() {
+        assertArrayEquals(new int[]{5, 5, 5}, Resize.allocate(new int[]{2, 2, 2}, new int[]{10, 10, 10}, 9));
+    }
+
+    @Test
+    public void partialRoundFavorsLeft() {
+        assertArrayEquals(new int[]{4, 4, 3}, Resize.allocate(new int[]{2, 2, 2}, new int[]{10, 10, 10}, 5));
+    }
+
+    @Test
+    public void saturatedColumnsGiveWayToOthers() {
+        assertArrayEquals(new int[]{3, 9, 6}, Resize.allocate(new int[]{2, 2, 2}, new int[]{3, 20, 6}, 12));
+    }
+
+    @Test
+    public void nothingRemaining() {
+        assertArrayEquals(new int[]{2, 7}, Resize.allocate(new int[]{2, 7}, new int[]{8, 9}, 0));
+        assertArrayEquals(new int[]{2, 7}, Resize.allocate(new int[]{2, 7}, new int[]{8, 9}, -4));
+    }
+
+    /**
+     * The allocation must be exactly what handing out one character
+     * per column per round would produce
+     */
+    @Test
+    public void matchesRoundRobin() {
+        final Random random = new Random(42);
+        for (int test = 0; test < 2000; test++) {
+            final int columns = 1 + random.nextInt(20);
+            final int[] min = new int[columns];
+            final int[] max = new int[columns];
+            int growth = 0;
+            for (int i = 0; i < columns; i++) {
+                min[i] = random.nextInt(15);
+                max[i] = min[i] + random.nextInt(random.nextBoolean() ? 5 : 80);
+                growth += max[i] - min[i];
+            }
+            final int remaining = random.nextInt(growth + 2);
+
+            assertArrayEquals(roundRobin(min, max, remaining), Resize.allocate(min, max, remaining));
+        }
+    }
+
+    private static int[] roundRobin(final int[] min, final int[] max, int remaining) {
+        final int[] sizes = min.clone();
+        boolean expanded = true;
+        while (expanded) {
+            expanded = false;
+            for (int i = 0; i < sizes.length; i++) {
+                if (sizes[i] == max[i] || remaining <= 0) continue;
+                sizes[i]++;
+                remaining--;
+                expanded = true;
+            }
+        }
+        return sizes;
+    }
+}
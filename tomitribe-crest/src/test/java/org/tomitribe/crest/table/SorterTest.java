@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.tomitribe.crest.table;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.tomitribe.crest.table.Formatting.Item;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SorterTest {
+
+    private static final String[] FIELDS = {"name", "size", "index"};
+
+    /**
+     * Few distinct values, so the order of ties is checked as well
+     */
+    private static List<List<Item>> rows(final int count) {
+        final Random random = new Random(count);
+        final List<List<Item>> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(Arrays.asList(
+                    new Item("n" + random.nextInt(5)),
+                    new Item(random.nextInt(4)),
+                    new Item(i)));
+        }
+        return rows;
+    }
+
+    private static List<String> expected(final List<List<Item>> rows, final String[] sort, final int offset, final int limit) {
+        final List<List<Item>> sorted = new ArrayList<>(rows);
+        sorted.sort(Formatting.compareFields(FIELDS, sort));
+
+        final List<String> expected = new ArrayList<>();
+        for (int i = offset; i < sorted.size() && expected.size() < limit; i++) {
+            expected.add(sorted.get(i).get(2).getString());
+        }
+        return expected;
+    }
+
+    private static List<String> actual(final List<List<Item>> rows, final String[] sort,
+                                       final long offset, final long limit, final int runSize) {
+        final List<String> actual = new ArrayList<>();
+        try (Sorter sorter = new Sorter(sort, offset, limit, runSize)) {
+            for (final List<Item> row : rows) {
+                sorter.add(FIELDS, row);
+            }
+            sorter.iterator().forEachRemaining(row -> actual.add(row.get(2).getString()));
+        }
+        return actual;
+    }
+
+    @Test
+    public void inMemory() {
+        final List<List<Item>> rows = rows(200);
+        final String[] sort = {"name", "size"};
+        assertEquals(expected(rows, sort, 0, Integer.MAX_VALUE), actual(rows, sort, 0, Long.MAX_VALUE, 1000));
+    }
+
+    @Test
+    public void topK() {
+        final List<List<Item>> rows = rows(500);
+        final String[] sort = {"size", "name"};
+
+        assertEquals(expected(rows, sort, 0, 10), actual(rows, sort, 0, 10, 1000));
+        assertEquals(expected(rows, sort, 30, 7), actual(rows, sort, 30, 7, 1000));
+        assertEquals(expected(rows, sort, 495, 10), actual(rows, sort, 495, 10, 1000));
+        assertEquals(expected(rows, sort, 0, 0), actual(rows, sort, 0, 0, 1000));
+    }
+
+    @Test
+    public void mergedRuns() {
+        final List<List<Item>> rows = rows(1000);
+        final String[] sort = {"name", "size"};
+
+        assertEquals(expected(rows, sort, 0, Integer.MAX_VALUE), actual(rows, sort, 0, Long.MAX_VALUE, 64));
+        assertEquals(expected(rows, sort, 100, 500), actual(rows, sort, 100, 500, 64));
+    }
+
+    @Test
+    public void runFilesDeleted() {
+        final File tmp = new File(System.getProperty("java.io.tmpdir"));
+        final int before = runFiles(tmp);
+
+        actual(rows(1000), new String[]{"name"}, 0, Long.MAX_VALUE, 10);
+
+        assertEquals(before, runFiles(tmp));
+    }
+
+    private static int runFiles(final File dir) {
+        final String[] names = dir.list((d, name) -> name.startsWith("crest-table-"));
+        return names == null ? 0 : names.length;
+    }
+
+    @Test
+    public void otherKeysStayInMemory() {
+        final List<List<Item>> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(Arrays.asList(new Item(new Key(i % 7)), new Item(0), new Item(i)));
+        }
+        final String[] sort = {"name"};
+
+        assertEquals(expected(rows, sort, 0, Integer.MAX_VALUE), actual(rows, sort, 0, Long.MAX_VALUE, 8));
+    }
+
+    @Test
+    public void otherColumnsAreWrittenAsStrings() {
+        final List<List<Item>> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(Arrays.asList(new Item(new Key(i % 7)), new Item(i % 3), new Item(i)));
+        }
+        final String[] sort = {"size"};
+
+        assertEquals(expected(rows, sort, 0, Integer.MAX_VALUE), actual(rows, sort, 0, Long.MAX_VALUE, 8));
+    }
+
+    @Test
+    public void serializableKeysAreNotSerialized() {
+        final List<List<Item>> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(Arrays.asList(new Item(new Holder(i % 7)), new Item(0), new Item(i)));
+        }
+        final String[] sort = {"name"};
+
+        assertEquals(expected(rows, sort, 0, Integer.MAX_VALUE), actual(rows, sort, 0, Long.MAX_VALUE, 8));
+    }
+
+    @Test
+    public void valuesKeepTheirTypeInRuns() {
+        final Object[] values = {"b", 'c', (byte) 3, (short) 4, 5, 6L, 7.5f, 8.25d, true,
+                new BigInteger("123456789012345678901234567890"), new BigDecimal("0.1"), null};
+
+        final List<List<Item>> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final Object value = values[i % values.length];
+            rows.add(Arrays.asList(new Item(value), new Item(i % 3), new Item(i)));
+        }
+
+        final List<Object> actual = new ArrayList<>();
+        try (Sorter sorter = new Sorter(new String[]{"size"}, 0, Long.MAX_VALUE, 8)) {
+            for (final List<Item> row : rows) {
+                sorter.add(FIELDS, row);
+            }
+            sorter.iterator().forEachRemaining(row -> {
+                final int index = Integer.parseInt(row.get(2).getString());
+                assertEquals(values[index % values.length], row.get(0).getObject());
+                assertEquals(rows.get(index).get(0).getString(), row.get(0).getString());
+                actual.add(row.get(2).getString());
+            });
+        }
+
+        assertEquals(expected(rows, new String[]{"size"}, 0, Integer.MAX_VALUE), actual);
+    }
+
+    @Test
+    public void runsClosedWhenMergeStopsEarly() throws Exception {
+        final File fds = new File("/proc/self/fd");
+        Assume.assumeTrue(fds.isDirectory());
+
+        final List<List<Item>> rows = rows(1000);
+        final int before = openRuns(fds);
+
+        try (Sorter sorter = new Sorter(new String[]{"name"}, 0, Long.MAX_VALUE, 10)) {
+            for (final List<Item> row : rows) {
+                sorter.add(FIELDS, row);
+            }
+            final Iterator<List<Item>> iterator = sorter.iterator();
+            for (int i = 0; i < 3; i++) {
+                iterator.next();
+            }
+            assertTrue(openRuns(fds) > before);
+        }
+
+        assertEquals(before, openRuns(fds));
+    }
+
+    private static int openRuns(final File fds) throws IOException {
+        int open = 0;
+        for (final File fd : fds.listFiles()) {
+            try {
+                if (Files.readSymbolicLink(fd.toPath()).toString().contains("crest-table-")) open++;
+            } catch (final IOException e) {
+                // closed while we looked
+            }
+        }
+        return open;
+    }
+
+    @Test
+    public void unknownSortFieldKeepsOrder() {
+        final List<List<Item>> rows = rows(100);
+        final String[] sort = {"missing"};
+
+        assertEquals(expected(rows, sort, 0, Integer.MAX_VALUE), actual(rows, sort, 0, Long.MAX_VALUE, 16));
+    }
+
+    public static class Holder implements Comparable<Holder>, Serializable {
+        private final int value;
+
+        public Holder(final int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(final Holder that) {
+            return Integer.compare(this.value, that.value);
+        }
+
+        @Override
+        public String toString() {
+            return "holder" + value;
+        }
+    }
+
+    public static class Key implements Comparable<Key> {
+        private final int value;
+
+        public Key(final int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(final Key that) {
+            return Integer.compare(this.value, that.value);
+        }
+
+        @Override
+        public String toString() {
+            return "key" + value;
+        }
+    }
+}
@@ -19,11 +19,18 @@ import org.junit.Test;
 import org.tomitribe.crest.Main;
 import org.tomitribe.crest.api.Command;
 import org.tomitribe.crest.api.Option;
+import org.tomitribe.crest.api.PrintOutput;
 import org.tomitribe.crest.api.interceptor.CrestContext;
 import org.tomitribe.crest.api.interceptor.CrestInterceptor;
 import org.tomitribe.crest.api.table.Border;
+import org.tomitribe.crest.api.table.Format;
 import org.tomitribe.crest.api.table.Table;
 import org.tomitribe.crest.api.table.TableOptions;
+import org.tomitribe.util.PrintString;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -41,7 +48,7 @@ public class TableOptionsTest {
         assertEquals("", options.fields());
         assertEquals("", options.sort());
         assertTrue(options.header());
-//        assertEquals(Table.Format.csv, options.format());
+        assertEquals(Format.text, options.format());
     }
 
     @Test
@@ -52,7 +59,7 @@ public class TableOptionsTest {
         assertEquals(Border.asciiDots, options.border());
         assertEquals("red green blue", options.fields());
         assertTrue(options.header());
-//        assertEquals(Table.Format.csv, options.format());
+        assertEquals(Format.csv, options.format());
         assertEquals("green", options.sort());
     }
 
@@ -65,7 +72,7 @@ public class TableOptionsTest {
                 "--table-sort=red",
                 "--table-header=true",
                 "--table-fields=blue red",
-//                "--table-format=tsv",
+                "--table-format=jsonl",
                 "--unrelated=opt"
         );
 
@@ -77,7 +84,7 @@ public class TableOptionsTest {
         assertEquals("blue red", options.fields());
         assertEquals("red", options.sort());
         assertTrue(options.header());
-//        assertEquals(Table.Format.tsv, options.format());
+        assertEquals(Format.jsonl, options.format());
     }
 
     @Test
@@ -89,6 +96,7 @@ public class TableOptionsTest {
                 "--table-sort=red",
                 "--table-header=true",
                 "--table-fields=blue red",
+                "--table-format=jsonl",
                 "--unrelated=opt"
         );
 
@@ -100,7 +108,7 @@ public class TableOptionsTest {
         assertEquals("blue red", options.fields());
         assertEquals("red", options.sort());
         assertTrue(options.header());
-//        assertEquals(Table.Format.tsv, options.format());
+        assertEquals(Format.jsonl, options.format());
     }
 
     @Test
@@ -120,7 +128,7 @@ public class TableOptionsTest {
         assertNull(options.border());
         assertEquals("blue red", options.fields());
         assertNull(options.isHeader());
-//        assertNull(options.format());
+        assertNull(options.format());
         assertEquals("red", options.sort());
     }
 
@@ -142,7 +150,7 @@ public class TableOptionsTest {
         assertEquals(Border.asciiDots, options.border());
         assertEquals("blue red", options.fields());
         assertFalse(options.header());
-//        assertEquals(Table.Format.csv, options.format());
+        assertEquals(Format.csv, options.format());
         assertEquals("red", options.sort());
     }
 
@@ -164,7 +172,7 @@ public class TableOptionsTest {
         assertEquals(Border.asciiDots, options.border());
         assertEquals("blue red", options.fields());
         assertFalse(options.header());
-//        assertEquals(Table.Format.csv, options.format());
+        assertEquals(Format.csv, options.format());
         assertEquals("red", options.sort());
     }
 
@@ -203,7 +211,7 @@ public class TableOptionsTest {
         assertEquals(Border.asciiDots, actual.border());
         assertEquals("red green", actual.fields());
         assertTrue(actual.header());
-//        assertEquals(Table.Format.csv, actual.format());
+        assertEquals(Format.csv, actual.format());
         assertEquals("green", actual.sort());
     }
 
@@ -220,6 +228,136 @@ public class TableOptionsTest {
         );
     }
 
+    @Test
+    public void resolvedVisibleToCommand() throws Exception {
+        final Main main = new Main(Data.class);
+        main.exec("overrides",
+                "--table-limit=5",
+                "--expected-sort=green",
+                "--expected-fields=red green blue",
+                "--expected-border=asciiDots",
+                "--expected-limit=5"
+        );
+    }
+
+    @Test
+    public void limitAndOffset() throws Exception {
+        final Main main = new Main(Colors.class);
+
+        Colors.pulled.set(0);
+        assertRows(main.exec("colors", "--table-offset=1", "--table-limit=2"), "orange\nyellow\n");
+        assertEquals(3, Colors.pulled.get());
+
+        assertRows(main.exec("colors", "--table-offset=4"), "blue\nviolet\n");
+        assertRows(main.exec("colors", "--table-limit=0"), "");
+        assertRows(main.exec("colors", "--table-offset=9", "--table-limit=2"), "");
+    }
+
+    @Test
+    public void limitAndOffsetAfterSort() throws Exception {
+        final Main main = new Main(Colors.class);
+
+        Colors.pulled.set(0);
+        assertRows(main.exec("colors", "--table-sort=name", "--table-offset=1", "--table-limit=3"),
+                "green\norange\nred\n");
+        assertEquals(6, Colors.pulled.get());
+    }
+
+    @Test
+    public void offsetPushedDown() throws Exception {
+        final Main main = new Main(Colors.class);
+
+        Colors.pulled.set(0);
+        assertRows(main.exec("query", "--table-offset=2", "--table-limit=2"), "yellow\ngreen\n");
+        assertEquals(2, Colors.pulled.get());
+    }
+
+    /**
+     * Changing the limit or offset in the command does not change what is shown
+     */
+    @Test
+    public void pagingOnlySkippedWhenApplied() throws Exception {
+        final Main main = new Main(Colors.class);
+        assertRows(main.exec("cleared", "--table-offset=2", "--table-limit=2"), "yellow\ngreen\n");
+    }
+
+    @Test
+    public void fromTableOptionsLimitAndOffset() throws Exception {
+        final TableOptions tableOptions = new TableOptions(null, null, null, null, null, 10, 20, null, null);
+        final Options options = Options.from(tableOptions);
+
+        assertEquals(10, (int) options.getLimit());
+        assertEquals(20, (int) options.getOffset());
+
+        final Options defaults = new Options();
+        defaults.setLimit(3);
+        final Options actual = defaults.override(options);
+        assertEquals(10, (int) actual.getLimit());
+        assertEquals(20, (int) actual.getOffset());
+    }
+
+    private static void assertRows(final Object object, final String expected) throws IOException {
+        final PrintOutput printOutput = (PrintOutput) object;
+        final PrintString output = new PrintString();
+        printOutput.write(output);
+        assertEquals(expected, output.toString().replace("\r\n", "\n"));
+    }
+
+    public static class Colors {
+
+        public static final AtomicInteger pulled = new AtomicInteger();
+
+        private static Stream<Color> all() {
+            return Stream.of("red", "orange", "yellow", "green", "blue", "violet")
+                    .peek(name -> pulled.incrementAndGet())
+                    .map(Color::new);
+        }
+
+        @Table(fields = "name", header = false, format = Format.csv)
+        @Command
+        public Stream<Color> colors(final TableOptions tableOptions) {
+            return all();
+        }
+
+        /**
+         * Applies the offset and limit itself, as a database query would
+         */
+        @Table(fields = "name", header = false, format = Format.csv)
+        @Command
+        public Stream<Color> query(final TableOptions tableOptions) {
+            final Stream<Color> skipped = Stream.of("red", "orange", "yellow", "green", "blue", "violet")
+                    .skip(tableOptions.getOffset())
+                    .limit(tableOptions.getLimit())
+                    .peek(name -> pulled.incrementAndGet())
+                    .map(Color::new);
+            tableOptions.pagingApplied();
+            return skipped;
+        }
+
+        /**
+         * Reads the offset but forgets to say it applied it
+         */
+        @Table(fields = "name", header = false, format = Format.csv)
+        @Command
+        public Stream<Color> cleared(final TableOptions tableOptions) {
+            tableOptions.setOffset(null);
+            tableOptions.setLimit(null);
+            return all();
+        }
+    }
+
+    public static class Color {
+        private final String name;
+
+        public Color(final String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
     public static class Data {
         @Table
         @Command
@@ -227,7 +365,7 @@ public class TableOptionsTest {
         }
 
         @Table(fields = "red green blue",
-//                format = Table.Format.csv,
+                format = Format.csv,
                 border = Border.asciiDots,
                 sort = "green"
         )
@@ -242,7 +380,7 @@ public class TableOptionsTest {
                 @Option("table-header") final Boolean header,
                 @Option("table-sort") final String sort,
                 @Option("table-fields") final String fields,
-//                @Option("table-format") final Table.Format format,
+                @Option("table-format") final Format format,
                 @Option("unrelated") final String unrelated
         ) {
         }
@@ -252,7 +390,7 @@ public class TableOptionsTest {
         }
 
         @Table(fields = "red green blue",
-//                format = Table.Format.csv,
+                format = Format.csv,
                 border = Border.asciiDots,
                 sort = "green"
         )
@@ -262,13 +400,13 @@ public class TableOptionsTest {
                 @Option("table-header") final Boolean header,
                 @Option("table-sort") final String sort,
                 @Option("table-fields") final String fields,
-//                @Option("table-format") final Table.Format format,
+                @Option("table-format") final Format format,
                 @Option("unrelated") final String unrelated
         ) {
         }
 
         @Table(fields = "red green blue",
-//                format = Table.Format.csv,
+                format = Format.csv,
                 border = Border.asciiDots,
                 sort = "green"
         )
@@ -286,11 +424,13 @@ public class TableOptionsTest {
         public void overrides(final TableOptions tableOptions,
                           @Option("expected-border") final String expectedBorder,
                           @Option("expected-sort") final String expectedSort,
-                          @Option("expected-fields") final String expectedFields
+                          @Option("expected-fields") final String expectedFields,
+                          @Option("expected-limit") final Integer expectedLimit
         ) {
             if (expectedBorder != null) assertEquals(expectedBorder, tableOptions.getBorder().toString());
             if (expectedSort != null) assertEquals(expectedSort, tableOptions.getSort());
             if (expectedFields != null) assertEquals(expectedFields, tableOptions.getFields());
+            if (expectedLimit != null) assertEquals(expectedLimit, tableOptions.getLimit());
         }
 
     }
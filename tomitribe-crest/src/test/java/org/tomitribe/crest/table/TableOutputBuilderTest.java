@@ -21,11 +21,19 @@ import org.junit.Test;
 import org.tomitribe.crest.Main;
 import org.tomitribe.crest.api.Command;
 import org.tomitribe.crest.api.table.Border;
+import org.tomitribe.crest.api.table.Format;
+import org.tomitribe.crest.api.table.Table;
 import org.tomitribe.crest.api.table.TableOptions;
 import org.tomitribe.util.PrintString;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 public class TableOutputBuilderTest extends Assert {
 
@@ -183,4 +191,64 @@ public class TableOutputBuilderTest extends Assert {
         // count should not be in output since --table-fields overrode it
         assertFalse("count values should not appear", result.contains("  3"));
     }
+
+    public static class StreamCommands {
+
+        static final AtomicInteger pulled = new AtomicInteger();
+        static final AtomicBoolean closed = new AtomicBoolean();
+
+        @Command
+        @Table(fields = "name color")
+        public Stream<Item> fruit() {
+            return items().stream()
+                    .peek(item -> pulled.incrementAndGet())
+                    .onClose(() -> closed.set(true));
+        }
+    }
+
+    /**
+     * The stream is not read inside the interceptor chain,
+     * only when the output is written
+     */
+    @Test
+    public void streamReadWhenWritten() throws Exception {
+        StreamCommands.pulled.set(0);
+        StreamCommands.closed.set(false);
+
+        final Object result = new Main(StreamCommands.class).exec("fruit");
+        assertEquals(0, StreamCommands.pulled.get());
+
+        final PrintString out = new PrintString();
+        ((TableOutput) result).write(out);
+
+        assertEquals(3, StreamCommands.pulled.get());
+        assertTrue(StreamCommands.closed.get());
+        assertTrue(out.toString().contains("banana"));
+    }
+
+    /**
+     * An endless stream written to a reader that has gone away
+     * stops being read instead of running forever
+     */
+    @Test(timeout = 10000)
+    public void stopsWhenOutputClosed() throws Exception {
+        final AtomicInteger pulled = new AtomicInteger();
+        final Stream<Item> endless = Stream.generate(() -> new Item("apple", "red", pulled.incrementAndGet()));
+
+        final PrintStream out = new PrintStream(new OutputStream() {
+            @Override
+            public void write(final int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        });
+
+        TableOutput.builder()
+                .data(endless)
+                .format(Format.jsonl)
+                .build()
+                .write(out);
+
+        assertTrue(out.checkError());
+        assertTrue(pulled.get() > 0);
+    }
 }
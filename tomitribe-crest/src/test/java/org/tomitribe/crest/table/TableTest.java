@@ -302,6 +302,49 @@ public class TableTest {
     }
 
 
+    /**
+     * Border segments are written as-is, never read as format specifiers
+     */
+    @Test
+    public void percentInBorder() {
+        final Data data = Data.builder().headings(false)
+                .row("a", "10")
+                .row("bb", "5")
+                .build();
+
+        final Border border = Border.builder()
+                .first(null)
+                .header(null)
+                .inner(null)
+                .row("%s ", " %n ", " %")
+                .last(null)
+                .build();
+        final Table table = new Table(data, border, 150);
+
+        Assert.assertEquals("" +
+                "%s a  %n 10 %\n" +
+                "%s bb %n  5 %\n", table.format());
+    }
+
+    /**
+     * Output larger than the writer's buffer is written in chunks
+     * with nothing lost at the boundaries
+     */
+    @Test
+    public void manyRows() {
+        final Data.Builder builder = Data.builder().headings(true).row("id", "name");
+        final StringBuilder expected = new StringBuilder("id\tname\n");
+        for (int i = 0; i < 20000; i++) {
+            builder.row("" + i, "name" + i);
+            expected.append(i).append("\tname").append(i).append("\n");
+        }
+
+        final Table table = new Table(builder.build(), Border.tsv().build(), 300);
+
+        Assert.assertEquals(expected.toString(), table.format());
+    }
+
+
     public void assertTable(final Supplier<Border.Builder> border, final String expected) {
         final Table table = new Table(data, border.get().build(), 300);
         final String actual = table.format();
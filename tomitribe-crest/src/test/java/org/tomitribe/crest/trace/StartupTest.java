@@ -0,0 +1,106 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.trace;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.tomitribe.crest.Main;
+import org.tomitribe.crest.api.Command;
+import org.tomitribe.util.PrintString;
+
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StartupTest {
+
+    private PrintStream err;
+    private final PrintString report = new PrintString();
+
+    @Before
+    public void before() {
+        err = System.err;
+        System.setErr(report);
+        System.setProperty(Startup.PROPERTY, "true");
+    }
+
+    @After
+    public void after() {
+        System.clearProperty(Startup.PROPERTY);
+        System.setErr(err);
+    }
+
+    @Test
+    public void report() {
+        Main.builder()
+                .command(Green.class)
+                .command(Blue.class)
+                .name("colors")
+                .version("1.0")
+                .noexit()
+                .build();
+
+        final String text = report.toString();
+        assertTrue(text, text.startsWith("crest startup: "));
+        assertTrue(text, text.contains("processClass   " + Green.class.getName()));
+        assertTrue(text, text.contains("processClass   " + Blue.class.getName()));
+        assertTrue(text, text.contains("installHelp"));
+        assertTrue(text, text.contains("link           green"));
+        assertTrue(text, text.contains("link           blue"));
+    }
+
+    @Test
+    public void nestedAndSorted() {
+        try (Startup.Step outer = Startup.begin("outer", "a")) {
+            try (Startup.Step inner = Startup.begin("inner", null)) {
+                inner.detail("b");
+            }
+        }
+
+        final PrintString out = new PrintString();
+        Startup.report(out);
+
+        final String[] lines = out.toString().split("\r?\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[2], lines[2].matches(" +[0-9.]+ +[0-9-]+  outer +a"));
+        assertTrue(lines[3], lines[3].matches(" +[0-9.]+ +[0-9-]+    inner +b"));
+
+        // Reported steps are forgotten
+        final PrintString again = new PrintString();
+        Startup.report(again);
+        assertEquals("", again.toString());
+    }
+
+    @Test
+    public void disabled() {
+        System.clearProperty(Startup.PROPERTY);
+        assertTrue(Startup.begin("load", null) == Startup.Step.NONE);
+    }
+
+    public static class Green {
+        @Command
+        public String green() {
+            return "green";
+        }
+    }
+
+    public static class Blue {
+        @Command
+        public String blue() {
+            return "blue";
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tomitribe.crest.trace;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.tomitribe.crest.Main;
+import org.tomitribe.crest.api.Command;
+import org.tomitribe.crest.api.Option;
+import org.tomitribe.util.PrintString;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The tests are compiled for Java 8 as well, so the
+ * Flight Recorder API is used through reflection here too
+ */
+public class TraceTest {
+
+    @Test
+    public void noneWhenNotRecording() {
+        Assume.assumeFalse(Trace.isRecording());
+        assertSame(Span.NONE, Trace.begin(Phase.INVOKE, "green", 2));
+    }
+
+    @Test
+    public void eventForEachPhase() throws Exception {
+        final Class<?> recordingClass;
+        try {
+            recordingClass = Class.forName("jdk.jfr.Recording");
+            Class.forName("jdk.jfr.EventFactory");
+        } catch (final ClassNotFoundException e) {
+            Assume.assumeTrue("No Flight Recorder", false);
+            return;
+        }
+
+        final Object recording = recordingClass.getConstructor().newInstance();
+        final File file = File.createTempFile("crest", ".jfr");
+        try {
+            recordingClass.getMethod("start").invoke(recording);
+            assertTrue(Trace.isRecording());
+
+            final PrintString out = new PrintString();
+            Main.builder()
+                    .command(Colors.class)
+                    .out(out)
+                    .noexit()
+                    .build()
+                    .run("green", "--shade=dark", "leaf");
+
+            assertEquals("dark leaf", out.toString().trim());
+
+            recordingClass.getMethod("stop").invoke(recording);
+            recordingClass.getMethod("dump", Path.class).invoke(recording, file.toPath());
+        } finally {
+            recordingClass.getMethod("close").invoke(recording);
+        }
+
+        final Map<String, List<Object>> events = read(file.toPath());
+        file.delete();
+
+        assertFalse(Trace.isRecording());
+
+        for (final Phase phase : new Phase[]{Phase.SPLIT, Phase.GLOBAL_OPTIONS, Phase.PARSE, Phase.CONVERT,
+                Phase.INVOKE, Phase.RENDER}) {
+            assertTrue(phase.name(), events.containsKey(phase.getEventName()));
+        }
+
+        final Object invoke = events.get(Phase.INVOKE.getEventName()).get(0);
+        assertEquals("green", get(invoke, "command"));
+        assertEquals(2, get(invoke, "arguments"));
+
+        final Object parse = events.get(Phase.PARSE.getEventName()).get(0);
+        assertEquals(2, get(parse, "arguments"));
+
+        final Object render = events.get(Phase.RENDER.getEventName()).get(0);
+        assertEquals("green", get(render, "command"));
+        assertEquals(String.class.getName(), get(render, "detail"));
+    }
+
+    private static Map<String, List<Object>> read(final Path path) throws Exception {
+        final Class<?> recordingFile = Class.forName("jdk.jfr.consumer.RecordingFile");
+        final Method getEventType = Class.forName("jdk.jfr.consumer.RecordedEvent").getMethod("getEventType");
+        final Method getName = Class.forName("jdk.jfr.EventType").getMethod("getName");
+
+        final Map<String, List<Object>> events = new HashMap<>();
+        for (final Object event : (List<?>) recordingFile.getMethod("readAllEvents", Path.class).invoke(null, path)) {
+            final String name = (String) getName.invoke(getEventType.invoke(event));
+            events.computeIfAbsent(name, k -> new ArrayList<>()).add(event);
+        }
+        return events;
+    }
+
+    private static Object get(final Object event, final String field) throws Exception {
+        return Class.forName("jdk.jfr.consumer.RecordedObject").getMethod("getValue", String.class).invoke(event, field);
+    }
+
+    public static class Colors {
+        @Command
+        public String green(@Option("shade") final String shade, final String thing) {
+            return shade + " " + thing;
+        }
+    }
+}